@@ -0,0 +1,169 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Throughput of {@code Batch#execute()} that emits multiple {@link Result Results}.
+ *
+ * <p>{@code queryExecutionOperator} uses {@link FluxQueryExecution} directly, and {@code previousOperatorChain}
+ * reproduces the operator chain previously used by
+ * {@link CallbackSupport#interceptQueryExecution(Publisher, QueryExecutionInfo)}.
+ * {@code proxy} measures the whole call through proxy {@link Batch}.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryExecutionBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int resultCount;
+
+    private Batch<?> batch;
+
+    private Batch<?> proxyBatch;
+
+    private ProxyConfig proxyConfig;
+
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Clock clock = Clock.systemUTC();
+
+    @Setup
+    public void setUp() {
+        Result[] results = new Result[this.resultCount];
+        for (int i = 0; i < this.resultCount; i++) {
+            results[i] = new NoopResult();
+        }
+        this.batch = new NoopBatch(Flux.fromArray(results));
+
+        this.proxyConfig = new ProxyConfig();
+        this.proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+            }
+        });
+        this.proxyBatch = this.proxyConfig.getProxyFactory().createBatch(this.batch, new ConnectionInfo());
+    }
+
+    @Benchmark
+    public Long direct() {
+        return Flux.from(this.batch.execute()).count().block();
+    }
+
+    @Benchmark
+    public Long proxy() {
+        return Flux.from(this.proxyBatch.execute()).count().block();
+    }
+
+    @Benchmark
+    public Long queryExecutionOperator() {
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        ProxyExecutionListener listener = this.proxyConfig.getListeners();
+        ProxyFactory proxyFactory = this.proxyConfig.getProxyFactory();
+
+        return new FluxQueryExecution(Flux.from(this.batch.execute()), listener, executionInfo, proxyFactory, this.ticker)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long previousOperatorChain() {
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        ProxyExecutionListener listener = this.proxyConfig.getListeners();
+        ProxyFactory proxyFactory = this.proxyConfig.getProxyFactory();
+        AtomicReference<Instant> startTimeHolder = new AtomicReference<>();
+
+        return Flux.empty()
+                .ofType(Result.class)
+                .doOnSubscribe(s -> {
+                    startTimeHolder.set(this.clock.instant());
+                    executionInfo.setThreadName(Thread.currentThread().getName());
+                    executionInfo.setThreadId(Thread.currentThread().getId());
+                    executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+                    listener.onQueryExecution(executionInfo);
+                })
+                .concatWith(this.batch.execute())
+                .doOnComplete(() -> executionInfo.setSuccess(true))
+                .doOnError(throwable -> {
+                    executionInfo.setThrowable(throwable);
+                    executionInfo.setSuccess(false);
+                })
+                .doFinally(signalType -> {
+                    executionInfo.setExecuteDuration(Duration.between(startTimeHolder.get(), this.clock.instant()));
+                    executionInfo.setThreadName(Thread.currentThread().getName());
+                    executionInfo.setThreadId(Thread.currentThread().getId());
+                    executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+                    listener.onQueryExecution(executionInfo);
+                })
+                .flatMap(queryResult -> Mono.just(proxyFactory.createResult(queryResult, executionInfo)))
+                .count()
+                .block();
+    }
+
+    static class NoopBatch implements Batch<NoopBatch> {
+
+        private final Flux<Result> results;
+
+        NoopBatch(Flux<Result> results) {
+            this.results = results;
+        }
+
+        @Override
+        public NoopBatch add(String sql) {
+            return this;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+            return this.results;
+        }
+    }
+
+    static class NoopResult implements Result {
+
+        @Override
+        public Publisher<Integer> getRowsUpdated() {
+            return Mono.just(0);
+        }
+
+        @Override
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> f) {
+            return Flux.empty();
+        }
+    }
+
+}
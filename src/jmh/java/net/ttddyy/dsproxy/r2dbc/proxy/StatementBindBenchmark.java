@@ -0,0 +1,176 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionHolder;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single {@code Statement#bind(int, Object)} call.
+ *
+ * <p>{@code dispatchByName} and {@code dispatchByProxyMethod} compare resolving the kind of invoked method
+ * by method name (previous implementation) and by cached {@link ProxyMethod}.
+ * {@code invokeBy*} benchmarks compare invoking the target by reflection and by {@link MethodHandleMethodInvoker}.
+ * {@code bind*} benchmarks measure the whole call through each proxy. {@code bindJdkProxyWithReflection}
+ * invokes the target by reflection as it was done previously.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatementBindBenchmark {
+
+    private static final Object VALUE = 100;
+
+    private Method bindMethod;
+
+    private Statement<?> statement;
+
+    private Statement<?> jdkProxy;
+
+    private Statement<?> staticProxy;
+
+    private Statement<?> reflectionJdkProxy;
+
+    private Object[] bindArgs;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.bindMethod = Statement.class.getMethod("bind", int.class, Object.class);
+        this.statement = new NoopStatement();
+
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+
+        ProxyConfig jdkProxyConfig = new ProxyConfig();
+        this.jdkProxy = jdkProxyConfig.getProxyFactory().createStatement(this.statement, "QUERY", connectionInfo);
+
+        ProxyConfig staticProxyConfig = new ProxyConfig();
+        staticProxyConfig.setProxyFactory(new StaticProxyFactory());
+        this.staticProxy = staticProxyConfig.getProxyFactory().createStatement(this.statement, "QUERY", connectionInfo);
+
+        ReactiveStatementCallback reflectionCallback = new ReactiveStatementCallback(this.statement, "QUERY", connectionInfo, jdkProxyConfig) {
+            @Override
+            protected Object invokeTarget(Method method, MethodInvoker invoker, Object target, Object[] args) throws Throwable {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                }
+            }
+        };
+        this.reflectionJdkProxy = (Statement<?>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Statement.class, ProxyObject.class, ConnectionHolder.class}, reflectionCallback::invoke);
+
+        this.bindArgs = new Object[]{1, VALUE};
+    }
+
+    @Benchmark
+    public int dispatchByName() {
+        // method name comparisons previously performed by CallbackSupport and ReactiveStatementCallback
+        String methodName = this.bindMethod.getName();
+        if ("getTarget".equals(methodName) || "getOriginalConnection".equals(methodName)) {
+            return 0;
+        }
+        if ("toString".equals(methodName)) {
+            return 1;
+        }
+        if ("add".equals(methodName)) {
+            return 2;
+        } else if ("bind".equals(methodName) || "bindNull".equals(methodName)) {
+            return "bind".equals(methodName) ? 3 : 4;
+        } else if ("execute".equals(methodName)) {
+            return 5;
+        }
+        return 6;
+    }
+
+    @Benchmark
+    public ProxyMethod dispatchByProxyMethod() {
+        return ProxyMethod.of(this.bindMethod);
+    }
+
+    @Benchmark
+    public Object invokeByReflection() throws Exception {
+        return this.bindMethod.invoke(this.statement, this.bindArgs);
+    }
+
+    @Benchmark
+    public Object invokeByMethodHandle() throws Throwable {
+        return MethodHandleMethodInvoker.of(this.bindMethod, this.statement.getClass()).invoke(this.statement, this.bindArgs);
+    }
+
+    @Benchmark
+    public Object bindDirect() {
+        return this.statement.bind(1, VALUE);
+    }
+
+    @Benchmark
+    public Object bindJdkProxy() {
+        return this.jdkProxy.bind(1, VALUE);
+    }
+
+    @Benchmark
+    public Object bindJdkProxyWithReflection() {
+        return this.reflectionJdkProxy.bind(1, VALUE);
+    }
+
+    @Benchmark
+    public Object bindStaticProxy() {
+        return this.staticProxy.bind(1, VALUE);
+    }
+
+    static class NoopStatement implements Statement<NoopStatement> {
+
+        @Override
+        public NoopStatement add() {
+            return this;
+        }
+
+        @Override
+        public NoopStatement bind(Object identifier, Object value) {
+            return this;
+        }
+
+        @Override
+        public NoopStatement bind(int index, Object value) {
+            return this;
+        }
+
+        @Override
+        public NoopStatement bindNull(Object identifier, Class<?> type) {
+            return this;
+        }
+
+        @Override
+        public NoopStatement bindNull(int index, Class<?> type) {
+            return this;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+            return Flux.empty();
+        }
+    }
+
+}
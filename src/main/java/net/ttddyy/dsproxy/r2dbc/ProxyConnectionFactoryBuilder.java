@@ -1,14 +1,20 @@
 package net.ttddyy.dsproxy.r2dbc;
 
 import io.r2dbc.spi.ConnectionFactory;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
 import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.r2dbc.support.FluxProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.support.LifeCycleExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.support.LifeCycleListener;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.EnumSet;
 import java.util.Objects;
 import java.util.function.Consumer;
 
@@ -44,6 +50,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onMethodExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onMethodExecution(Consumer<Mono<MethodExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -54,6 +64,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onQueryExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onQueryExecution(Consumer<Mono<QueryExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -64,6 +78,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onMethodExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onBeforeMethod(Consumer<Mono<MethodExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -74,6 +92,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onMethodExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onAfterMethod(Consumer<Mono<MethodExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -84,6 +106,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onQueryExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onBeforeQuery(Consumer<Mono<QueryExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -94,6 +120,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onQueryExecutions(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onAfterQuery(Consumer<Mono<QueryExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -104,6 +134,10 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * @deprecated use {@link #onEachQueryResults(Consumer)} that receives hot {@link Flux} of executions
+     */
+    @Deprecated
     public ProxyConnectionFactoryBuilder onEachQueryResult(Consumer<Mono<QueryExecutionInfo>> consumer) {
         this.proxyConfig.addListener(new ProxyExecutionListener() {
             @Override
@@ -114,6 +148,48 @@ public class ProxyConnectionFactoryBuilder {
         return this;
     }
 
+    /**
+     * Receive before and after method executions as hot {@link Flux}.
+     *
+     * @param consumer consumer to compose and subscribe the flux
+     * @return builder
+     * @see FluxProxyExecutionListener
+     */
+    public ProxyConnectionFactoryBuilder onMethodExecutions(Consumer<Flux<MethodExecution>> consumer) {
+        FluxProxyExecutionListener listener = new FluxProxyExecutionListener(FluxProxyExecutionListener.DEFAULT_BUFFER_SIZE,
+                EnumSet.of(ProxyEventType.BEFORE_METHOD, ProxyEventType.AFTER_METHOD));
+        consumer.accept(listener.getMethodExecutions());
+        return listener(listener);
+    }
+
+    /**
+     * Receive before and after query executions as hot {@link Flux}.
+     *
+     * @param consumer consumer to compose and subscribe the flux
+     * @return builder
+     * @see FluxProxyExecutionListener
+     */
+    public ProxyConnectionFactoryBuilder onQueryExecutions(Consumer<Flux<QueryExecution>> consumer) {
+        FluxProxyExecutionListener listener = new FluxProxyExecutionListener(FluxProxyExecutionListener.DEFAULT_BUFFER_SIZE,
+                EnumSet.of(ProxyEventType.BEFORE_QUERY, ProxyEventType.AFTER_QUERY));
+        consumer.accept(listener.getQueryExecutions());
+        return listener(listener);
+    }
+
+    /**
+     * Receive each query result as hot {@link Flux}.
+     *
+     * @param consumer consumer to compose and subscribe the flux
+     * @return builder
+     * @see FluxProxyExecutionListener
+     */
+    public ProxyConnectionFactoryBuilder onEachQueryResults(Consumer<Flux<QueryExecution>> consumer) {
+        FluxProxyExecutionListener listener = new FluxProxyExecutionListener(FluxProxyExecutionListener.DEFAULT_BUFFER_SIZE,
+                EnumSet.of(ProxyEventType.EACH_QUERY_RESULT));
+        consumer.accept(listener.getQueryExecutions());
+        return listener(listener);
+    }
+
     public ProxyConnectionFactoryBuilder listener(ProxyExecutionListener listener) {
         this.proxyConfig.addListener(listener);
         return this;
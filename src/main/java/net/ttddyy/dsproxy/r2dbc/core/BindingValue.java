@@ -42,4 +42,63 @@ public interface BindingValue {
 
     }
 
+    /**
+     * Represent a bound value whose value is not captured. Only type of the value is kept.
+     */
+    class TypeBindingValue implements BindingValue {
+
+        private Class<?> type;
+
+        public TypeBindingValue(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Object getValue() {
+            return null;  // value is not captured
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+    }
+
+    /**
+     * Represent a bound value captured partially. {@link #getValue()} returns truncated {@link String} or
+     * {@code byte[]}.
+     */
+    class TruncatedBindingValue implements BindingValue {
+
+        private Object value;
+
+        private Class<?> type;
+
+        private long originalSize;
+
+        public TruncatedBindingValue(Object value, Class<?> type, long originalSize) {
+            this.value = value;
+            this.type = type;
+            this.originalSize = originalSize;
+        }
+
+        @Override
+        public Object getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return type of the bound value
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return number of chars or bytes of the bound value
+         */
+        public long getOriginalSize() {
+            return originalSize;
+        }
+    }
+
 }
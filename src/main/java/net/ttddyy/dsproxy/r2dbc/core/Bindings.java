@@ -1,35 +1,261 @@
 package net.ttddyy.dsproxy.r2dbc.core;
 
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.NullBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.SimpleBindingValue;
 import reactor.util.annotation.NonNull;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import static java.util.Comparator.naturalOrder;
-
 /**
+ * Values bound to a statement by {@link io.r2dbc.spi.Statement#bind} and {@link io.r2dbc.spi.Statement#bindNull}.
+ *
+ * Bound values are kept in arrays without creating {@link Binding} per bind operation:
+ * <ul>
+ * <li>Index bindings are stored in an array indexed by the bind index.</li>
+ * <li>Identifier bindings are stored in insertion order, and looked up through an open addressing hash table.</li>
+ * <li>Null bindings are stored as a {@link NullBindingValue} shared per type.</li>
+ * </ul>
+ *
+ * {@link #getIndexBindings()} and {@link #getIdentifierBindings()} create sorted {@link Binding}s when called.
+ * Binding to the same index or identifier again replaces the value.
+ *
  * @author Tadaya Tsuyukubo
  */
 public class Bindings {
 
-    private SortedSet<Binding> indexBindings = new TreeSet<>();
-    private SortedSet<Binding> identifierBindings = new TreeSet<>();
+    private static final int INITIAL_CAPACITY = 8;
+
+    // represents null passed to "bind()"
+    private static final Object NULL_VALUE = new Object();
+
+    private static final ClassValue<NullBindingValue> NULL_BINDING_VALUES = new ClassValue<NullBindingValue>() {
+        @Override
+        protected NullBindingValue computeValue(Class<?> type) {
+            return new NullBindingValue(type);
+        }
+    };
+
+    // value is a raw bound value, NULL_VALUE, or BindingValue
+    private Object[] indexValues;
+
+    private int indexBindingCount;
+
+    // identifiers and values in insertion order
+    private Object[] identifiers;
+
+    private Object[] identifierValues;
+
+    private int identifierBindingCount;
+
+    // open addressing table. position in identifiers plus one. 0 means empty.
+    private int[] identifierTable;
 
     public void addIndexBinding(int index, BindingValue value) {
-        this.indexBindings.add(new IndexBinding(index, value));
+        putIndexValue(index, value != null ? value : NULL_VALUE);
     }
 
     public void addIdentifierBinding(Object identifier, BindingValue value) {
-        this.identifierBindings.add(new IdentifierBinding(identifier, value));
+        putIdentifierValue(identifier, value != null ? value : NULL_VALUE);
+    }
+
+    /**
+     * Bind a value by index.
+     *
+     * @param index index
+     * @param value bound value
+     */
+    public void bindIndex(int index, Object value) {
+        putIndexValue(index, toStoredValue(value));
+    }
+
+    /**
+     * Bind a null by index.
+     *
+     * @param index index
+     * @param type  type of null
+     */
+    public void bindIndexNull(int index, Class<?> type) {
+        putIndexValue(index, nullBindingValue(type));
+    }
+
+    /**
+     * Bind a value by identifier.
+     *
+     * @param identifier identifier
+     * @param value      bound value
+     */
+    public void bindIdentifier(Object identifier, Object value) {
+        putIdentifierValue(identifier, toStoredValue(value));
+    }
+
+    /**
+     * Bind a null by identifier.
+     *
+     * @param identifier identifier
+     * @param type       type of null
+     */
+    public void bindIdentifierNull(Object identifier, Class<?> type) {
+        putIdentifierValue(identifier, nullBindingValue(type));
+    }
+
+    private static Object toStoredValue(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        // keep bound value that happens to be a BindingValue as a value
+        return value instanceof BindingValue ? new SimpleBindingValue(value) : value;
+    }
+
+    private static BindingValue nullBindingValue(Class<?> type) {
+        return type == null ? new NullBindingValue(null) : NULL_BINDING_VALUES.get(type);
+    }
+
+    private static BindingValue toBindingValue(Object storedValue) {
+        if (storedValue instanceof BindingValue) {
+            return (BindingValue) storedValue;
+        }
+        return new SimpleBindingValue(storedValue == NULL_VALUE ? null : storedValue);
+    }
+
+    private void putIndexValue(int index, Object value) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index must not be negative: " + index);
+        }
+        if (this.indexValues == null) {
+            this.indexValues = new Object[Math.max(INITIAL_CAPACITY, index + 1)];
+        } else if (index >= this.indexValues.length) {
+            this.indexValues = Arrays.copyOf(this.indexValues, Math.max(this.indexValues.length * 2, index + 1));
+        }
+        if (this.indexValues[index] == null) {
+            this.indexBindingCount++;
+        }
+        this.indexValues[index] = value;
     }
 
+    private void putIdentifierValue(Object identifier, Object value) {
+        if (this.identifiers == null) {
+            this.identifiers = new Object[INITIAL_CAPACITY];
+            this.identifierValues = new Object[INITIAL_CAPACITY];
+            this.identifierTable = new int[INITIAL_CAPACITY * 2];
+        }
+
+        int mask = this.identifierTable.length - 1;
+        int slot = hash(identifier) & mask;
+        int position;
+        while ((position = this.identifierTable[slot]) != 0) {
+            if (Objects.equals(this.identifiers[position - 1], identifier)) {
+                this.identifierValues[position - 1] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (this.identifierBindingCount == this.identifiers.length) {
+            int newCapacity = this.identifiers.length * 2;
+            this.identifiers = Arrays.copyOf(this.identifiers, newCapacity);
+            this.identifierValues = Arrays.copyOf(this.identifierValues, newCapacity);
+            rehash(newCapacity * 2);
+            mask = this.identifierTable.length - 1;
+            slot = hash(identifier) & mask;
+            while (this.identifierTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        this.identifiers[this.identifierBindingCount] = identifier;
+        this.identifierValues[this.identifierBindingCount] = value;
+        this.identifierTable[slot] = ++this.identifierBindingCount;
+    }
+
+    private void rehash(int tableSize) {
+        int[] table = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int i = 0; i < this.identifierBindingCount; i++) {
+            int slot = hash(this.identifiers[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        this.identifierTable = table;
+    }
+
+    private static int hash(Object identifier) {
+        int h = Objects.hashCode(identifier);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return number of index bindings
+     */
+    public int getIndexBindingCount() {
+        return this.indexBindingCount;
+    }
+
+    /**
+     * @return number of identifier bindings
+     */
+    public int getIdentifierBindingCount() {
+        return this.identifierBindingCount;
+    }
+
+    /**
+     * @return {@code true} if no value is bound
+     */
+    public boolean isEmpty() {
+        return this.indexBindingCount == 0 && this.identifierBindingCount == 0;
+    }
+
+    /**
+     * Index bindings sorted by index. The returned set is created on each call.
+     *
+     * @return index bindings
+     */
     public SortedSet<Binding> getIndexBindings() {
-        return indexBindings;
+        SortedSet<Binding> bindings = new TreeSet<>();
+        if (this.indexValues != null) {
+            for (int i = 0; i < this.indexValues.length; i++) {
+                if (this.indexValues[i] != null) {
+                    bindings.add(new IndexBinding(i, toBindingValue(this.indexValues[i])));
+                }
+            }
+        }
+        return bindings;
     }
 
+    /**
+     * Identifier bindings sorted by identifier. The returned set is created on each call.
+     *
+     * @return identifier bindings
+     */
     public SortedSet<Binding> getIdentifierBindings() {
-        return identifierBindings;
+        SortedSet<Binding> bindings = new TreeSet<>();
+        for (int i = 0; i < this.identifierBindingCount; i++) {
+            bindings.add(new IdentifierBinding(this.identifiers[i], toBindingValue(this.identifierValues[i])));
+        }
+        return bindings;
+    }
+
+    /**
+     * Compare identifiers by natural order when they are the same {@link Comparable} type. Otherwise, compare by
+     * type name and string representation.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareIdentifiers(Object left, Object right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == null || right == null) {
+            return left == null ? -1 : 1;
+        }
+        if (left.getClass() == right.getClass() && left instanceof Comparable) {
+            return ((Comparable<Object>) left).compareTo(right);
+        }
+        int result = left.getClass().getName().compareTo(right.getClass().getName());
+        return result != 0 ? result : left.toString().compareTo(right.toString());
     }
 
     public static class IndexBinding implements Binding, Comparable<IndexBinding> {
@@ -68,9 +294,7 @@ public class Bindings {
 
         @Override
         public int compareTo(@NonNull IdentifierBinding o) {
-            // TODO: implement
-            return Objects.compare((Comparable) this.identifier,
-                    (Comparable) o.identifier, naturalOrder());
+            return compareIdentifiers(this.identifier, o.identifier);
         }
 
         @Override
@@ -0,0 +1,101 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Summary of values bound to a statement, updated on each bind operation instead of keeping the values.
+ *
+ * Size of a value is number of chars for {@link CharSequence}, and number of bytes for {@code byte[]} and
+ * {@link ByteBuffer}. Other values are counted but have no size.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class BindingsSummary {
+
+    private int rowCount;
+
+    private long valueCount;
+
+    private long nullCount;
+
+    private long totalSize;
+
+    private long maxSize;
+
+    /**
+     * Record a value passed to {@code Statement#bind}.
+     *
+     * @param value bound value
+     */
+    public void recordValue(Object value) {
+        this.valueCount++;
+        long size;
+        if (value instanceof CharSequence) {
+            size = ((CharSequence) value).length();
+        } else if (value instanceof byte[]) {
+            size = ((byte[]) value).length;
+        } else if (value instanceof ByteBuffer) {
+            size = ((ByteBuffer) value).remaining();
+        } else {
+            return;
+        }
+        this.totalSize += size;
+        if (size > this.maxSize) {
+            this.maxSize = size;
+        }
+    }
+
+    /**
+     * Record a {@code Statement#bindNull} operation.
+     */
+    public void recordNull() {
+        this.valueCount++;
+        this.nullCount++;
+    }
+
+    /**
+     * @return number of rows with bound values
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return number of bind operations including nulls
+     */
+    public long getValueCount() {
+        return this.valueCount;
+    }
+
+    /**
+     * @return number of bind null operations
+     */
+    public long getNullCount() {
+        return this.nullCount;
+    }
+
+    /**
+     * @return sum of sizes of bound values
+     */
+    public long getTotalSize() {
+        return this.totalSize;
+    }
+
+    /**
+     * @return max size of bound values
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "{rows=" + this.rowCount + ", values=" + this.valueCount + ", nulls=" + this.nullCount +
+                ", totalSize=" + this.totalSize + ", maxSize=" + this.maxSize + "}";
+    }
+
+}
@@ -1,71 +1,405 @@
 package net.ttddyy.dsproxy.r2dbc.core;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Delegate to multiple of {@link ProxyExecutionListener ProxyExecutionListeners}.
  *
+ * Keeps track of event types that any of the listeners receives. Proxies use {@link #isListened(ProxyEventType)}
+ * to skip preparing callbacks that no listener receives.
+ *
+ * Listeners are held in a copy-on-write array. Adding or removing listeners is thread safe and can be performed
+ * while proxies are in use. Dispatching to listeners does not lock.
+ *
+ * Optionally, time spent in each listener can be recorded({@link #setRecordStats(boolean)}), and exceptions thrown
+ * by listeners can be isolated from the proxy({@link #setIsolateErrors(boolean)}).
+ *
  * @author Tadaya Tsuyukubo
  */
 public class CompositeProxyExecutionListener implements ProxyExecutionListener {
-    private List<ProxyExecutionListener> listeners = new ArrayList<>();
+
+    private static final ProxyExecutionListener[] EMPTY_LISTENERS = new ProxyExecutionListener[0];
+
+    private static final BiConsumer<ProxyExecutionListener, MethodExecutionInfo> ON_METHOD_EXECUTION = ProxyExecutionListener::onMethodExecution;
+
+    private static final BiConsumer<ProxyExecutionListener, QueryExecutionInfo> ON_QUERY_EXECUTION = ProxyExecutionListener::onQueryExecution;
+
+    private static final BiConsumer<ProxyExecutionListener, MethodExecutionInfo> BEFORE_METHOD = ProxyExecutionListener::beforeMethod;
+
+    private static final BiConsumer<ProxyExecutionListener, MethodExecutionInfo> AFTER_METHOD = ProxyExecutionListener::afterMethod;
+
+    private static final BiConsumer<ProxyExecutionListener, QueryExecutionInfo> BEFORE_QUERY = ProxyExecutionListener::beforeQuery;
+
+    private static final BiConsumer<ProxyExecutionListener, QueryExecutionInfo> AFTER_QUERY = ProxyExecutionListener::afterQuery;
+
+    private static final BiConsumer<ProxyExecutionListener, QueryExecutionInfo> EACH_QUERY_RESULT = ProxyExecutionListener::eachQueryResult;
+
+    private static final BiConsumer<ProxyExecutionListener, QueryExecutionInfo> AGGREGATED_QUERY_RESULT = ProxyExecutionListener::aggregatedQueryResult;
+
+    private final Object lock = new Object();
+
+    private volatile ProxyExecutionListener[] listeners = EMPTY_LISTENERS;
+
+    private final List<ProxyExecutionListener> listenersView = new ListenersView();
+
+    private volatile Set<ProxyEventType> listenedEventTypes = EnumSet.noneOf(ProxyEventType.class);
+
+    // same order as listeners
+    private volatile ListenerStats[] listenerStats = new ListenerStats[0];
+
+    private volatile boolean recordStats;
+
+    private volatile boolean isolateErrors;
+
+    // whether either of stats or error isolation is enabled
+    private volatile boolean instrumented;
+
+    private volatile Ticker ticker = Ticker.systemTicker();
 
     public CompositeProxyExecutionListener(ProxyExecutionListener... listeners) {
-        this.listeners.addAll(Arrays.asList(listeners));
+        addAll(Arrays.asList(listeners));
     }
 
     @Override
     public void onMethodExecution(MethodExecutionInfo executionInfo) {
-        this.listeners.forEach(listener -> listener.onMethodExecution(executionInfo));
+        if (this.instrumented) {
+            dispatch(executionInfo.getProxyEventType(), executionInfo, ON_METHOD_EXECUTION);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onMethodExecution(executionInfo);
+        }
     }
 
     @Override
     public void onQueryExecution(QueryExecutionInfo executionInfo) {
-        this.listeners.forEach(listener -> listener.onQueryExecution(executionInfo));
+        if (this.instrumented) {
+            dispatch(executionInfo.getProxyEventType(), executionInfo, ON_QUERY_EXECUTION);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onQueryExecution(executionInfo);
+        }
     }
 
     @Override
     public void beforeMethod(MethodExecutionInfo executionInfo) {
-        this.listeners.forEach(listener -> listener.beforeMethod(executionInfo));
+        if (this.instrumented) {
+            dispatch(ProxyEventType.BEFORE_METHOD, executionInfo, BEFORE_METHOD);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].beforeMethod(executionInfo);
+        }
     }
 
     @Override
     public void afterMethod(MethodExecutionInfo executionInfo) {
-        this.listeners.forEach(listener -> listener.afterMethod(executionInfo));
+        if (this.instrumented) {
+            dispatch(ProxyEventType.AFTER_METHOD, executionInfo, AFTER_METHOD);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].afterMethod(executionInfo);
+        }
     }
 
     @Override
     public void beforeQuery(QueryExecutionInfo execInfo) {
-        this.listeners.forEach(listener -> listener.beforeQuery(execInfo));
+        if (this.instrumented) {
+            dispatch(ProxyEventType.BEFORE_QUERY, execInfo, BEFORE_QUERY);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].beforeQuery(execInfo);
+        }
     }
 
     @Override
     public void afterQuery(QueryExecutionInfo execInfo) {
-        this.listeners.forEach(listener -> listener.afterQuery(execInfo));
+        if (this.instrumented) {
+            dispatch(ProxyEventType.AFTER_QUERY, execInfo, AFTER_QUERY);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].afterQuery(execInfo);
+        }
     }
 
     @Override
     public void eachQueryResult(QueryExecutionInfo execInfo) {
-        this.listeners.forEach(listener -> listener.eachQueryResult(execInfo));
+        if (this.instrumented) {
+            dispatch(ProxyEventType.EACH_QUERY_RESULT, execInfo, EACH_QUERY_RESULT);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].eachQueryResult(execInfo);
+        }
+    }
+
+    @Override
+    public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+        if (this.instrumented) {
+            dispatch(ProxyEventType.AGGREGATED_QUERY_RESULT, execInfo, AGGREGATED_QUERY_RESULT);
+            return;
+        }
+        ProxyExecutionListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].aggregatedQueryResult(execInfo);
+        }
     }
 
     public boolean add(ProxyExecutionListener listener) {
-        return this.listeners.add(listener);
+        return addAll(Collections.singletonList(listener));
     }
 
     public boolean addAll(Collection<ProxyExecutionListener> listeners) {
-        return this.listeners.addAll(listeners);
+        if (listeners.isEmpty()) {
+            return false;
+        }
+        synchronized (this.lock) {
+            ProxyExecutionListener[] current = this.listeners;
+            ProxyExecutionListener[] updated = Arrays.copyOf(current, current.length + listeners.size());
+            int index = current.length;
+            for (ProxyExecutionListener listener : listeners) {
+                updated[index++] = listener;
+            }
+            update(updated);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the listener.
+     *
+     * @param listener listener to remove
+     * @return {@code true} if the listener was registered
+     */
+    public boolean remove(ProxyExecutionListener listener) {
+        synchronized (this.lock) {
+            ProxyExecutionListener[] current = this.listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(listener)) {
+                    ProxyExecutionListener[] updated = new ProxyExecutionListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    update(updated);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void update(ProxyExecutionListener[] listeners) {
+        // replace with new set rather than modifying, so that readers always see a complete set
+        Set<ProxyEventType> eventTypes = EnumSet.noneOf(ProxyEventType.class);
+        for (ProxyExecutionListener listener : listeners) {
+            eventTypes.addAll(listener.getListenedEventTypes());
+        }
+        ListenerStats[] currentStats = this.listenerStats;
+        ListenerStats[] stats = new ListenerStats[listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            stats[i] = findOrCreateStats(currentStats, listeners[i]);
+        }
+
+        this.listenerStats = stats;
+        this.listeners = listeners;
+        this.listenedEventTypes = eventTypes;
     }
 
+    private static ListenerStats findOrCreateStats(ListenerStats[] stats, ProxyExecutionListener listener) {
+        for (ListenerStats stat : stats) {
+            if (stat.getListener() == listener) {
+                return stat;
+            }
+        }
+        return new ListenerStats(listener);
+    }
+
+    private <T> void dispatch(ProxyEventType eventType, T executionInfo, BiConsumer<ProxyExecutionListener, T> callback) {
+        ListenerStats[] stats = this.listenerStats;
+        boolean recordStats = this.recordStats;
+        boolean isolateErrors = this.isolateErrors;
+        Ticker ticker = this.ticker;
+
+        for (int i = 0; i < stats.length; i++) {
+            ListenerStats stat = stats[i];
+            long startNanos = recordStats ? ticker.read() : 0;
+            try {
+                callback.accept(stat.getListener(), executionInfo);
+            } catch (RuntimeException ex) {
+                stat.incrementErrorCount(eventType);
+                if (!isolateErrors) {
+                    throw ex;
+                }
+            } finally {
+                if (recordStats) {
+                    stat.record(eventType, ticker.read() - startNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether any of the listeners receives the given event type.
+     *
+     * @param eventType event type
+     * @return {@code true} when any listener receives the event
+     */
+    public boolean isListened(ProxyEventType eventType) {
+        return this.listenedEventTypes.contains(eventType);
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.copyOf(this.listenedEventTypes);
+    }
+
+    /**
+     * Whether to record time spent in each listener.
+     *
+     * When enabled, time is recorded per listener and event type in {@link ListenerStats}.
+     *
+     * @param recordStats {@code true} to record
+     * @see #getListenerStats()
+     */
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+        this.instrumented = recordStats || this.isolateErrors;
+    }
+
+    public boolean isRecordStats() {
+        return this.recordStats;
+    }
+
+    /**
+     * Whether to keep calling other listeners when a listener throws an exception.
+     *
+     * When enabled, exceptions thrown by listeners are counted in {@link ListenerStats} and not propagated to
+     * the caller, which is the query or method execution on proxy.
+     *
+     * @param isolateErrors {@code true} to isolate errors
+     * @see #getListenerStats()
+     */
+    public void setIsolateErrors(boolean isolateErrors) {
+        this.isolateErrors = isolateErrors;
+        this.instrumented = this.recordStats || isolateErrors;
+    }
+
+    public boolean isIsolateErrors() {
+        return this.isolateErrors;
+    }
+
+    /**
+     * Set a {@link Ticker} to measure time spent in listeners.
+     *
+     * @param ticker ticker
+     */
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    /**
+     * Statistics of registered listeners.
+     *
+     * Time spent in listeners is recorded while {@link #setRecordStats(boolean)} is enabled. Exceptions thrown
+     * from listeners are counted while either stats or error isolation is enabled.
+     *
+     * @return stats of listeners in the same order as {@link #getListeners()}
+     */
+    public List<ListenerStats> getListenerStats() {
+        return Collections.unmodifiableList(Arrays.asList(this.listenerStats));
+    }
+
+    /**
+     * Registered listeners.
+     *
+     * Returned list is a view of the listeners. Changes to the list are applied to this composite in the same way as
+     * {@link #add(ProxyExecutionListener)} and {@link #remove(ProxyExecutionListener)}. Iterating the list while
+     * listeners are changed by other threads may miss or repeat elements. Use {@code new ArrayList<>(getListeners())}
+     * for a stable copy.
+     *
+     * @return registered listeners
+     */
     public List<ProxyExecutionListener> getListeners() {
-        return this.listeners;
+        return this.listenersView;
     }
 
-//    public void setListeners(List<ProxyExecutionListener> listeners) {
-//        this.listeners = listeners;
-//    }
+    /**
+     * Modifiable view of the listener array. Each modification replaces the array.
+     */
+    private class ListenersView extends AbstractList<ProxyExecutionListener> {
+
+        @Override
+        public ProxyExecutionListener get(int index) {
+            return listeners[index];
+        }
+
+        @Override
+        public int size() {
+            return listeners.length;
+        }
+
+        @Override
+        public void add(int index, ProxyExecutionListener listener) {
+            synchronized (lock) {
+                ProxyExecutionListener[] current = listeners;
+                if (index < 0 || index > current.length) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.length);
+                }
+                ProxyExecutionListener[] updated = new ProxyExecutionListener[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                updated[index] = listener;
+                System.arraycopy(current, index, updated, index + 1, current.length - index);
+                update(updated);
+            }
+        }
+
+        @Override
+        public ProxyExecutionListener set(int index, ProxyExecutionListener listener) {
+            synchronized (lock) {
+                ProxyExecutionListener[] updated = listeners.clone();
+                ProxyExecutionListener previous = updated[index];
+                updated[index] = listener;
+                update(updated);
+                return previous;
+            }
+        }
+
+        @Override
+        public ProxyExecutionListener remove(int index) {
+            synchronized (lock) {
+                ProxyExecutionListener[] current = listeners;
+                ProxyExecutionListener previous = current[index];
+                ProxyExecutionListener[] updated = new ProxyExecutionListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                update(updated);
+                return previous;
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (lock) {
+                update(EMPTY_LISTENERS);
+            }
+        }
+    }
 
 }
@@ -0,0 +1,61 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Resolve {@link ProxyEventType ProxyEventTypes} that a {@link ProxyExecutionListener} receives
+ * from the callback methods it overrides.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+final class ListenedEventTypeResolver {
+
+    private ListenedEventTypeResolver() {
+    }
+
+    static Set<ProxyEventType> resolve(ProxyExecutionListener listener) {
+        Class<?> listenerClass = listener.getClass();
+        Set<ProxyEventType> eventTypes = EnumSet.noneOf(ProxyEventType.class);
+
+        if (isOverridden(listenerClass, "onMethodExecution", MethodExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.BEFORE_METHOD);
+            eventTypes.add(ProxyEventType.AFTER_METHOD);
+        }
+        if (isOverridden(listenerClass, "onQueryExecution", QueryExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.BEFORE_QUERY);
+            eventTypes.add(ProxyEventType.AFTER_QUERY);
+        }
+        if (isOverridden(listenerClass, "beforeMethod", MethodExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.BEFORE_METHOD);
+        }
+        if (isOverridden(listenerClass, "afterMethod", MethodExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.AFTER_METHOD);
+        }
+        if (isOverridden(listenerClass, "beforeQuery", QueryExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.BEFORE_QUERY);
+        }
+        if (isOverridden(listenerClass, "afterQuery", QueryExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.AFTER_QUERY);
+        }
+        if (isOverridden(listenerClass, "eachQueryResult", QueryExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.EACH_QUERY_RESULT);
+        }
+        if (isOverridden(listenerClass, "aggregatedQueryResult", QueryExecutionInfo.class)) {
+            eventTypes.add(ProxyEventType.AGGREGATED_QUERY_RESULT);
+        }
+
+        return eventTypes;
+    }
+
+    private static boolean isOverridden(Class<?> listenerClass, String methodName, Class<?> parameterType) {
+        try {
+            Method method = listenerClass.getMethod(methodName, parameterType);
+            return !ProxyExecutionListener.class.equals(method.getDeclaringClass());
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
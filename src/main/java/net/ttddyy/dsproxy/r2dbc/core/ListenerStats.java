@@ -0,0 +1,111 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of a listener registered to {@link CompositeProxyExecutionListener}.
+ *
+ * Time spent in the listener and number of exceptions thrown from it are kept per {@link ProxyEventType}.
+ * Time is recorded only when {@link CompositeProxyExecutionListener#setRecordStats(boolean)} is enabled.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see CompositeProxyExecutionListener#getListenerStats()
+ */
+public final class ListenerStats {
+
+    private final ProxyExecutionListener listener;
+
+    private final LogLinearHistogram[] histograms = new LogLinearHistogram[ProxyEventType.values().length];
+
+    private final AtomicLongArray errorCounts = new AtomicLongArray(ProxyEventType.values().length);
+
+    ListenerStats(ProxyExecutionListener listener) {
+        this.listener = listener;
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LogLinearHistogram();
+        }
+    }
+
+    void record(ProxyEventType eventType, long nanos) {
+        if (eventType != null) {
+            this.histograms[eventType.ordinal()].record(nanos);
+        }
+    }
+
+    void incrementErrorCount(ProxyEventType eventType) {
+        if (eventType != null) {
+            this.errorCounts.incrementAndGet(eventType.ordinal());
+        }
+    }
+
+    public ProxyExecutionListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * Distribution of time spent in the listener in nanoseconds.
+     *
+     * @param eventType event type
+     * @return histogram of nanoseconds
+     */
+    public LogLinearHistogram getHistogram(ProxyEventType eventType) {
+        return this.histograms[eventType.ordinal()];
+    }
+
+    /**
+     * Cumulative time spent in the listener.
+     *
+     * @param eventType event type
+     * @return total nanoseconds
+     */
+    public long getTotalNanos(ProxyEventType eventType) {
+        return this.histograms[eventType.ordinal()].getSum();
+    }
+
+    /**
+     * Cumulative time spent in the listener for all event types.
+     *
+     * @return total nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (LogLinearHistogram histogram : this.histograms) {
+            total += histogram.getSum();
+        }
+        return total;
+    }
+
+    /**
+     * Number of recorded invocations.
+     *
+     * @param eventType event type
+     * @return number of invocations
+     */
+    public long getInvocationCount(ProxyEventType eventType) {
+        return this.histograms[eventType.ordinal()].getCount();
+    }
+
+    /**
+     * Number of exceptions thrown by the listener.
+     *
+     * @param eventType event type
+     * @return number of exceptions
+     */
+    public long getErrorCount(ProxyEventType eventType) {
+        return this.errorCounts.get(eventType.ordinal());
+    }
+
+    /**
+     * Number of exceptions thrown by the listener for all event types.
+     *
+     * @return number of exceptions
+     */
+    public long getErrorCount() {
+        long count = 0;
+        for (int i = 0; i < this.errorCounts.length(); i++) {
+            count += this.errorCounts.get(i);
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,240 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative {@code long} values.
+ *
+ * Each power of two range is divided into 8 linear buckets. Values are recorded with a relative error of
+ * at most 12.5%, using fixed memory regardless of the recorded values. Recording is thread safe and does not lock.
+ *
+ * Reading values while recording is in progress may return slightly inconsistent results.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public final class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // values below SUB_BUCKET_COUNT have a bucket each. above that, SUB_BUCKET_COUNT buckets per power of two.
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value. Negative value is recorded as {@code 0}.
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.count.increment();
+        this.sum.add(value);
+
+        long currentMax;
+        while (value > (currentMax = this.max.get())) {
+            if (this.max.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long upperBound(int index) {
+        return index + 1 < BUCKET_COUNT ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * @return sum of recorded values
+     */
+    public long getSum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * @return max recorded value. {@code 0} when nothing is recorded.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * @return mean of recorded values. {@code 0} when nothing is recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Value at the given percentile.
+     *
+     * Returns the upper bound of the bucket that contains the percentile, capped by the max recorded value.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return value at the percentile. {@code 0} when nothing is recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getSnapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Copy of current values.
+     *
+     * @return snapshot
+     */
+    public Snapshot getSnapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = this.counts.get(i);
+        }
+        return new Snapshot(bucketCounts, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * Immutable copy of a {@link LogLinearHistogram}.
+     *
+     * Snapshots from histograms, for example the ones recorded on other nodes, can be combined with
+     * {@link #merge(Snapshot)}. Use {@link #getBucketCounts()} and {@link #of(long[], long, long)} to transfer them.
+     */
+    public static final class Snapshot {
+
+        private final long[] bucketCounts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final long max;
+
+        private Snapshot(long[] bucketCounts, long sum, long max) {
+            long count = 0;
+            for (long bucketCount : bucketCounts) {
+                count += bucketCount;
+            }
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Create a snapshot from values returned by {@link #getBucketCounts()}, {@link #getSum()}, and
+         * {@link #getMax()}.
+         *
+         * @param bucketCounts count per bucket
+         * @param sum          sum of values
+         * @param max          max value
+         * @return snapshot
+         */
+        public static Snapshot of(long[] bucketCounts, long sum, long max) {
+            if (bucketCounts.length != BUCKET_COUNT) {
+                throw new IllegalArgumentException("bucketCounts must have " + BUCKET_COUNT + " elements");
+            }
+            return new Snapshot(bucketCounts.clone(), sum, max);
+        }
+
+        /**
+         * Combine with other snapshot.
+         *
+         * @param other snapshot to merge
+         * @return new snapshot containing values of both
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] = this.bucketCounts[i] + other.bucketCounts[i];
+            }
+            return new Snapshot(merged, this.sum + other.sum, Math.max(this.max, other.max));
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getSum() {
+            return this.sum;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        public double getMean() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * Value at the given percentile.
+         *
+         * Returns the upper bound of the bucket that contains the percentile, capped by the max value.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return value at the percentile. {@code 0} when empty.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            if (this.count == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += this.bucketCounts[i];
+                if (cumulative >= target) {
+                    return Math.min(upperBound(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        /**
+         * @return copy of counts per bucket
+         */
+        public long[] getBucketCounts() {
+            return this.bucketCounts.clone();
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read-only view of a method execution.
+ *
+ * Implemented by {@link MethodExecutionInfo}, which proxies keep updating during the execution, and by immutable
+ * snapshots created by {@link MethodExecutionInfo#snapshot()}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see MethodExecutionInfo
+ */
+public interface MethodExecution {
+
+    Object getTarget();
+
+    Method getMethod();
+
+    Object[] getMethodArgs();
+
+    Object getResult();
+
+    Throwable getThrown();
+
+    ConnectionInfo getConnectionInfo();
+
+    /**
+     * Execution duration.
+     *
+     * @return execution duration
+     * @see #getExecuteDurationNanos()
+     */
+    default Duration getExecuteDuration() {
+        return Duration.ofNanos(getExecuteDurationNanos());
+    }
+
+    /**
+     * @return execution duration in nanoseconds
+     */
+    long getExecuteDurationNanos();
+
+    String getThreadName();
+
+    long getThreadId();
+
+    ProxyEventType getProxyEventType();
+
+    <T> T getCustomValue(String key, Class<T> type);
+
+    /**
+     * @return unmodifiable map of custom values
+     */
+    Map<String, Object> getCustomValues();
+
+}
@@ -2,6 +2,7 @@ package net.ttddyy.dsproxy.r2dbc.core;
 
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,7 +11,7 @@ import java.util.Map;
  *
  * @author Tadaya Tsuyukubo
  */
-public class MethodExecutionInfo {
+public class MethodExecutionInfo implements MethodExecution {
 
     private Object target;
     private Method method;
@@ -19,11 +20,37 @@ public class MethodExecutionInfo {
     private Throwable thrown;
     private ConnectionInfo connectionInfo;
 
-    private Duration executeDuration = Duration.ZERO;
+    private long executeDurationNanos;
+    private Thread thread;
     private String threadName;
     private long threadId;
     private ProxyEventType proxyEventType;
-    private Map<String, Object> customValues = new HashMap<>();
+    private Map<String, Object> customValues;
+
+    public MethodExecutionInfo() {
+        this.customValues = new HashMap<>();
+    }
+
+    /**
+     * Create a detached copy of the given execution.
+     *
+     * The copy can be modified without affecting the source. Method arguments and result are not copied.
+     *
+     * @param source execution to copy from
+     */
+    public MethodExecutionInfo(MethodExecution source) {
+        this.target = source.getTarget();
+        this.method = source.getMethod();
+        this.methodArgs = source.getMethodArgs();
+        this.result = source.getResult();
+        this.thrown = source.getThrown();
+        this.connectionInfo = source.getConnectionInfo();
+        this.executeDurationNanos = source.getExecuteDurationNanos();
+        this.threadName = source.getThreadName();
+        this.threadId = source.getThreadId();
+        this.proxyEventType = source.getProxyEventType();
+        this.customValues = new HashMap<>(source.getCustomValues());
+    }
 
     /**
      * Store key/value pair.
@@ -41,6 +68,26 @@ public class MethodExecutionInfo {
         return type.cast(this.customValues.get(key));
     }
 
+    @Override
+    public Map<String, Object> getCustomValues() {
+        return Collections.unmodifiableMap(this.customValues);
+    }
+
+    /**
+     * Create an immutable snapshot of this execution info.
+     *
+     * Proxies keep updating the same instance from before to after callbacks. Use the snapshot when
+     * the info is kept or processed asynchronously. Thread name is resolved when the snapshot is created.
+     *
+     * Objects such as method arguments and result are shared with this instance, not copied.
+     * Use {@link #MethodExecutionInfo(MethodExecution)} to get a modifiable copy of a snapshot.
+     *
+     * @return immutable snapshot
+     */
+    public MethodExecution snapshot() {
+        return new MethodExecutionInfoSnapshot(this);
+    }
+
     public Object getTarget() {
         return target;
     }
@@ -89,16 +136,59 @@ public class MethodExecutionInfo {
         this.connectionInfo = connectionInfo;
     }
 
+    /**
+     * Execution duration.
+     *
+     * @return execution duration
+     * @see #getExecuteDurationNanos()
+     */
     public Duration getExecuteDuration() {
-        return executeDuration;
+        return Duration.ofNanos(this.executeDurationNanos);
     }
 
     public void setExecuteDuration(Duration executeDuration) {
-        this.executeDuration = executeDuration;
+        this.executeDurationNanos = executeDuration.toNanos();
+    }
+
+    /**
+     * Execution duration in nanoseconds.
+     *
+     * @return execution duration in nanoseconds
+     */
+    public long getExecuteDurationNanos() {
+        return this.executeDurationNanos;
+    }
+
+    public void setExecuteDurationNanos(long executeDurationNanos) {
+        this.executeDurationNanos = executeDurationNanos;
+    }
+
+    /**
+     * Set the thread that performed the execution.
+     *
+     * Thread id is captured at this time. Thread name is resolved when {@link #getThreadName()} is called.
+     *
+     * @param thread thread
+     */
+    public void setThread(Thread thread) {
+        this.thread = thread;
+        this.threadId = thread.getId();
+        this.threadName = null;
     }
 
+    /**
+     * Name of the thread that performed the execution.
+     *
+     * When thread is set by {@link #setThread(Thread)}, the name is resolved from the thread at the time of
+     * this method call.
+     *
+     * @return thread name
+     */
     public String getThreadName() {
-        return threadName;
+        if (this.threadName == null && this.thread != null) {
+            return this.thread.getName();
+        }
+        return this.threadName;
     }
 
     public void setThreadName(String threadName) {
@@ -0,0 +1,105 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable {@link MethodExecution} created by {@link MethodExecutionInfo#snapshot()}.
+ *
+ * Values are held in final fields, thus safe to pass to other threads. Custom values are copied at creation.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+final class MethodExecutionInfoSnapshot implements MethodExecution {
+
+    private final Object target;
+    private final Method method;
+    private final Object[] methodArgs;
+    private final Object result;
+    private final Throwable thrown;
+    private final ConnectionInfo connectionInfo;
+    private final long executeDurationNanos;
+    private final String threadName;
+    private final long threadId;
+    private final ProxyEventType proxyEventType;
+    private final Map<String, Object> customValues;
+
+    MethodExecutionInfoSnapshot(MethodExecutionInfo source) {
+        this.target = source.getTarget();
+        this.method = source.getMethod();
+        this.methodArgs = source.getMethodArgs();
+        this.result = source.getResult();
+        this.thrown = source.getThrown();
+        this.connectionInfo = source.getConnectionInfo();
+        this.executeDurationNanos = source.getExecuteDurationNanos();
+        this.threadName = source.getThreadName();
+        this.threadId = source.getThreadId();
+        this.proxyEventType = source.getProxyEventType();
+        Map<String, Object> customValues = source.getCustomValues();
+        this.customValues = customValues.isEmpty() ? Collections.emptyMap() :
+                Collections.unmodifiableMap(new HashMap<>(customValues));
+    }
+
+    @Override
+    public <T> T getCustomValue(String key, Class<T> type) {
+        return type.cast(this.customValues.get(key));
+    }
+
+    @Override
+    public Map<String, Object> getCustomValues() {
+        return this.customValues;
+    }
+
+    @Override
+    public Object getTarget() {
+        return this.target;
+    }
+
+    @Override
+    public Method getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public Object[] getMethodArgs() {
+        return this.methodArgs;
+    }
+
+    @Override
+    public Object getResult() {
+        return this.result;
+    }
+
+    @Override
+    public Throwable getThrown() {
+        return this.thrown;
+    }
+
+    @Override
+    public ConnectionInfo getConnectionInfo() {
+        return this.connectionInfo;
+    }
+
+    @Override
+    public long getExecuteDurationNanos() {
+        return this.executeDurationNanos;
+    }
+
+    @Override
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    @Override
+    public long getThreadId() {
+        return this.threadId;
+    }
+
+    @Override
+    public ProxyEventType getProxyEventType() {
+        return this.proxyEventType;
+    }
+
+}
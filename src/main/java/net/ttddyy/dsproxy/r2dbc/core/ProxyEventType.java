@@ -4,5 +4,5 @@ package net.ttddyy.dsproxy.r2dbc.core;
  * @author Tadaya Tsuyukubo
  */
 public enum ProxyEventType {
-    BEFORE_METHOD, AFTER_METHOD, BEFORE_QUERY, AFTER_QUERY, EACH_QUERY_RESULT
+    BEFORE_METHOD, AFTER_METHOD, BEFORE_QUERY, AFTER_QUERY, EACH_QUERY_RESULT, AGGREGATED_QUERY_RESULT
 }
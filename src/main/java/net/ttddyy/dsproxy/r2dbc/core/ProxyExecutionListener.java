@@ -3,6 +3,7 @@ package net.ttddyy.dsproxy.r2dbc.core;
 import io.r2dbc.spi.Batch;
 import io.r2dbc.spi.Statement;
 
+import java.util.Set;
 import java.util.function.BiFunction;
 
 /**
@@ -103,4 +104,40 @@ public interface ProxyExecutionListener {
     default void eachQueryResult(QueryExecutionInfo execInfo) {
     }
 
+    /**
+     * Called on processing query results, with the number of rows processed so far instead of each row.
+     *
+     * While processing query results with {@link io.r2dbc.spi.Result#map(BiFunction)}, this callback is
+     * called every N rows configured by {@code ProxyConfig#setQueryResultAggregationInterval(int)}, and when
+     * mapping of a {@link io.r2dbc.spi.Result} completes or fails.
+     * {@link QueryExecutionInfo#getResultRowCount()}, {@link QueryExecutionInfo#getFirstRowNanos()}, and
+     * {@link QueryExecutionInfo#getLastRowNanos()} contain the aggregated values.
+     *
+     * The last callback of a {@link io.r2dbc.spi.Result} also serves as a result completion event. Since
+     * {@link #afterQuery(QueryExecutionInfo)} is usually called before rows are streamed, use this callback for
+     * {@link QueryExecutionInfo#getFirstResultToFirstRowNanos()}, {@link QueryExecutionInfo#getRowStreamingNanos()},
+     * and {@link QueryExecutionInfo#getBackpressureStallNanos()}.
+     *
+     * Listeners that do not need each row should use this callback instead of
+     * {@link #eachQueryResult(QueryExecutionInfo)}, so that proxy does not call listeners per row.
+     *
+     * @param execInfo query execution context
+     */
+    default void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+    }
+
+    /**
+     * Event types that this listener receives.
+     *
+     * Proxy skips preparing callbacks for the event types that no listener receives.
+     * Default implementation resolves them from overridden callback methods. Overriding
+     * {@link #onMethodExecution(MethodExecutionInfo)} or {@link #onQueryExecution(QueryExecutionInfo)}
+     * counts as receiving both before and after events.
+     *
+     * @return event types this listener receives
+     */
+    default Set<ProxyEventType> getListenedEventTypes() {
+        return ListenedEventTypeResolver.resolve(this);
+    }
+
 }
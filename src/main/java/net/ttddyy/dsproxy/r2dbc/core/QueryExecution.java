@@ -0,0 +1,180 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import io.r2dbc.spi.Result;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of a query execution.
+ *
+ * Implemented by {@link QueryExecutionInfo}, which proxies keep updating during the execution, and by immutable
+ * snapshots created by {@link QueryExecutionInfo#snapshot()}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see QueryExecutionInfo
+ */
+public interface QueryExecution {
+
+    Method getMethod();
+
+    Object[] getMethodArgs();
+
+    ConnectionInfo getConnectionInfo();
+
+    /**
+     * @return an exception thrown while query was executed, otherwise {@code null}
+     */
+    Throwable getThrowable();
+
+    /**
+     * @return true when query has successfully executed
+     */
+    boolean isSuccess();
+
+    int getBatchSize();
+
+    /**
+     * @return list of queries. This will NOT return null.
+     */
+    List<QueryInfo> getQueries();
+
+    /**
+     * Returns fingerprints of queries.
+     *
+     * @return list of fingerprints in the same order as {@link #getQueries()}
+     * @see QueryInfo#getFingerprint()
+     */
+    default List<QueryFingerprint> getFingerprints() {
+        List<QueryInfo> queries = getQueries();
+        List<QueryFingerprint> fingerprints = new ArrayList<>(queries.size());
+        for (QueryInfo queryInfo : queries) {
+            fingerprints.add(queryInfo.getFingerprint());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * @return whether this execution is sampled by head sampling
+     * @see QueryExecutionInfo#isSampled()
+     */
+    boolean isSampled();
+
+    ExecutionType getType();
+
+    int getBindingsSize();
+
+    /**
+     * Execution duration.
+     *
+     * @return execution duration
+     * @see #getExecuteDurationNanos()
+     */
+    default Duration getExecuteDuration() {
+        return Duration.ofNanos(getExecuteDurationNanos());
+    }
+
+    /**
+     * @return execution duration in nanoseconds
+     */
+    long getExecuteDurationNanos();
+
+    String getThreadName();
+
+    long getThreadId();
+
+    ProxyEventType getProxyEventType();
+
+    /**
+     * @return Nth number of query result
+     * @see QueryExecutionInfo#getCurrentResultCount()
+     */
+    int getCurrentResultCount();
+
+    /**
+     * @return mapped query result for each query result callback, otherwise {@code null}
+     */
+    Object getCurrentMappedResult();
+
+    /**
+     * @return ticker value when the query execution started
+     */
+    long getExecuteStartNanos();
+
+    /**
+     * @return number of rows mapped so far in this query execution
+     */
+    long getResultRowCount();
+
+    /**
+     * @return elapsed time from the start of the query execution to the first mapped row in nanoseconds
+     */
+    long getFirstRowNanos();
+
+    /**
+     * @return elapsed time from the start of the query execution to the last mapped row so far in nanoseconds
+     */
+    long getLastRowNanos();
+
+    /**
+     * @return elapsed time from the start of the query execution to the first {@link Result} in nanoseconds
+     */
+    long getFirstResultNanos();
+
+    /**
+     * Elapsed time from the first {@link Result} to the first mapped row.
+     *
+     * Mostly time for the server to produce the first row. {@code 0} when no row is mapped.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    default long getFirstResultToFirstRowNanos() {
+        long firstRowNanos = getFirstRowNanos();
+        return firstRowNanos == 0 ? 0 : Math.max(0, firstRowNanos - getFirstResultNanos());
+    }
+
+    /**
+     * Elapsed time from the first mapped row to the last mapped row so far.
+     *
+     * Includes {@link #getBackpressureStallNanos()}, the time consumer did not request rows.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    default long getRowStreamingNanos() {
+        return getLastRowNanos() - getFirstRowNanos();
+    }
+
+    /**
+     * @return time that the consumer of {@link Result#map} had no outstanding demand in nanoseconds
+     */
+    long getBackpressureStallNanos();
+
+    /**
+     * @return unmodifiable list of counts emitted by {@link Result#getRowsUpdated()}. This will NOT return null.
+     */
+    List<Integer> getRowsUpdatedCounts();
+
+    /**
+     * Total number of updated rows across {@link Result}s of this query execution.
+     *
+     * @return sum of {@link #getRowsUpdatedCounts()}
+     */
+    default long getRowsUpdated() {
+        long sum = 0;
+        for (Integer count : getRowsUpdatedCounts()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    <T> T getCustomValue(String key, Class<T> type);
+
+    /**
+     * @return unmodifiable map of custom values
+     */
+    Map<String, Object> getCustomValues();
+
+}
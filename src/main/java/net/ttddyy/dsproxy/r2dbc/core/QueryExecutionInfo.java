@@ -5,6 +5,7 @@ import io.r2dbc.spi.Result;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,7 +15,7 @@ import java.util.Map;
  *
  * @author Tadaya Tsuyukubo
  */
-public class QueryExecutionInfo {
+public class QueryExecutionInfo implements QueryExecution {
 
     private ConnectionInfo connectionInfo;
     private Method method;
@@ -25,14 +26,64 @@ public class QueryExecutionInfo {
 
     private ExecutionType type;
     private int bindingsSize;  // num of Statement#add
-    private Duration executeDuration = Duration.ZERO;
-    private String threadName = "";
+    private long executeDurationNanos;
+    private Thread thread;
+    private String threadName;
     private long threadId;
     private ProxyEventType proxyEventType;
     private int currentResultCount;
     private Object currentMappedResult;
-    private List<QueryInfo> queries = new ArrayList<>();
-    private Map<String, Object> customValues = new HashMap<>();
+    private long executeStartNanos;
+    private long resultRowCount;
+    private long firstRowNanos;
+    private long lastRowNanos;
+    private long firstResultNanos;
+    private long backpressureStallNanos;
+    private volatile RowsUpdated rowsUpdated = RowsUpdated.EMPTY;
+    private List<QueryInfo> queries;
+    private boolean sampled;
+    private Map<String, Object> customValues;
+
+    public QueryExecutionInfo() {
+        this.threadName = "";
+        this.sampled = true;
+        this.queries = new ArrayList<>();
+        this.customValues = new HashMap<>();
+    }
+
+    /**
+     * Create a detached copy of the given execution.
+     *
+     * The copy can be modified without affecting the source. Queries and method arguments are not deep copied.
+     *
+     * @param source execution to copy from
+     */
+    public QueryExecutionInfo(QueryExecution source) {
+        this.connectionInfo = source.getConnectionInfo();
+        this.method = source.getMethod();
+        this.methodArgs = source.getMethodArgs();
+        this.throwable = source.getThrowable();
+        this.isSuccess = source.isSuccess();
+        this.batchSize = source.getBatchSize();
+        this.type = source.getType();
+        this.bindingsSize = source.getBindingsSize();
+        this.executeDurationNanos = source.getExecuteDurationNanos();
+        this.threadName = source.getThreadName();
+        this.threadId = source.getThreadId();
+        this.proxyEventType = source.getProxyEventType();
+        this.currentResultCount = source.getCurrentResultCount();
+        this.currentMappedResult = source.getCurrentMappedResult();
+        this.executeStartNanos = source.getExecuteStartNanos();
+        this.resultRowCount = source.getResultRowCount();
+        this.firstRowNanos = source.getFirstRowNanos();
+        this.lastRowNanos = source.getLastRowNanos();
+        this.firstResultNanos = source.getFirstResultNanos();
+        this.backpressureStallNanos = source.getBackpressureStallNanos();
+        this.rowsUpdated = RowsUpdated.of(source.getRowsUpdatedCounts());
+        this.queries = new ArrayList<>(source.getQueries());
+        this.sampled = source.isSampled();
+        this.customValues = new HashMap<>(source.getCustomValues());
+    }
 
     /**
      * Store key/value pair.
@@ -50,6 +101,26 @@ public class QueryExecutionInfo {
         return type.cast(this.customValues.get(key));
     }
 
+    @Override
+    public Map<String, Object> getCustomValues() {
+        return Collections.unmodifiableMap(this.customValues);
+    }
+
+    /**
+     * Create an immutable snapshot of this execution info.
+     *
+     * Proxies keep updating the same instance from before to after callbacks. Use the snapshot when
+     * the info is kept or processed asynchronously. Thread name is resolved when the snapshot is created.
+     *
+     * Objects such as queries and method arguments are shared with this instance, not copied.
+     * Use {@link #QueryExecutionInfo(QueryExecution)} to get a modifiable copy of a snapshot.
+     *
+     * @return immutable snapshot
+     */
+    public QueryExecution snapshot() {
+        return new QueryExecutionInfoSnapshot(this);
+    }
+
     public Method getMethod() {
         return method;
     }
@@ -123,6 +194,39 @@ public class QueryExecutionInfo {
         this.queries = queries;
     }
 
+    /**
+     * Returns fingerprints of queries.
+     *
+     * @return list of fingerprints in the same order as {@link #getQueries()}
+     * @see QueryInfo#getFingerprint()
+     */
+    public List<QueryFingerprint> getFingerprints() {
+        List<QueryInfo> queries = getQueries();
+        List<QueryFingerprint> fingerprints = new ArrayList<>(queries.size());
+        for (QueryInfo queryInfo : queries) {
+            fingerprints.add(queryInfo.getFingerprint());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Whether this execution is sampled by head sampling.
+     *
+     * Listeners such as {@code SamplingProxyExecutionListener} set {@code false}
+     * in before query callback({@link ProxyExecutionListener#beforeQuery(QueryExecutionInfo)}) for executions that are
+     * not sampled. Proxies then skip capturing bound values, and do not call each query result and aggregated query
+     * result callbacks of this execution for any listener.
+     *
+     * @return {@code true} unless a listener marked the execution as not sampled
+     */
+    public boolean isSampled() {
+        return this.sampled;
+    }
+
+    public void setSampled(boolean sampled) {
+        this.sampled = sampled;
+    }
+
     public ExecutionType getType() {
         return type;
     }
@@ -140,20 +244,58 @@ public class QueryExecutionInfo {
     }
 
     /**
-     * Time that took queries to execute.
+     * Execution duration.
      *
-     * @return query execution duration
+     * @return execution duration
+     * @see #getExecuteDurationNanos()
      */
     public Duration getExecuteDuration() {
-        return executeDuration;
+        return Duration.ofNanos(this.executeDurationNanos);
     }
 
     public void setExecuteDuration(Duration executeDuration) {
-        this.executeDuration = executeDuration;
+        this.executeDurationNanos = executeDuration.toNanos();
+    }
+
+    /**
+     * Execution duration in nanoseconds.
+     *
+     * @return execution duration in nanoseconds
+     */
+    public long getExecuteDurationNanos() {
+        return this.executeDurationNanos;
+    }
+
+    public void setExecuteDurationNanos(long executeDurationNanos) {
+        this.executeDurationNanos = executeDurationNanos;
     }
 
+    /**
+     * Set the thread that performed the execution.
+     *
+     * Thread id is captured at this time. Thread name is resolved when {@link #getThreadName()} is called.
+     *
+     * @param thread thread
+     */
+    public void setThread(Thread thread) {
+        this.thread = thread;
+        this.threadId = thread.getId();
+        this.threadName = null;
+    }
+
+    /**
+     * Name of the thread that performed the execution.
+     *
+     * When thread is set by {@link #setThread(Thread)}, the name is resolved from the thread at the time of
+     * this method call.
+     *
+     * @return thread name
+     */
     public String getThreadName() {
-        return threadName;
+        if (this.threadName == null && this.thread != null) {
+            return this.thread.getName();
+        }
+        return this.threadName;
     }
 
     public void setThreadName(String threadName) {
@@ -212,4 +354,210 @@ public class QueryExecutionInfo {
     public void setCurrentMappedResult(Object currentResult) {
         this.currentMappedResult = currentResult;
     }
+
+    /**
+     * Ticker value when the query execution started.
+     *
+     * Only meaningful to compare with other values read from the same {@link Ticker}.
+     *
+     * @return start of the execution in nanoseconds
+     */
+    public long getExecuteStartNanos() {
+        return this.executeStartNanos;
+    }
+
+    public void setExecuteStartNanos(long executeStartNanos) {
+        this.executeStartNanos = executeStartNanos;
+    }
+
+    /**
+     * Number of rows mapped by {@link io.r2dbc.spi.Result#map} so far in this query execution.
+     *
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened.
+     *
+     * @return number of rows
+     */
+    public long getResultRowCount() {
+        return this.resultRowCount;
+    }
+
+    public void setResultRowCount(long resultRowCount) {
+        this.resultRowCount = resultRowCount;
+    }
+
+    /**
+     * Elapsed time from the start of the query execution to the first mapped row.
+     *
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened. {@code 0} when no row is mapped.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getFirstRowNanos() {
+        return this.firstRowNanos;
+    }
+
+    public void setFirstRowNanos(long firstRowNanos) {
+        this.firstRowNanos = firstRowNanos;
+    }
+
+    /**
+     * Elapsed time from the start of the query execution to the last mapped row so far.
+     *
+     * Rows are not timestamped individually. The time is taken when the aggregated query result callback is called,
+     * which is on completion of the {@link Result} for the last callback.
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened. {@code 0} when no row is mapped.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getLastRowNanos() {
+        return this.lastRowNanos;
+    }
+
+    public void setLastRowNanos(long lastRowNanos) {
+        this.lastRowNanos = lastRowNanos;
+    }
+
+    /**
+     * Elapsed time from the start of the query execution to the first {@link Result}.
+     *
+     * Available from after query callback({@link ProxyExecutionListener#afterQuery(QueryExecutionInfo)}).
+     * {@code 0} when no {@link Result} is returned.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getFirstResultNanos() {
+        return this.firstResultNanos;
+    }
+
+    public void setFirstResultNanos(long firstResultNanos) {
+        this.firstResultNanos = firstResultNanos;
+    }
+
+    /**
+     * Elapsed time from the first {@link Result} to the first mapped row.
+     *
+     * Mostly time for the server to produce the first row.
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened. {@code 0} when no row is mapped.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getFirstResultToFirstRowNanos() {
+        long firstRowNanos = getFirstRowNanos();
+        return firstRowNanos == 0 ? 0 : Math.max(0, firstRowNanos - getFirstResultNanos());
+    }
+
+    /**
+     * Elapsed time from the first mapped row to the last mapped row so far.
+     *
+     * Includes {@link #getBackpressureStallNanos()}, the time consumer did not request rows.
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getRowStreamingNanos() {
+        return getLastRowNanos() - getFirstRowNanos();
+    }
+
+    /**
+     * Total time that the consumer of {@link io.r2dbc.spi.Result#map} had no outstanding demand while rows were
+     * streamed.
+     *
+     * A stall starts when the last requested row is delivered, and ends when the consumer requests more rows.
+     * Large value indicates slow consumer rather than slow server. Always {@code 0} for consumers requesting
+     * unbounded demand.
+     * Available when aggregated query result callback({@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)})
+     * is listened.
+     *
+     * @return stall time in nanoseconds
+     */
+    public long getBackpressureStallNanos() {
+        return this.backpressureStallNanos;
+    }
+
+    public void setBackpressureStallNanos(long backpressureStallNanos) {
+        this.backpressureStallNanos = backpressureStallNanos;
+    }
+
+    /**
+     * Number of updated rows emitted by {@link Result#getRowsUpdated()} per {@link Result}, in the order emitted.
+     *
+     * Counts are recorded when before or after query callback is listened. A count is available to after query
+     * callback({@link ProxyExecutionListener#afterQuery(QueryExecutionInfo)}) when {@link Result#getRowsUpdated()} is
+     * consumed before the query execution publisher completes, such as with {@code flatMap}.
+     *
+     * @return unmodifiable list of counts. This will NOT return null.
+     */
+    public List<Integer> getRowsUpdatedCounts() {
+        return this.rowsUpdated.counts;
+    }
+
+    /**
+     * Set counts of updated rows. The given list is copied.
+     *
+     * @param rowsUpdatedCounts counts of updated rows
+     */
+    public synchronized void setRowsUpdatedCounts(List<Integer> rowsUpdatedCounts) {
+        this.rowsUpdated = RowsUpdated.of(rowsUpdatedCounts);
+    }
+
+    /**
+     * Append a count of updated rows.
+     *
+     * May be called from threads consuming {@link Result}s concurrently.
+     *
+     * @param rowsUpdated number of updated rows
+     */
+    public synchronized void addRowsUpdatedCount(int rowsUpdated) {
+        this.rowsUpdated = this.rowsUpdated.add(rowsUpdated);
+    }
+
+    /**
+     * Total number of updated rows across {@link Result}s of this query execution.
+     *
+     * @return sum of {@link #getRowsUpdatedCounts()}
+     */
+    public long getRowsUpdated() {
+        return this.rowsUpdated.total;
+    }
+
+    /**
+     * Immutable counts of updated rows with their total, replaced as a whole on update.
+     */
+    private static final class RowsUpdated {
+
+        private static final RowsUpdated EMPTY = new RowsUpdated(Collections.emptyList(), 0);
+
+        private final List<Integer> counts;
+
+        private final long total;
+
+        private RowsUpdated(List<Integer> counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        private static RowsUpdated of(List<Integer> counts) {
+            if (counts.isEmpty()) {
+                return EMPTY;
+            }
+            long total = 0;
+            for (Integer count : counts) {
+                total += count;
+            }
+            return new RowsUpdated(Collections.unmodifiableList(new ArrayList<>(counts)), total);
+        }
+
+        private RowsUpdated add(int count) {
+            List<Integer> counts = new ArrayList<>(this.counts.size() + 1);
+            counts.addAll(this.counts);
+            counts.add(count);
+            return new RowsUpdated(Collections.unmodifiableList(counts), this.total + count);
+        }
+
+    }
 }
@@ -0,0 +1,211 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable {@link QueryExecution} created by {@link QueryExecutionInfo#snapshot()}.
+ *
+ * Values are held in final fields, thus safe to pass to other threads. Custom values are copied at creation.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+final class QueryExecutionInfoSnapshot implements QueryExecution {
+
+    private final ConnectionInfo connectionInfo;
+    private final Method method;
+    private final Object[] methodArgs;
+    private final Throwable throwable;
+    private final boolean isSuccess;
+    private final int batchSize;
+    private final ExecutionType type;
+    private final int bindingsSize;
+    private final long executeDurationNanos;
+    private final String threadName;
+    private final long threadId;
+    private final ProxyEventType proxyEventType;
+    private final int currentResultCount;
+    private final Object currentMappedResult;
+    private final long executeStartNanos;
+    private final long resultRowCount;
+    private final long firstRowNanos;
+    private final long lastRowNanos;
+    private final long firstResultNanos;
+    private final long backpressureStallNanos;
+    private final List<Integer> rowsUpdatedCounts;
+    private final long rowsUpdated;
+    private final List<QueryInfo> queries;
+    private final boolean sampled;
+    private final Map<String, Object> customValues;
+
+    QueryExecutionInfoSnapshot(QueryExecutionInfo source) {
+        this.connectionInfo = source.getConnectionInfo();
+        this.method = source.getMethod();
+        this.methodArgs = source.getMethodArgs();
+        this.throwable = source.getThrowable();
+        this.isSuccess = source.isSuccess();
+        this.batchSize = source.getBatchSize();
+        this.type = source.getType();
+        this.bindingsSize = source.getBindingsSize();
+        this.executeDurationNanos = source.getExecuteDurationNanos();
+        this.threadName = source.getThreadName();
+        this.threadId = source.getThreadId();
+        this.proxyEventType = source.getProxyEventType();
+        this.currentResultCount = source.getCurrentResultCount();
+        this.currentMappedResult = source.getCurrentMappedResult();
+        this.executeStartNanos = source.getExecuteStartNanos();
+        this.resultRowCount = source.getResultRowCount();
+        this.firstRowNanos = source.getFirstRowNanos();
+        this.lastRowNanos = source.getLastRowNanos();
+        this.firstResultNanos = source.getFirstResultNanos();
+        this.backpressureStallNanos = source.getBackpressureStallNanos();
+        // immutable. replaced as a whole when the source is updated.
+        List<Integer> rowsUpdatedCounts = source.getRowsUpdatedCounts();
+        long rowsUpdated = 0;
+        for (Integer count : rowsUpdatedCounts) {
+            rowsUpdated += count;
+        }
+        this.rowsUpdatedCounts = rowsUpdatedCounts;
+        this.rowsUpdated = rowsUpdated;
+        // share the list. queries are populated before execution and not changed afterwards.
+        this.queries = Collections.unmodifiableList(source.getQueries());
+        this.sampled = source.isSampled();
+        Map<String, Object> customValues = source.getCustomValues();
+        this.customValues = customValues.isEmpty() ? Collections.emptyMap() :
+                Collections.unmodifiableMap(new HashMap<>(customValues));
+    }
+
+    @Override
+    public <T> T getCustomValue(String key, Class<T> type) {
+        return type.cast(this.customValues.get(key));
+    }
+
+    @Override
+    public Map<String, Object> getCustomValues() {
+        return this.customValues;
+    }
+
+    @Override
+    public Method getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public Object[] getMethodArgs() {
+        return this.methodArgs;
+    }
+
+    @Override
+    public ConnectionInfo getConnectionInfo() {
+        return this.connectionInfo;
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return this.throwable;
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return this.isSuccess;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    @Override
+    public List<QueryInfo> getQueries() {
+        return this.queries;
+    }
+
+    @Override
+    public boolean isSampled() {
+        return this.sampled;
+    }
+
+    @Override
+    public ExecutionType getType() {
+        return this.type;
+    }
+
+    @Override
+    public int getBindingsSize() {
+        return this.bindingsSize;
+    }
+
+    @Override
+    public long getExecuteDurationNanos() {
+        return this.executeDurationNanos;
+    }
+
+    @Override
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    @Override
+    public long getThreadId() {
+        return this.threadId;
+    }
+
+    @Override
+    public ProxyEventType getProxyEventType() {
+        return this.proxyEventType;
+    }
+
+    @Override
+    public int getCurrentResultCount() {
+        return this.currentResultCount;
+    }
+
+    @Override
+    public Object getCurrentMappedResult() {
+        return this.currentMappedResult;
+    }
+
+    @Override
+    public long getExecuteStartNanos() {
+        return this.executeStartNanos;
+    }
+
+    @Override
+    public long getResultRowCount() {
+        return this.resultRowCount;
+    }
+
+    @Override
+    public long getFirstRowNanos() {
+        return this.firstRowNanos;
+    }
+
+    @Override
+    public long getLastRowNanos() {
+        return this.lastRowNanos;
+    }
+
+    @Override
+    public long getFirstResultNanos() {
+        return this.firstResultNanos;
+    }
+
+    @Override
+    public long getBackpressureStallNanos() {
+        return this.backpressureStallNanos;
+    }
+
+    @Override
+    public List<Integer> getRowsUpdatedCounts() {
+        return this.rowsUpdatedCounts;
+    }
+
+    @Override
+    public long getRowsUpdated() {
+        return this.rowsUpdated;
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+/**
+ * Shape of a query created by {@link QueryFingerprinter}.
+ *
+ * Queries that differ only in literals, bind markers, whitespaces, comments, or number of {@code IN} list elements
+ * have the same fingerprint.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public final class QueryFingerprint {
+
+    private final long id;
+
+    private final String normalizedQuery;
+
+    private final StatementType statementType;
+
+    QueryFingerprint(long id, String normalizedQuery, StatementType statementType) {
+        this.id = id;
+        this.normalizedQuery = normalizedQuery;
+        this.statementType = statementType;
+    }
+
+    /**
+     * 64bit hash of the normalized query.
+     *
+     * @return fingerprint id
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    public String getNormalizedQuery() {
+        return this.normalizedQuery;
+    }
+
+    public StatementType getStatementType() {
+        return this.statementType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryFingerprint)) {
+            return false;
+        }
+        QueryFingerprint that = (QueryFingerprint) o;
+        return this.id == that.id && this.normalizedQuery.equals(that.normalizedQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.id);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(this.id) + ":" + this.normalizedQuery;
+    }
+
+}
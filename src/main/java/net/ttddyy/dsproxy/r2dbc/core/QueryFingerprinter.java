@@ -0,0 +1,478 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Create {@link QueryFingerprint} that identifies shape of a query.
+ *
+ * Normalization is performed in a single pass over the query:
+ * <ul>
+ * <li>Comments are removed and whitespaces are collapsed.</li>
+ * <li>Keywords and unquoted identifiers are lower cased. Quoted identifiers are kept as is.</li>
+ * <li>String, numeric, and dollar-quoted literals, as well as bind markers({@code $1}, {@code ?}, {@code :name},
+ * {@code @name}), are replaced with {@code ?}. Unary minus of a numeric literal is included in the literal.</li>
+ * <li>Backslash escapes are recognized only in escape string literals({@code E'...'}), following standard
+ * conforming strings. In other string literals, a quote is escaped only by doubling it.</li>
+ * <li>{@code IN} lists consisting only of {@code ?} are collapsed to {@code in(?)}.</li>
+ * </ul>
+ *
+ * For example, {@code SELECT * FROM emp WHERE id IN ($1, $2, $3) AND name = 'foo'} becomes
+ * {@code select * from emp where id in(?) and name = ?}.
+ *
+ * The same pass detects {@link StatementType} from the leading keyword. For {@code WITH} queries, the first
+ * {@code SELECT}, {@code INSERT}, {@code UPDATE}, or {@code DELETE} outside of parenthesis is used.
+ *
+ * Fingerprints are cached per query string. The cache keeps recently used entries up to the max size. When it
+ * becomes full, entries not used since the previous time it became full are evicted. Lookup does not lock.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public final class QueryFingerprinter {
+
+    /**
+     * Default max number of cached query strings.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final QueryFingerprinter DEFAULT = new QueryFingerprinter(DEFAULT_CACHE_SIZE);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int cacheSize;
+
+    // recently used entries. moved to "old" when it becomes full.
+    private volatile Map<String, QueryFingerprint> recent = new ConcurrentHashMap<>();
+
+    private volatile Map<String, QueryFingerprint> old = Collections.emptyMap();
+
+    /**
+     * @param cacheSize max number of cached query strings
+     */
+    public QueryFingerprinter(int cacheSize) {
+        if (cacheSize <= 1) {
+            throw new IllegalArgumentException("cacheSize must be greater than 1");
+        }
+        // each generation holds half
+        this.cacheSize = cacheSize / 2;
+    }
+
+    /**
+     * @return shared instance with {@link #DEFAULT_CACHE_SIZE}
+     */
+    public static QueryFingerprinter getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Fingerprint of the given query. Cached value is returned when available.
+     *
+     * @param query query
+     * @return fingerprint
+     */
+    public QueryFingerprint fingerprint(String query) {
+        QueryFingerprint fingerprint = this.recent.get(query);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        fingerprint = this.old.get(query);
+        if (fingerprint == null) {
+            fingerprint = create(query);
+        }
+
+        Map<String, QueryFingerprint> recent = this.recent;
+        if (recent.size() >= this.cacheSize) {
+            synchronized (this) {
+                if (this.recent == recent) {
+                    this.old = recent;
+                    this.recent = recent = new ConcurrentHashMap<>();
+                } else {
+                    recent = this.recent;
+                }
+            }
+        }
+        recent.put(query, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Create fingerprint without using cache.
+     *
+     * @param query query
+     * @return fingerprint
+     */
+    public static QueryFingerprint create(String query) {
+        Normalizer normalizer = new Normalizer(query);
+        String normalized = normalizer.normalize();
+        long id = FNV_OFFSET_BASIS;
+        for (int i = 0; i < normalized.length(); i++) {
+            id = (id ^ normalized.charAt(i)) * FNV_PRIME;
+        }
+        return new QueryFingerprint(id, normalized, normalizer.statementType);
+    }
+
+    /**
+     * Normalize the given query.
+     *
+     * @param query query
+     * @return normalized query
+     */
+    public static String normalize(String query) {
+        return new Normalizer(query).normalize();
+    }
+
+    /**
+     * @return number of cached query strings
+     */
+    public int getCachedQueryCount() {
+        Map<String, QueryFingerprint> recent = this.recent;
+        Map<String, QueryFingerprint> old = this.old;
+        int size = recent.size();
+        for (String query : old.keySet()) {
+            if (!recent.containsKey(query)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private static final class Normalizer {
+
+        // keywords followed by an operand. "-" after them is unary minus.
+        private static final Set<String> KEYWORDS_BEFORE_OPERAND = new HashSet<>(Arrays.asList(
+                "select", "where", "and", "or", "not", "when", "then", "else", "between", "like", "values", "set",
+                "by", "is", "in", "return", "limit", "offset", "having", "on"));
+
+        private final String query;
+
+        private final int length;
+
+        private final StringBuilder out;
+
+        private int pos;
+
+        // kind of the last emitted token
+        private TokenKind last = TokenKind.NONE;
+
+        private String lastToken;
+
+        // position in out where current "in(" starts, and whether it has only seen "?" and ","
+        private int inListStart = -1;
+
+        private boolean inListCollapsible;
+
+        private boolean lastWasIn;
+
+        private int depth;
+
+        private boolean typeResolved;
+
+        private boolean withClause;
+
+        private StatementType statementType = StatementType.OTHER;
+
+        Normalizer(String query) {
+            this.query = query;
+            this.length = query.length();
+            this.out = new StringBuilder(query.length());
+        }
+
+        String normalize() {
+            while (this.pos < this.length) {
+                char c = this.query.charAt(this.pos);
+                if (Character.isWhitespace(c)) {
+                    this.pos++;
+                } else if (c == '-' && peek(1) == '-') {
+                    skipLineComment();
+                } else if (c == '/' && peek(1) == '*') {
+                    skipBlockComment();
+                } else if (c == '\'') {
+                    skipQuoted('\'', false);
+                    emitPlaceholder();
+                } else if ((c == 'e' || c == 'E') && peek(1) == '\'') {
+                    // escape string literal
+                    this.pos++;
+                    skipQuoted('\'', true);
+                    emitPlaceholder();
+                } else if (c == '-' && isNegativeNumberStart()) {
+                    this.pos++;
+                    skipNumber();
+                    emitPlaceholder();
+                } else if (c == '"' || c == '`') {
+                    int start = this.pos;
+                    skipQuoted(c, false);
+                    emit(this.query.substring(start, this.pos), TokenKind.WORD);
+                } else if (c == '$' && isDollarQuoteStart()) {
+                    skipDollarQuoted();
+                    emitPlaceholder();
+                } else if ((c == '$' || c == ':' || c == '@') && isBindMarker(c)) {
+                    this.pos++;
+                    while (this.pos < this.length && isWordPart(this.query.charAt(this.pos))) {
+                        this.pos++;
+                    }
+                    emitPlaceholder();
+                } else if (c == '?') {
+                    this.pos++;
+                    emitPlaceholder();
+                } else if (isDigit(c) || (c == '.' && isDigit(peek(1)))) {
+                    skipNumber();
+                    emitPlaceholder();
+                } else if (isWordStart(c)) {
+                    int start = this.pos;
+                    while (this.pos < this.length && isWordPart(this.query.charAt(this.pos))) {
+                        this.pos++;
+                    }
+                    String word = this.query.substring(start, this.pos).toLowerCase(Locale.ROOT);
+                    detectStatementType(word);
+                    emit(word, TokenKind.WORD);
+                } else {
+                    emitPunctuation(c);
+                }
+            }
+            return this.out.toString();
+        }
+
+        private void detectStatementType(String word) {
+            if (this.typeResolved || this.depth > 0) {
+                return;
+            }
+            StatementType type = toStatementType(word);
+            if (this.withClause) {
+                // skip names and keywords of common table expressions
+                if (type != StatementType.DDL && type != StatementType.OTHER) {
+                    this.statementType = type;
+                    this.typeResolved = true;
+                }
+                return;
+            }
+            if (word.equals("with")) {
+                this.withClause = true;
+                return;
+            }
+            this.statementType = type;
+            this.typeResolved = true;
+        }
+
+        private static StatementType toStatementType(String word) {
+            switch (word) {
+                case "select":
+                    return StatementType.SELECT;
+                case "insert":
+                    return StatementType.INSERT;
+                case "update":
+                    return StatementType.UPDATE;
+                case "delete":
+                    return StatementType.DELETE;
+                case "create":
+                case "alter":
+                case "drop":
+                case "truncate":
+                case "rename":
+                case "comment":
+                    return StatementType.DDL;
+                default:
+                    return StatementType.OTHER;
+            }
+        }
+
+        private char peek(int offset) {
+            int index = this.pos + offset;
+            return index < this.length ? this.query.charAt(index) : '\0';
+        }
+
+        private void skipLineComment() {
+            while (this.pos < this.length && this.query.charAt(this.pos) != '\n') {
+                this.pos++;
+            }
+        }
+
+        private void skipBlockComment() {
+            this.pos += 2;
+            while (this.pos < this.length && !(this.query.charAt(this.pos) == '*' && peek(1) == '/')) {
+                this.pos++;
+            }
+            this.pos = Math.min(this.pos + 2, this.length);
+        }
+
+        private void skipQuoted(char quote, boolean backslashEscape) {
+            this.pos++;
+            while (this.pos < this.length) {
+                char c = this.query.charAt(this.pos++);
+                if (c == quote) {
+                    if (peek(0) == quote) {
+                        this.pos++;  // escaped quote
+                    } else {
+                        return;
+                    }
+                } else if (c == '\\' && backslashEscape) {
+                    this.pos++;
+                }
+            }
+        }
+
+        private boolean isNegativeNumberStart() {
+            char next = peek(1);
+            if (!isDigit(next) && !(next == '.' && isDigit(peek(2)))) {
+                return false;
+            }
+            // binary minus follows an operand
+            switch (this.last) {
+                case NONE:
+                case OPERATOR:
+                case OPEN:
+                case COMMA:
+                    return true;
+                case WORD:
+                    return KEYWORDS_BEFORE_OPERAND.contains(this.lastToken);
+                default:
+                    return false;
+            }
+        }
+
+        private boolean isDollarQuoteStart() {
+            // $$ or $tag$. tag does not start with digit.
+            if (isDigit(peek(1))) {
+                return false;
+            }
+            int index = this.pos + 1;
+            while (index < this.length && this.query.charAt(index) != '$' && isWordPart(this.query.charAt(index))) {
+                index++;
+            }
+            return index < this.length && this.query.charAt(index) == '$';
+        }
+
+        private void skipDollarQuoted() {
+            int tagEnd = this.query.indexOf('$', this.pos + 1);
+            String tag = this.query.substring(this.pos, tagEnd + 1);
+            int end = this.query.indexOf(tag, tagEnd + 1);
+            this.pos = end < 0 ? this.length : end + tag.length();
+        }
+
+        private boolean isBindMarker(char c) {
+            char next = peek(1);
+            if (c == '$') {
+                return isDigit(next);
+            }
+            if (c == ':' && next == ':') {
+                // cast operator
+                return false;
+            }
+            return isWordStart(next) && this.last != TokenKind.WORD_NO_SPACE;
+        }
+
+        private void skipNumber() {
+            if (peek(0) == '0' && (peek(1) == 'x' || peek(1) == 'X')) {
+                this.pos += 2;
+                while (this.pos < this.length && Character.digit(this.query.charAt(this.pos), 16) >= 0) {
+                    this.pos++;
+                }
+                return;
+            }
+            while (this.pos < this.length) {
+                char c = this.query.charAt(this.pos);
+                if (isDigit(c) || c == '.') {
+                    this.pos++;
+                } else if ((c == 'e' || c == 'E') && (isDigit(peek(1)) || ((peek(1) == '-' || peek(1) == '+') && isDigit(peek(2))))) {
+                    this.pos += 2;
+                } else {
+                    break;
+                }
+            }
+        }
+
+        private void emitPlaceholder() {
+            emit("?", TokenKind.PLACEHOLDER);
+        }
+
+        private void emitPunctuation(char c) {
+            this.pos++;
+            String token;
+            char next = peek(0);
+            if ((c == '<' && (next == '=' || next == '>')) || ((c == '>' || c == '!') && next == '=')
+                    || (c == '|' && next == '|') || (c == ':' && next == ':')) {
+                this.pos++;
+                token = new String(new char[]{c, next});
+            } else {
+                token = String.valueOf(c);
+            }
+
+            if (c == '(') {
+                this.depth++;
+                emit(token, TokenKind.OPEN);
+            } else if (c == ')') {
+                this.depth--;
+                emit(token, TokenKind.CLOSE);
+            } else if (c == ',') {
+                emit(token, TokenKind.COMMA);
+            } else if (c == '.' || token.equals("::")) {
+                emit(token, TokenKind.WORD_NO_SPACE);
+            } else {
+                emit(token, TokenKind.OPERATOR);
+            }
+        }
+
+        private void emit(String token, TokenKind kind) {
+            trackInList(kind);
+
+            boolean space = this.out.length() > 0
+                    && this.last != TokenKind.OPEN && this.last != TokenKind.WORD_NO_SPACE
+                    && kind != TokenKind.OPEN && kind != TokenKind.CLOSE && kind != TokenKind.COMMA
+                    && kind != TokenKind.WORD_NO_SPACE;
+            if (space) {
+                this.out.append(' ');
+            }
+            this.out.append(token);
+
+            if (kind == TokenKind.CLOSE && this.inListStart >= 0) {
+                if (this.inListCollapsible) {
+                    this.out.setLength(this.inListStart);
+                    this.out.append("(?)");
+                }
+                this.inListStart = -1;
+            }
+
+            this.lastWasIn = kind == TokenKind.WORD && token.equals("in");
+            this.last = kind;
+            this.lastToken = token;
+        }
+
+        private void trackInList(TokenKind kind) {
+            if (kind == TokenKind.OPEN) {
+                if (this.lastWasIn) {
+                    this.inListStart = this.out.length();
+                    this.inListCollapsible = true;
+                } else {
+                    // nested parenthesis such as sub query
+                    this.inListStart = -1;
+                }
+            } else if (this.inListStart >= 0 && kind != TokenKind.PLACEHOLDER && kind != TokenKind.COMMA && kind != TokenKind.CLOSE) {
+                this.inListCollapsible = false;
+            }
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isWordStart(char c) {
+            return Character.isLetter(c) || c == '_';
+        }
+
+        private static boolean isWordPart(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+        }
+
+    }
+
+    private enum TokenKind {
+        NONE, WORD, WORD_NO_SPACE, PLACEHOLDER, OPEN, CLOSE, COMMA, OPERATOR
+    }
+
+}
@@ -2,6 +2,7 @@ package net.ttddyy.dsproxy.r2dbc.core;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  *
@@ -13,6 +14,12 @@ public class QueryInfo {
 
     private List<Bindings> bindingsList = new ArrayList<>();
 
+    private QueryFingerprint fingerprint;
+
+    private BindingsSummary bindingsSummary;
+
+    private volatile Consumer<QueryInfo> bindingsCapture;
+
     public QueryInfo() {
     }
 
@@ -26,10 +33,73 @@ public class QueryInfo {
 
     public void setQuery(String query) {
         this.query = query;
+        this.fingerprint = null;
+    }
+
+    /**
+     * Fingerprint of the query resolved by {@link QueryFingerprinter#getDefault()}.
+     *
+     * @return fingerprint. {@code null} when query is not set.
+     */
+    public QueryFingerprint getFingerprint() {
+        if (this.fingerprint == null && this.query != null) {
+            this.fingerprint = QueryFingerprinter.getDefault().fingerprint(this.query);
+        }
+        return this.fingerprint;
     }
 
     // TODO: improve
     public List<Bindings> getBindingsList() {
+        captureBindings();
         return bindingsList;
     }
+
+    /**
+     * Summary of bound values. Available when values are summarized instead of captured as {@link Bindings}.
+     *
+     * @return summary of bound values. {@code null} when not summarized.
+     */
+    public BindingsSummary getBindingsSummary() {
+        captureBindings();
+        return bindingsSummary;
+    }
+
+    public void setBindingsSummary(BindingsSummary bindingsSummary) {
+        this.bindingsSummary = bindingsSummary;
+    }
+
+    /**
+     * Defer capturing bound values until they are read.
+     *
+     * The capture populates bindings of this query. It is run only once, on the first call of
+     * {@link #getBindingsList()}, {@link #getBindingsSummary()}, or {@link #captureBindings()}.
+     *
+     * @param bindingsCapture callback to populate bindings
+     */
+    public void setBindingsCapture(Consumer<QueryInfo> bindingsCapture) {
+        this.bindingsCapture = bindingsCapture;
+    }
+
+    /**
+     * Run the deferred capture set by {@link #setBindingsCapture(Consumer)}, if not yet run.
+     */
+    public void captureBindings() {
+        if (this.bindingsCapture == null) {
+            return;
+        }
+        synchronized (this) {
+            Consumer<QueryInfo> capture = this.bindingsCapture;
+            if (capture != null) {
+                this.bindingsCapture = null;
+                capture.accept(this);
+            }
+        }
+    }
+
+    /**
+     * Drop the deferred capture set by {@link #setBindingsCapture(Consumer)} without running it.
+     */
+    public void discardBindings() {
+        this.bindingsCapture = null;
+    }
 }
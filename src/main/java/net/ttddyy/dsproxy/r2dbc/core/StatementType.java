@@ -0,0 +1,10 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+/**
+ * Type of SQL statement detected by {@link QueryFingerprinter}.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public enum StatementType {
+    SELECT, INSERT, UPDATE, DELETE, DDL, OTHER
+}
@@ -0,0 +1,47 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time source to measure execution durations.
+ *
+ * Returned value is nanoseconds from an arbitrary origin. Only difference of two values is meaningful.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see #systemTicker()
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    /**
+     * Ticker using {@link System#nanoTime()}.
+     *
+     * @return ticker
+     */
+    static Ticker systemTicker() {
+        return System::nanoTime;
+    }
+
+    /**
+     * Ticker reading time from the given {@link Clock}.
+     *
+     * @param clock clock
+     * @return ticker
+     */
+    static Ticker of(Clock clock) {
+        return () -> {
+            Instant instant = clock.instant();
+            return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+        };
+    }
+
+    /**
+     * Current time in nanoseconds.
+     *
+     * @return current time in nanoseconds
+     */
+    long read();
+
+}
@@ -0,0 +1,172 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TruncatedBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TypeBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.Bindings;
+import net.ttddyy.dsproxy.r2dbc.core.BindingsSummary;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Define how values bound to statements are captured into {@link Bindings}.
+ *
+ * <ul>
+ * <li>{@link #none()}: no value is captured. {@code QueryExecutionInfo#getBindingsSize()} is still available.</li>
+ * <li>{@link #typesOnly()}: only types of values are captured as {@link TypeBindingValue}.</li>
+ * <li>{@link #truncated(int)}: {@link CharSequence}, {@code byte[]}, and {@link ByteBuffer} longer than the given
+ * length are captured as {@link TruncatedBindingValue} with the original size. Other values are captured as is.</li>
+ * <li>{@link #full()}: all values are captured as is. (default)</li>
+ * <li>{@link #summary()}: no value is captured. Number and sizes of values are summarized into
+ * {@link BindingsSummary}.</li>
+ * </ul>
+ *
+ * Bound values are handed to the {@code QueryExecutionInfo} on {@code Statement#execute()}, and capturing
+ * starts over for the next execution of the same statement. Values are captured when bindings are first read, or
+ * right after before query callback. They are not captured when the execution is not sampled
+ * ({@code QueryExecutionInfo#isSampled()}).
+ *
+ * Number of captured {@code Statement#add()} rows can be limited by {@link #withMaxRows(int)}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see ProxyConfig#setBindingCapturePolicy(BindingCapturePolicy)
+ */
+public final class BindingCapturePolicy {
+
+    public enum Level {
+        NONE, TYPES, TRUNCATED, FULL, SUMMARY
+    }
+
+    private static final BindingCapturePolicy NONE = new BindingCapturePolicy(Level.NONE, 0, Integer.MAX_VALUE);
+
+    private static final BindingCapturePolicy TYPES = new BindingCapturePolicy(Level.TYPES, 0, Integer.MAX_VALUE);
+
+    private static final BindingCapturePolicy FULL = new BindingCapturePolicy(Level.FULL, 0, Integer.MAX_VALUE);
+
+    private static final BindingCapturePolicy SUMMARY = new BindingCapturePolicy(Level.SUMMARY, 0, Integer.MAX_VALUE);
+
+    private static final ClassValue<TypeBindingValue> TYPE_BINDING_VALUES = new ClassValue<TypeBindingValue>() {
+        @Override
+        protected TypeBindingValue computeValue(Class<?> type) {
+            return new TypeBindingValue(type);
+        }
+    };
+
+    private final Level level;
+
+    private final int maxLength;
+
+    private final int maxRows;
+
+    private BindingCapturePolicy(Level level, int maxLength, int maxRows) {
+        this.level = level;
+        this.maxLength = maxLength;
+        this.maxRows = maxRows;
+    }
+
+    public static BindingCapturePolicy none() {
+        return NONE;
+    }
+
+    public static BindingCapturePolicy typesOnly() {
+        return TYPES;
+    }
+
+    /**
+     * @param maxLength max number of chars or bytes to capture per value
+     * @return policy
+     */
+    public static BindingCapturePolicy truncated(int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("maxLength must not be negative");
+        }
+        return new BindingCapturePolicy(Level.TRUNCATED, maxLength, Integer.MAX_VALUE);
+    }
+
+    public static BindingCapturePolicy full() {
+        return FULL;
+    }
+
+    public static BindingCapturePolicy summary() {
+        return SUMMARY;
+    }
+
+    /**
+     * Create a policy that captures up to the given number of rows per statement execution.
+     * Rows created by {@code Statement#add()} beyond this are counted but not captured.
+     *
+     * @param maxRows max number of captured rows
+     * @return new policy
+     */
+    public BindingCapturePolicy withMaxRows(int maxRows) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException("maxRows must not be negative");
+        }
+        return new BindingCapturePolicy(this.level, this.maxLength, maxRows);
+    }
+
+    public Level getLevel() {
+        return this.level;
+    }
+
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    public int getMaxRows() {
+        return this.maxRows;
+    }
+
+    /**
+     * @param rowIndex index of {@code Statement#add()} row
+     * @return {@code true} if values of the row are captured
+     */
+    boolean isCaptured(int rowIndex) {
+        return this.level != Level.NONE && this.level != Level.SUMMARY && rowIndex < this.maxRows;
+    }
+
+    /**
+     * @return {@code true} if values are summarized into {@link BindingsSummary}
+     */
+    boolean isSummarized() {
+        return this.level == Level.SUMMARY;
+    }
+
+    /**
+     * Convert a bound value to the value to keep.
+     *
+     * @param value bound value
+     * @return the given value as is, or a {@link TypeBindingValue} or {@link TruncatedBindingValue}
+     */
+    Object capture(Object value) {
+        if (value == null || this.level == Level.FULL) {
+            return value;
+        }
+        if (this.level == Level.TYPES) {
+            return TYPE_BINDING_VALUES.get(value.getClass());
+        }
+
+        // truncated
+        if (value instanceof CharSequence) {
+            CharSequence chars = (CharSequence) value;
+            if (chars.length() > this.maxLength) {
+                return new TruncatedBindingValue(chars.subSequence(0, this.maxLength).toString(), value.getClass(), chars.length());
+            }
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            if (bytes.length > this.maxLength) {
+                return new TruncatedBindingValue(Arrays.copyOf(bytes, this.maxLength), value.getClass(), bytes.length);
+            }
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = (ByteBuffer) value;
+            if (buffer.remaining() > this.maxLength) {
+                byte[] bytes = new byte[this.maxLength];
+                // read from duplicate not to change position of the bound buffer
+                buffer.duplicate().get(bytes);
+                return new TruncatedBindingValue(bytes, value.getClass(), buffer.remaining());
+            }
+        }
+        return value;
+    }
+
+}
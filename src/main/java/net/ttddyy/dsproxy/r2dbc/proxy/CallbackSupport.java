@@ -1,54 +1,36 @@
 package net.ttddyy.dsproxy.r2dbc.proxy;
 
 import io.r2dbc.spi.Result;
+import net.ttddyy.dsproxy.r2dbc.core.CompositeProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.time.Clock;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Arrays;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
-import static java.util.stream.Collectors.toSet;
-
 /**
  * @author Tadaya Tsuyukubo
  */
 public abstract class CallbackSupport {
 
-    private static final Set<Method> PASS_THROUGH_METHODS;
-
-    static {
-        try {
-            Method objectToStringMethod = Object.class.getMethod("toString");
-            PASS_THROUGH_METHODS = Arrays.stream(Object.class.getMethods())
-                    .filter(method -> !objectToStringMethod.equals(method))
-                    .collect(toSet());
-
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    protected Clock clock = Clock.systemUTC();
+    protected Ticker ticker;
 
     protected ProxyConfig proxyConfig;
 
 
     public CallbackSupport(ProxyConfig proxyConfig) {
         this.proxyConfig = proxyConfig;
+        Ticker configuredTicker = proxyConfig.getTicker();
+        this.ticker = configuredTicker != null ? configuredTicker : Ticker.systemTicker();
     }
 
     /**
@@ -68,17 +50,45 @@ public abstract class CallbackSupport {
                                       ProxyExecutionListener listener, ConnectionInfo connectionInfo,
                                       BiFunction<Object, MethodExecutionInfo, Object> onMap,
                                       Consumer<MethodExecutionInfo> onComplete) throws Throwable {
+        return proceedExecution(method, null, target, args, listener, connectionInfo, onMap, onComplete);
+    }
 
-        if (PASS_THROUGH_METHODS.contains(method)) {
-            try {
-                return method.invoke(target, args);
-            } catch (InvocationTargetException ex) {
-                throw ex.getTargetException();
-            }
+    /**
+     * Augment method invocation and call method listener.
+     *
+     * @param method         method to invoke on target
+     * @param invoker        invoker that calls the method on target. See {@link #invokeTarget(Method, MethodInvoker, Object, Object[])}
+     * @param target         an object being invoked
+     * @param args           arguments for the method
+     * @param listener       listener that before/aftre method callbacks will be called
+     * @param connectionInfo current connection information
+     * @param onMap          a callback that will be chained on "map()" right after the result of the method invocation
+     * @param onComplete     a callback that will be chained as the first doOnComplete on the result of the method invocation
+     * @return
+     * @throws Throwable
+     */
+    protected Object proceedExecution(Method method, MethodInvoker invoker, Object target, Object[] args,
+                                      ProxyExecutionListener listener, ConnectionInfo connectionInfo,
+                                      BiFunction<Object, MethodExecutionInfo, Object> onMap,
+                                      Consumer<MethodExecutionInfo> onComplete) throws Throwable {
+        return proceedExecution(method, ProxyMethod.of(method), invoker, target, args, listener, connectionInfo, onMap, onComplete);
+    }
+
+    /**
+     * Same as {@link #proceedExecution(Method, MethodInvoker, Object, Object[], ProxyExecutionListener, ConnectionInfo, BiFunction, Consumer)}
+     * but with already resolved {@link ProxyMethod}, so that callbacks look up the method only once.
+     */
+    Object proceedExecution(Method method, ProxyMethod proxyMethod, MethodInvoker invoker, Object target, Object[] args,
+                            ProxyExecutionListener listener, ConnectionInfo connectionInfo,
+                            BiFunction<Object, MethodExecutionInfo, Object> onMap,
+                            Consumer<MethodExecutionInfo> onComplete) throws Throwable {
+
+        if (proxyMethod == ProxyMethod.PASS_THROUGH) {
+            return invokeTarget(method, invoker, target, args);
         }
 
         // special handling for toString()
-        if ("toString".equals(method.getName())) {
+        if (proxyMethod == ProxyMethod.TO_STRING) {
             StringBuilder sb = new StringBuilder();
             sb.append(target.getClass().getSimpleName());   // ConnectionFactory, Connection, Batch, or Statement
             sb.append("-proxy [");
@@ -88,7 +98,9 @@ public abstract class CallbackSupport {
         }
 
 
-        AtomicReference<Instant> startTimeHolder = new AtomicReference<>();
+        if (!isMethodExecutionListened(listener)) {
+            return proceedExecutionWithoutListener(method, invoker, target, args, connectionInfo, onMap, onComplete);
+        }
 
         MethodExecutionInfo executionInfo = new MethodExecutionInfo();
         executionInfo.setMethod(method);
@@ -100,97 +112,37 @@ public abstract class CallbackSupport {
 
         if (Publisher.class.isAssignableFrom(returnType)) {
 
-            Publisher<?> result;
-            try {
-                result = (Publisher<?>) method.invoke(target, args);
-            } catch (InvocationTargetException ex) {
-                throw ex.getTargetException();
-            }
-
-            return Flux.empty()
-                    .doOnSubscribe(s -> {
-
-                        Instant startTime = this.clock.instant();
-                        startTimeHolder.set(startTime);
-
-                        String threadName = Thread.currentThread().getName();
-                        long threadId = Thread.currentThread().getId();
-                        executionInfo.setThreadName(threadName);
-                        executionInfo.setThreadId(threadId);
-
-                        executionInfo.setProxyEventType(ProxyEventType.BEFORE_METHOD);
-
-                        listener.onMethodExecution(executionInfo);
-                    })
-                    .concatWith(result)
-                    .map(resultObj -> {
-
-                        // set produced object as result
-                        executionInfo.setResult(resultObj);
-
-                        // apply a function to flux-chain right after the original publisher operations
-                        if (onMap != null) {
-                            return onMap.apply(resultObj, executionInfo);
-                        }
-                        return resultObj;
-                    })
-                    .doOnComplete(() -> {
-                        // apply a consumer to flux-chain right after the original publisher operations
-                        // this is the first chained doOnComplete on the result publisher
-                        if (onComplete != null) {
-                            onComplete.accept(executionInfo);
-                        }
-                    })
-                    .doOnError(throwable -> {
-                        executionInfo.setThrown(throwable);
-                    })
-                    .doFinally(signalType -> {
-
-                        Instant startTime = startTimeHolder.get();
-                        Instant currentTime = this.clock.instant();
-
-                        Duration executionDuration = Duration.between(startTime, currentTime);
-                        executionInfo.setExecuteDuration(executionDuration);
-
-                        String threadName = Thread.currentThread().getName();
-                        long threadId = Thread.currentThread().getId();
-                        executionInfo.setThreadName(threadName);
-                        executionInfo.setThreadId(threadId);
-
-                        executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
-
-                        listener.onMethodExecution(executionInfo);
-                    });
+            Publisher<?> result = (Publisher<?>) invokeTarget(method, invoker, target, args);
 
+            // keep Mono as Mono, so that callers can still treat it as Mono
+            if (result instanceof Mono) {
+                return new MonoMethodInvocation((Mono<?>) result, listener, executionInfo, onMap, onComplete, this.ticker);
+            }
+            return new FluxMethodInvocation(Flux.from(result), listener, executionInfo, onMap, onComplete, this.ticker);
 
         } else {
             // for method that generates non-publisher, execution happens when it is invoked.
 
-            String threadName = Thread.currentThread().getName();
-            long threadId = Thread.currentThread().getId();
-            executionInfo.setThreadName(threadName);
-            executionInfo.setThreadId(threadId);
+            executionInfo.setThread(Thread.currentThread());
 
             // invoke before method
             executionInfo.setProxyEventType(ProxyEventType.BEFORE_METHOD);
             listener.onMethodExecution(executionInfo);
 
-            Instant startTime = this.clock.instant();
+            long startNanos = this.ticker.read();
 
             Object result = null;
             Throwable thrown = null;
             try {
-                result = method.invoke(target, args);
-            } catch (InvocationTargetException ex) {
-                thrown = ex.getTargetException();
-                throw thrown;
+                result = invokeTarget(method, invoker, target, args);
+            } catch (Throwable ex) {
+                thrown = ex;
+                throw ex;
             } finally {
                 executionInfo.setResult(result);
                 executionInfo.setThrown(thrown);
 
-                Instant currentTime = this.clock.instant();
-                Duration executionDuration = Duration.between(startTime, currentTime);
-                executionInfo.setExecuteDuration(executionDuration);
+                executionInfo.setExecuteDurationNanos(this.ticker.read() - startNanos);
 
                 executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
                 listener.onMethodExecution(executionInfo);
@@ -202,69 +154,145 @@ public abstract class CallbackSupport {
     }
 
     /**
-     * Augment query execution result to hook up listener lifecycle.
+     * Invoke the method on target without calling method listener.
+     *
+     * When there is no {@code onMap} nor {@code onComplete}, result of the method invocation is returned as is.
      */
-    protected Flux<? extends Result> interceptQueryExecution(Publisher<? extends Result> flux, QueryExecutionInfo executionInfo) {
-
-        ProxyExecutionListener listener = this.proxyConfig.getListeners();
-
-        AtomicReference<Instant> startTimeHolder = new AtomicReference<>();
-
-        Flux<? extends Result> queryExecutionFlux = Flux.empty()
-                .ofType(Result.class)
-                .doOnSubscribe(s -> {
+    private Object proceedExecutionWithoutListener(Method method, MethodInvoker invoker, Object target, Object[] args,
+                                                   ConnectionInfo connectionInfo,
+                                                   BiFunction<Object, MethodExecutionInfo, Object> onMap,
+                                                   Consumer<MethodExecutionInfo> onComplete) throws Throwable {
 
-                    Instant startTime = this.clock.instant();
-                    startTimeHolder.set(startTime);
+        Object result = invokeTarget(method, invoker, target, args);
 
-                    String threadName = Thread.currentThread().getName();
-                    long threadId = Thread.currentThread().getId();
-                    executionInfo.setThreadName(threadName);
-                    executionInfo.setThreadId(threadId);
-
-                    executionInfo.setCurrentMappedResult(null);
+        if ((onMap == null && onComplete == null) || !(result instanceof Publisher)) {
+            return result;
+        }
 
-                    executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+        // onMap and onComplete still need to be applied. e.g.: creating connection proxy
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setMethod(method);
+        executionInfo.setMethodArgs(args);
+        executionInfo.setTarget(target);
+        executionInfo.setConnectionInfo(connectionInfo);
 
-                    listener.onQueryExecution(executionInfo);
+        return Flux.from((Publisher<?>) result)
+                .map(resultObj -> {
+                    executionInfo.setResult(resultObj);
+                    if (onMap != null) {
+                        return onMap.apply(resultObj, executionInfo);
+                    }
+                    return resultObj;
                 })
-                .concatWith(flux)
                 .doOnComplete(() -> {
-                    executionInfo.setSuccess(true);
-                })
-                .doOnError(throwable -> {
-                    executionInfo.setThrowable(throwable);
-                    executionInfo.setSuccess(false);
-                })
-                .doFinally(signalType -> {
+                    if (onComplete != null) {
+                        onComplete.accept(executionInfo);
+                    }
+                });
+    }
+
+    /**
+     * Whether the listener receives before/after method callbacks.
+     *
+     * @param listener listener
+     * @return {@code false} when the listener is a {@link CompositeProxyExecutionListener} and no listener consumes method events
+     */
+    protected boolean isMethodExecutionListened(ProxyExecutionListener listener) {
+        return isListened(listener, ProxyEventType.BEFORE_METHOD) || isListened(listener, ProxyEventType.AFTER_METHOD);
+    }
 
-                    Instant startTime = startTimeHolder.get();
-                    Instant currentTime = this.clock.instant();
+    /**
+     * Whether the listener receives before/after query callbacks.
+     *
+     * @param listener listener
+     * @return {@code false} when the listener is a {@link CompositeProxyExecutionListener} and no listener consumes query events
+     */
+    protected boolean isQueryExecutionListened(ProxyExecutionListener listener) {
+        return isListened(listener, ProxyEventType.BEFORE_QUERY) || isListened(listener, ProxyEventType.AFTER_QUERY);
+    }
 
-                    Duration executionDuration = Duration.between(startTime, currentTime);
-                    executionInfo.setExecuteDuration(executionDuration);
+    /**
+     * Whether the listener receives {@link ProxyExecutionListener#eachQueryResult(QueryExecutionInfo)} callbacks.
+     *
+     * @param listener listener
+     * @return {@code false} when the listener is a {@link CompositeProxyExecutionListener} and no listener consumes each query result events
+     */
+    protected boolean isEachQueryResultListened(ProxyExecutionListener listener) {
+        return isListened(listener, ProxyEventType.EACH_QUERY_RESULT);
+    }
 
-                    String threadName = Thread.currentThread().getName();
-                    long threadId = Thread.currentThread().getId();
-                    executionInfo.setThreadName(threadName);
-                    executionInfo.setThreadId(threadId);
+    /**
+     * Whether the listener receives {@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)} callbacks.
+     *
+     * @param listener listener
+     * @return {@code false} when the listener is a {@link CompositeProxyExecutionListener} and no listener consumes aggregated query result events
+     */
+    protected boolean isAggregatedQueryResultListened(ProxyExecutionListener listener) {
+        return isListened(listener, ProxyEventType.AGGREGATED_QUERY_RESULT);
+    }
 
-                    executionInfo.setCurrentMappedResult(null);
+    private static boolean isListened(ProxyExecutionListener listener, ProxyEventType eventType) {
+        if (listener instanceof CompositeProxyExecutionListener) {
+            return ((CompositeProxyExecutionListener) listener).isListened(eventType);
+        }
+        return true;
+    }
 
-                    executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+    /**
+     * Invoke the method on target.
+     *
+     * @param method  method to invoke on target
+     * @param invoker invoker that calls the method on target directly. When {@code null}, a cached
+     *                {@link java.lang.invoke.MethodHandle} based invoker for the target class is used.
+     * @param target  an object being invoked
+     * @param args    arguments for the method
+     * @return result of the method invocation
+     * @throws Throwable exception thrown by the target
+     */
+    protected Object invokeTarget(Method method, MethodInvoker invoker, Object target, Object[] args) throws Throwable {
+        if (invoker == null) {
+            invoker = MethodHandleMethodInvoker.of(method, target.getClass());
+        }
+        return invoker.invoke(target, args);
+    }
 
-                    listener.onQueryExecution(executionInfo);
-                });
+    /**
+     * Augment query execution result to hook up listener lifecycle.
+     */
+    protected Flux<? extends Result> interceptQueryExecution(Publisher<? extends Result> flux, QueryExecutionInfo executionInfo) {
 
+        ProxyExecutionListener listener = this.proxyConfig.getListeners();
         ProxyFactory proxyFactory = this.proxyConfig.getProxyFactory();
 
-        // return a publisher that returns proxy Result
-        return Flux.from(queryExecutionFlux)
-                .flatMap(queryResult -> Mono.just(proxyFactory.createResult(queryResult, executionInfo)));
+        // aggregated query results need start time of the execution
+        if (!isQueryExecutionListened(listener) && !isAggregatedQueryResultListened(listener)) {
+            // no query callbacks. Only wrap the results with proxy
+            return Flux.from(flux)
+                    .map(queryResult -> proxyFactory.createResult(queryResult, executionInfo));
+        }
+
+        // call query callbacks and return a publisher that emits proxy Result
+        return new FluxQueryExecution(Flux.from(flux), listener, executionInfo, proxyFactory, this.ticker);
 
     }
 
+    /**
+     * Set a {@link Clock} to measure execution durations.
+     *
+     * @param clock clock
+     * @deprecated use {@link #setTicker(Ticker)}
+     */
+    @Deprecated
     public void setClock(Clock clock) {
-        this.clock = clock;
+        this.ticker = Ticker.of(clock);
+    }
+
+    /**
+     * Set a {@link Ticker} to measure execution durations.
+     *
+     * @param ticker ticker
+     */
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker;
     }
 }
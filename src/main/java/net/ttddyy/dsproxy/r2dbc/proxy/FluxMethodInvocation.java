@@ -0,0 +1,48 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Flux operator that calls method callbacks on a {@link Flux} returned by proxied method.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see MethodInvocationSubscriber
+ */
+class FluxMethodInvocation extends FluxOperator<Object, Object> {
+
+    private final ProxyExecutionListener listener;
+
+    private final MethodExecutionInfo executionInfo;
+
+    private final BiFunction<Object, MethodExecutionInfo, Object> onMap;
+
+    private final Consumer<MethodExecutionInfo> onComplete;
+
+    private final Ticker ticker;
+
+    FluxMethodInvocation(Flux<?> source, ProxyExecutionListener listener, MethodExecutionInfo executionInfo,
+                         BiFunction<Object, MethodExecutionInfo, Object> onMap,
+                         Consumer<MethodExecutionInfo> onComplete, Ticker ticker) {
+        super(source);
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.onMap = onMap;
+        this.onComplete = onComplete;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super Object> actual) {
+        new MethodInvocationSubscriber(actual, this.listener, this.executionInfo,
+                this.onMap, this.onComplete, this.ticker).subscribeTo(this.source);
+    }
+
+}
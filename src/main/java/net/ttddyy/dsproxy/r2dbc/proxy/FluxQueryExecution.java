@@ -0,0 +1,44 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Result;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+
+
+/**
+ * Flux operator that calls query callbacks on a publisher returned by query execution and
+ * emits proxy {@link Result Results}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see QueryExecutionSubscriber
+ */
+class FluxQueryExecution extends FluxOperator<Result, Result> {
+
+    private final ProxyExecutionListener listener;
+
+    private final QueryExecutionInfo executionInfo;
+
+    private final ProxyFactory proxyFactory;
+
+    private final Ticker ticker;
+
+    FluxQueryExecution(Flux<? extends Result> source, ProxyExecutionListener listener,
+                       QueryExecutionInfo executionInfo, ProxyFactory proxyFactory, Ticker ticker) {
+        super(source);
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.proxyFactory = proxyFactory;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super Result> actual) {
+        new QueryExecutionSubscriber(actual, this.listener, this.executionInfo,
+                this.proxyFactory, this.ticker).subscribeTo(this.source);
+    }
+
+}
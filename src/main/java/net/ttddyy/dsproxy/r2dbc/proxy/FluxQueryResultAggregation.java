@@ -0,0 +1,42 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+
+/**
+ * Flux operator that calls aggregated query result callbacks on a publisher returned by
+ * {@link io.r2dbc.spi.Result#map}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see QueryResultAggregationSubscriber
+ */
+class FluxQueryResultAggregation<T> extends FluxOperator<T, T> {
+
+    private final ProxyExecutionListener listener;
+
+    private final QueryExecutionInfo executionInfo;
+
+    private final Ticker ticker;
+
+    private final int interval;
+
+    FluxQueryResultAggregation(Flux<? extends T> source, ProxyExecutionListener listener,
+                               QueryExecutionInfo executionInfo, Ticker ticker, int interval) {
+        super(source);
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.ticker = ticker;
+        this.interval = interval;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T> actual) {
+        this.source.subscribe(new QueryResultAggregationSubscriber<>(actual, this.listener, this.executionInfo,
+                this.ticker, this.interval));
+    }
+
+}
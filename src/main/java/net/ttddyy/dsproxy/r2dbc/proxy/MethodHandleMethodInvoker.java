@@ -0,0 +1,203 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link MethodInvoker} created from {@link MethodHandle}.
+ *
+ * Invokers are cached per target class and {@link Method}, together with the {@link ProxyMethod} of the method, so
+ * that JDK dynamic proxies resolve both by a single lookup.
+ * When the target class publicly exposes the method and is visible from this library, the method on the target
+ * class is used. Otherwise, the given (interface) method is used.
+ * Methods with up to three parameters and non-void return type are invoked through a class generated by
+ * {@link LambdaMetafactory}, which calls the method directly. Others are invoked by {@link MethodHandle}.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+final class MethodHandleMethodInvoker {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final MethodType SPREAD_INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    // per target class. ClassValue does not prevent target classes from being unloaded.
+    private static final ClassValue<Map<Method, ResolvedMethod>> INVOKERS = new ClassValue<Map<Method, ResolvedMethod>>() {
+        @Override
+        protected Map<Method, ResolvedMethod> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private MethodHandleMethodInvoker() {
+    }
+
+    /**
+     * Get an invoker for the method on the target class.
+     *
+     * @param method      method to invoke
+     * @param targetClass concrete class of the target
+     * @return invoker
+     */
+    static MethodInvoker of(Method method, Class<?> targetClass) {
+        MethodInvoker invoker = resolve(method, targetClass).getInvoker();
+        return invoker != null ? invoker : createInvoker(method, targetClass);
+    }
+
+    /**
+     * Get {@link ProxyMethod} and an invoker for the method on the target class.
+     *
+     * @param method      method to invoke
+     * @param targetClass concrete class of the target
+     * @return resolved method
+     */
+    static ResolvedMethod resolve(Method method, Class<?> targetClass) {
+        Map<Method, ResolvedMethod> resolvedMethods = INVOKERS.get(targetClass);
+        ResolvedMethod resolvedMethod = resolvedMethods.get(method);
+        if (resolvedMethod == null) {
+            resolvedMethod = resolvedMethods.computeIfAbsent(method, key -> new ResolvedMethod(key, targetClass));
+        }
+        return resolvedMethod;
+    }
+
+    private static MethodInvoker createInvoker(Method method, Class<?> targetClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle methodHandle;
+        try {
+            methodHandle = lookup.unreflect(resolveMethod(method, targetClass));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+
+        int parameterCount = method.getParameterCount();
+        if (method.getReturnType() != void.class && parameterCount <= 3) {
+            try {
+                return createLambdaInvoker(lookup, methodHandle, parameterCount);
+            } catch (Throwable e) {
+                // fallback to method handle invocation
+            }
+        }
+
+        MethodHandle spreadHandle = methodHandle
+                .asSpreader(Object[].class, parameterCount)
+                .asType(SPREAD_INVOKER_TYPE);
+        return (target, args) -> {
+            Object[] arguments = args != null ? args : EMPTY_ARGS;
+            return (Object) spreadHandle.invokeExact(target, arguments);
+        };
+    }
+
+    private static Method resolveMethod(Method method, Class<?> targetClass) {
+        if (!Modifier.isPublic(targetClass.getModifiers()) || !isVisible(targetClass)) {
+            return method;
+        }
+        try {
+            Method targetMethod = targetClass.getMethod(method.getName(), method.getParameterTypes());
+            Class<?> declaringClass = targetMethod.getDeclaringClass();
+            if (Modifier.isPublic(declaringClass.getModifiers()) && isVisible(declaringClass)) {
+                return targetMethod;
+            }
+        } catch (NoSuchMethodException e) {
+            // use the given method
+        }
+        return method;
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, MethodHandleMethodInvoker.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static MethodInvoker createLambdaInvoker(MethodHandles.Lookup lookup, MethodHandle methodHandle,
+                                                     int parameterCount) throws Throwable {
+        Class<?> functionType;
+        if (parameterCount == 0) {
+            functionType = Invoker0.class;
+        } else if (parameterCount == 1) {
+            functionType = Invoker1.class;
+        } else if (parameterCount == 2) {
+            functionType = Invoker2.class;
+        } else {
+            functionType = Invoker3.class;
+        }
+
+        MethodType implType = methodHandle.type();
+        MethodType samType = MethodType.genericMethodType(parameterCount + 1);
+        MethodType instantiatedType = implType.wrap();
+
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(functionType),
+                samType, methodHandle, instantiatedType);
+        Object function = callSite.getTarget().invoke();
+
+        if (parameterCount == 0) {
+            Invoker0 invoker = (Invoker0) function;
+            return (target, args) -> invoker.invoke(target);
+        } else if (parameterCount == 1) {
+            Invoker1 invoker = (Invoker1) function;
+            return (target, args) -> invoker.invoke(target, args[0]);
+        } else if (parameterCount == 2) {
+            Invoker2 invoker = (Invoker2) function;
+            return (target, args) -> invoker.invoke(target, args[0], args[1]);
+        } else {
+            Invoker3 invoker = (Invoker3) function;
+            return (target, args) -> invoker.invoke(target, args[0], args[1], args[2]);
+        }
+    }
+
+    /**
+     * {@link ProxyMethod} and invoker of a method on a target class.
+     */
+    static final class ResolvedMethod {
+
+        private final ProxyMethod proxyMethod;
+
+        private final MethodInvoker invoker;
+
+        private ResolvedMethod(Method method, Class<?> targetClass) {
+            this.proxyMethod = ProxyMethod.of(method);
+            // methods handled by callbacks do not invoke the target
+            boolean handled = this.proxyMethod == ProxyMethod.TO_STRING || this.proxyMethod == ProxyMethod.GET_TARGET
+                    || this.proxyMethod == ProxyMethod.GET_ORIGINAL_CONNECTION;
+            this.invoker = handled ? null : createInvoker(method, targetClass);
+        }
+
+        ProxyMethod getProxyMethod() {
+            return this.proxyMethod;
+        }
+
+        MethodInvoker getInvoker() {
+            return this.invoker;
+        }
+    }
+
+    @FunctionalInterface
+    interface Invoker0 {
+        Object invoke(Object target);
+    }
+
+    @FunctionalInterface
+    interface Invoker1 {
+        Object invoke(Object target, Object arg1);
+    }
+
+    @FunctionalInterface
+    interface Invoker2 {
+        Object invoke(Object target, Object arg1, Object arg2);
+    }
+
+    @FunctionalInterface
+    interface Invoker3 {
+        Object invoke(Object target, Object arg1, Object arg2, Object arg3);
+    }
+
+}
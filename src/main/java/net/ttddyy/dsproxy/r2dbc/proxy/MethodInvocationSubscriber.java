@@ -0,0 +1,220 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber that calls before/after method callbacks on a publisher returned by proxied method.
+ *
+ * Calls before method callback when subscribed, applies {@code onMap} to each element and {@code onComplete}
+ * on completion, then calls after method callback on completion, error, or cancel.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see FluxMethodInvocation
+ * @see MonoMethodInvocation
+ */
+class MethodInvocationSubscriber implements CoreSubscriber<Object>, Subscription, Scannable {
+
+    private static final AtomicIntegerFieldUpdater<MethodInvocationSubscriber> AFTER_METHOD_CALLED =
+            AtomicIntegerFieldUpdater.newUpdater(MethodInvocationSubscriber.class, "afterMethodCalled");
+
+    private final CoreSubscriber<? super Object> actual;
+
+    private final ProxyExecutionListener listener;
+
+    private final MethodExecutionInfo executionInfo;
+
+    private final BiFunction<Object, MethodExecutionInfo, Object> onMap;
+
+    private final Consumer<MethodExecutionInfo> onComplete;
+
+    private final Ticker ticker;
+
+    private Subscription subscription;
+
+    private long startNanos;
+
+    private boolean done;
+
+    private volatile int afterMethodCalled;
+
+    MethodInvocationSubscriber(CoreSubscriber<? super Object> actual, ProxyExecutionListener listener,
+                               MethodExecutionInfo executionInfo,
+                               BiFunction<Object, MethodExecutionInfo, Object> onMap,
+                               Consumer<MethodExecutionInfo> onComplete, Ticker ticker) {
+        this.actual = actual;
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.onMap = onMap;
+        this.onComplete = onComplete;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Call before method callback, then subscribe to the source.
+     *
+     * Callback is called before subscribing to the source, so that it precedes any work of the source publisher.
+     *
+     * @param source source publisher
+     */
+    void subscribeTo(Publisher<?> source) {
+        try {
+            beforeMethod();
+        } catch (Throwable e) {
+            this.done = true;
+            Throwable thrown = Operators.onOperatorError(e, currentContext());
+            this.executionInfo.setThrown(thrown);
+            Operators.error(this.actual, thrown);
+            afterMethod();
+            return;
+        }
+
+        source.subscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (Operators.validate(this.subscription, s)) {
+            this.subscription = s;
+            this.actual.onSubscribe(this);
+        }
+    }
+
+    @Override
+    public void onNext(Object t) {
+        if (this.done) {
+            Operators.onNextDropped(t, currentContext());
+            return;
+        }
+
+        // set produced object as result
+        this.executionInfo.setResult(t);
+
+        Object result = t;
+        if (this.onMap != null) {
+            try {
+                result = this.onMap.apply(t, this.executionInfo);
+            } catch (Throwable e) {
+                onError(Operators.onOperatorError(this.subscription, e, t, currentContext()));
+                return;
+            }
+        }
+
+        this.actual.onNext(result);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (this.done) {
+            Operators.onErrorDropped(t, currentContext());
+            return;
+        }
+        this.done = true;
+
+        this.executionInfo.setThrown(t);
+        this.actual.onError(t);
+
+        afterMethod();
+    }
+
+    @Override
+    public void onComplete() {
+        if (this.done) {
+            return;
+        }
+        this.done = true;
+
+        if (this.onComplete != null) {
+            try {
+                this.onComplete.accept(this.executionInfo);
+            } catch (Throwable e) {
+                Throwable thrown = Operators.onOperatorError(e, currentContext());
+                this.executionInfo.setThrown(thrown);
+                this.actual.onError(thrown);
+                afterMethod();
+                return;
+            }
+        }
+
+        this.actual.onComplete();
+
+        afterMethod();
+    }
+
+    @Override
+    public void request(long n) {
+        this.subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        this.subscription.cancel();
+        afterMethod();
+    }
+
+    @Override
+    public Context currentContext() {
+        return this.actual.currentContext();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Object scanUnsafe(Attr key) {
+        if (key == Attr.PARENT) {
+            return this.subscription;
+        } else if (key == Attr.ACTUAL) {
+            return this.actual;
+        } else if (key == Attr.TERMINATED) {
+            return this.done;
+        } else if (key == Attr.CANCELLED) {
+            return !this.done && this.afterMethodCalled == 1;
+        }
+        return null;
+    }
+
+    private void beforeMethod() {
+        this.startNanos = this.ticker.read();
+
+        this.executionInfo.setThread(Thread.currentThread());
+
+        this.executionInfo.setProxyEventType(ProxyEventType.BEFORE_METHOD);
+
+        this.listener.onMethodExecution(this.executionInfo);
+    }
+
+    /**
+     * Call after method callback only once, regardless of completion, error, or cancel.
+     */
+    private void afterMethod() {
+        if (!AFTER_METHOD_CALLED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+
+        try {
+            this.executionInfo.setExecuteDurationNanos(this.ticker.read() - this.startNanos);
+
+            this.executionInfo.setThread(Thread.currentThread());
+
+            this.executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+
+            this.listener.onMethodExecution(this.executionInfo);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            Operators.onErrorDropped(e, currentContext());
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+/**
+ * Invoke a method on the proxy target.
+ *
+ * <p>Used by proxies that know at compile time which method is being called, so that the target can be
+ * invoked directly instead of going through {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see StaticProxyFactory
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+    /**
+     * Invoke the method on the target.
+     *
+     * @param target an object being invoked
+     * @param args   arguments for the method
+     * @return result of the method invocation
+     * @throws Throwable exception thrown by the target
+     */
+    Object invoke(Object target, Object[] args) throws Throwable;
+
+}
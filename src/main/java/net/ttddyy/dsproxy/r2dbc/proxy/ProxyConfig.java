@@ -4,6 +4,7 @@ import net.ttddyy.dsproxy.r2dbc.core.CompositeProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionIdManager;
 import net.ttddyy.dsproxy.r2dbc.core.DefaultConnectionIdManager;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
 
 /**
  *
@@ -17,6 +18,12 @@ public class ProxyConfig {
 
     private ProxyFactory proxyFactory = new JdkProxyFactory();
 
+    private Ticker ticker = Ticker.systemTicker();
+
+    private BindingCapturePolicy bindingCapturePolicy = BindingCapturePolicy.full();
+
+    private int queryResultAggregationInterval;
+
     {
         this.proxyFactory.setProxyConfig(this);
     }
@@ -49,4 +56,52 @@ public class ProxyConfig {
     public void setConnectionIdManager(ConnectionIdManager connectionIdManager) {
         this.connectionIdManager = connectionIdManager;
     }
+
+    public Ticker getTicker() {
+        return this.ticker;
+    }
+
+    /**
+     * Set a {@link Ticker} used by proxies to measure execution durations.
+     *
+     * Applies to proxies created after this call.
+     *
+     * @param ticker ticker
+     */
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    public BindingCapturePolicy getBindingCapturePolicy() {
+        return this.bindingCapturePolicy;
+    }
+
+    /**
+     * Set a {@link BindingCapturePolicy} that defines how bound values are captured.
+     *
+     * Applies to statements created after this call.
+     *
+     * @param bindingCapturePolicy policy
+     */
+    public void setBindingCapturePolicy(BindingCapturePolicy bindingCapturePolicy) {
+        this.bindingCapturePolicy = bindingCapturePolicy;
+    }
+
+    public int getQueryResultAggregationInterval() {
+        return this.queryResultAggregationInterval;
+    }
+
+    /**
+     * Set number of rows between {@link ProxyExecutionListener#aggregatedQueryResult(QueryExecutionInfo)} callbacks.
+     *
+     * With {@code 0}(default), the callback is called only when mapping of a {@code Result} completes or fails.
+     *
+     * @param queryResultAggregationInterval number of rows
+     */
+    public void setQueryResultAggregationInterval(int queryResultAggregationInterval) {
+        if (queryResultAggregationInterval < 0) {
+            throw new IllegalArgumentException("queryResultAggregationInterval must not be negative");
+        }
+        this.queryResultAggregationInterval = queryResultAggregationInterval;
+    }
 }
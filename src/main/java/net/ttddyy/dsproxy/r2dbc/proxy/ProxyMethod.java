@@ -0,0 +1,110 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kind of method invoked on proxy, resolved once per {@link Method} and cached.
+ *
+ * <p>Callbacks dispatch on this instead of comparing method names on every invocation.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+enum ProxyMethod {
+
+    /**
+     * Methods on {@link Object} except {@code toString()}.
+     */
+    PASS_THROUGH,
+    TO_STRING,
+
+    // ProxyObject and ConnectionHolder
+    GET_TARGET,
+    GET_ORIGINAL_CONNECTION,
+
+    // ConnectionFactory
+    CREATE,
+
+    // Connection
+    BEGIN_TRANSACTION,
+    COMMIT_TRANSACTION,
+    ROLLBACK_TRANSACTION,
+    CLOSE,
+    CREATE_BATCH,
+    CREATE_STATEMENT,
+
+    // Batch and Statement
+    ADD,
+    BIND,
+    BIND_NULL,
+    EXECUTE,
+
+    // Result
+    GET_ROWS_UPDATED,
+    MAP,
+
+    /**
+     * Any other methods. No special handling other than method callbacks.
+     */
+    OTHER;
+
+    // keys are Method instances held by proxy classes, so lookups mostly hit by identity
+    private static final Map<Method, ProxyMethod> CACHE = new ConcurrentHashMap<>();
+
+    static ProxyMethod of(Method method) {
+        ProxyMethod proxyMethod = CACHE.get(method);
+        if (proxyMethod == null) {
+            proxyMethod = resolve(method);
+            CACHE.put(method, proxyMethod);
+        }
+        return proxyMethod;
+    }
+
+    private static ProxyMethod resolve(Method method) {
+        String methodName = method.getName();
+
+        if (Object.class.equals(method.getDeclaringClass())) {
+            return "toString".equals(methodName) ? TO_STRING : PASS_THROUGH;
+        }
+
+        switch (methodName) {
+            case "toString":
+                // "toString" re-declared on SPI interfaces
+                return method.getParameterCount() == 0 ? TO_STRING : OTHER;
+            case "getTarget":
+                return GET_TARGET;
+            case "getOriginalConnection":
+                return GET_ORIGINAL_CONNECTION;
+            case "create":
+                return CREATE;
+            case "beginTransaction":
+                return BEGIN_TRANSACTION;
+            case "commitTransaction":
+                return COMMIT_TRANSACTION;
+            case "rollbackTransaction":
+                return ROLLBACK_TRANSACTION;
+            case "close":
+                return CLOSE;
+            case "createBatch":
+                return CREATE_BATCH;
+            case "createStatement":
+                return CREATE_STATEMENT;
+            case "add":
+                return ADD;
+            case "bind":
+                return BIND;
+            case "bindNull":
+                return BIND_NULL;
+            case "execute":
+                return EXECUTE;
+            case "getRowsUpdated":
+                return GET_ROWS_UPDATED;
+            case "map":
+                return MAP;
+            default:
+                return OTHER;
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Result;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Subscriber that calls before/after query callbacks on a publisher returned by query execution.
+ *
+ * Calls before query callback when subscribed, wraps each {@link Result} with proxy, then calls
+ * after query callback on completion, error, or cancel.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see FluxQueryExecution
+ */
+class QueryExecutionSubscriber implements CoreSubscriber<Result>, Subscription, Scannable {
+
+    private static final AtomicIntegerFieldUpdater<QueryExecutionSubscriber> AFTER_QUERY_CALLED =
+            AtomicIntegerFieldUpdater.newUpdater(QueryExecutionSubscriber.class, "afterQueryCalled");
+
+    private final CoreSubscriber<? super Result> actual;
+
+    private final ProxyExecutionListener listener;
+
+    private final QueryExecutionInfo executionInfo;
+
+    private final ProxyFactory proxyFactory;
+
+    private final Ticker ticker;
+
+    private Subscription subscription;
+
+    private long startNanos;
+
+    private boolean done;
+
+    private boolean resultReceived;
+
+    private volatile int afterQueryCalled;
+
+    QueryExecutionSubscriber(CoreSubscriber<? super Result> actual, ProxyExecutionListener listener,
+                             QueryExecutionInfo executionInfo, ProxyFactory proxyFactory, Ticker ticker) {
+        this.actual = actual;
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.proxyFactory = proxyFactory;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Call before query callback, then subscribe to the source.
+     *
+     * Callback is called before subscribing to the source, so that it precedes any work of the source publisher.
+     *
+     * @param source source publisher
+     */
+    void subscribeTo(Publisher<? extends Result> source) {
+        try {
+            beforeQuery();
+        } catch (Throwable e) {
+            this.done = true;
+            Throwable thrown = Operators.onOperatorError(e, currentContext());
+            this.executionInfo.setThrowable(thrown);
+            this.executionInfo.setSuccess(false);
+            Operators.error(this.actual, thrown);
+            afterQuery();
+            return;
+        }
+
+        source.subscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (Operators.validate(this.subscription, s)) {
+            this.subscription = s;
+            this.actual.onSubscribe(this);
+        }
+    }
+
+    @Override
+    public void onNext(Result result) {
+        if (this.done) {
+            Operators.onNextDropped(result, currentContext());
+            return;
+        }
+
+        if (!this.resultReceived) {
+            this.resultReceived = true;
+            this.executionInfo.setFirstResultNanos(this.ticker.read() - this.startNanos);
+        }
+
+        Result proxyResult;
+        try {
+            proxyResult = this.proxyFactory.createResult(result, this.executionInfo);
+        } catch (Throwable e) {
+            onError(Operators.onOperatorError(this.subscription, e, result, currentContext()));
+            return;
+        }
+
+        this.actual.onNext(proxyResult);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (this.done) {
+            Operators.onErrorDropped(t, currentContext());
+            return;
+        }
+        this.done = true;
+
+        this.executionInfo.setThrowable(t);
+        this.executionInfo.setSuccess(false);
+        this.actual.onError(t);
+
+        afterQuery();
+    }
+
+    @Override
+    public void onComplete() {
+        if (this.done) {
+            return;
+        }
+        this.done = true;
+
+        this.executionInfo.setSuccess(true);
+        this.actual.onComplete();
+
+        afterQuery();
+    }
+
+    @Override
+    public void request(long n) {
+        this.subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        this.subscription.cancel();
+        afterQuery();
+    }
+
+    @Override
+    public Context currentContext() {
+        return this.actual.currentContext();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Object scanUnsafe(Attr key) {
+        if (key == Attr.PARENT) {
+            return this.subscription;
+        } else if (key == Attr.ACTUAL) {
+            return this.actual;
+        } else if (key == Attr.TERMINATED) {
+            return this.done;
+        } else if (key == Attr.CANCELLED) {
+            return !this.done && this.afterQueryCalled == 1;
+        }
+        return null;
+    }
+
+    private void beforeQuery() {
+        this.startNanos = this.ticker.read();
+
+        this.executionInfo.setExecuteStartNanos(this.startNanos);
+        this.executionInfo.setResultRowCount(0);
+        this.executionInfo.setFirstRowNanos(0);
+        this.executionInfo.setLastRowNanos(0);
+        this.executionInfo.setFirstResultNanos(0);
+        this.executionInfo.setBackpressureStallNanos(0);
+        this.executionInfo.setRowsUpdatedCounts(Collections.emptyList());
+
+        this.executionInfo.setThread(Thread.currentThread());
+
+        this.executionInfo.setCurrentMappedResult(null);
+        this.executionInfo.setSampled(true);
+
+        this.executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+
+        this.listener.onQueryExecution(this.executionInfo);
+
+        // listeners have made the sampling decision. do not hold bound values longer than needed.
+        boolean sampled = this.executionInfo.isSampled();
+        for (QueryInfo queryInfo : this.executionInfo.getQueries()) {
+            if (sampled) {
+                queryInfo.captureBindings();
+            } else {
+                queryInfo.discardBindings();
+            }
+        }
+    }
+
+    /**
+     * Call after query callback only once, regardless of completion, error, or cancel.
+     */
+    private void afterQuery() {
+        if (!AFTER_QUERY_CALLED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+
+        try {
+            this.executionInfo.setExecuteDurationNanos(this.ticker.read() - this.startNanos);
+
+            this.executionInfo.setThread(Thread.currentThread());
+
+            this.executionInfo.setCurrentMappedResult(null);
+
+            this.executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+            this.listener.onQueryExecution(this.executionInfo);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            Operators.onErrorDropped(e, currentContext());
+        }
+    }
+
+}
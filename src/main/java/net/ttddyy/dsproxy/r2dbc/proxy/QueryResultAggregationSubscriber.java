@@ -0,0 +1,217 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Subscriber that counts mapped rows and calls aggregated query result callbacks every N rows and on
+ * completion, error, or cancel.
+ *
+ * Rows are counted on a primitive field. The ticker is read only for the first row, when callbacks are called, and
+ * when outstanding demand of the consumer reaches zero or is replenished, not for each row.
+ *
+ * Time without outstanding demand is added to {@link QueryExecutionInfo#getBackpressureStallNanos()}. A stall still in
+ * progress on termination is not counted, since the publisher does not need demand to terminate.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see FluxQueryResultAggregation
+ */
+class QueryResultAggregationSubscriber<T> implements CoreSubscriber<T>, Subscription, Scannable {
+
+    private static final AtomicIntegerFieldUpdater<QueryResultAggregationSubscriber> FINISHED =
+            AtomicIntegerFieldUpdater.newUpdater(QueryResultAggregationSubscriber.class, "finished");
+
+    private static final AtomicLongFieldUpdater<QueryResultAggregationSubscriber> DEMAND =
+            AtomicLongFieldUpdater.newUpdater(QueryResultAggregationSubscriber.class, "demand");
+
+    private static final AtomicLongFieldUpdater<QueryResultAggregationSubscriber> STALL_START_NANOS =
+            AtomicLongFieldUpdater.newUpdater(QueryResultAggregationSubscriber.class, "stallStartNanos");
+
+    private final CoreSubscriber<? super T> actual;
+
+    private final ProxyExecutionListener listener;
+
+    private final QueryExecutionInfo executionInfo;
+
+    private final Ticker ticker;
+
+    private final int interval;
+
+    private Subscription subscription;
+
+    private boolean done;
+
+    private volatile int finished;
+
+    // outstanding demand of the consumer
+    private volatile long demand;
+
+    // ticker value when demand reached zero. -1 when not stalled.
+    private volatile long stallStartNanos = -1;
+
+    QueryResultAggregationSubscriber(CoreSubscriber<? super T> actual, ProxyExecutionListener listener,
+                                     QueryExecutionInfo executionInfo, Ticker ticker, int interval) {
+        this.actual = actual;
+        this.listener = listener;
+        this.executionInfo = executionInfo;
+        this.ticker = ticker;
+        this.interval = interval;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (Operators.validate(this.subscription, s)) {
+            this.subscription = s;
+            this.actual.onSubscribe(this);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (this.done) {
+            Operators.onNextDropped(t, currentContext());
+            return;
+        }
+
+        // row count is per query execution, shared by Results of the execution
+        long rowCount = this.executionInfo.getResultRowCount() + 1;
+        this.executionInfo.setResultRowCount(rowCount);
+        if (rowCount == 1) {
+            this.executionInfo.setFirstRowNanos(elapsed());
+        }
+
+        if (this.demand != Long.MAX_VALUE && DEMAND.decrementAndGet(this) == 0) {
+            stallStarted();
+        }
+
+        if (this.interval > 0 && rowCount % this.interval == 0) {
+            try {
+                aggregatedQueryResult(null);
+            } catch (Throwable e) {
+                onError(Operators.onOperatorError(this.subscription, e, t, currentContext()));
+                return;
+            }
+        }
+
+        this.actual.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (this.done) {
+            Operators.onErrorDropped(t, currentContext());
+            return;
+        }
+        this.done = true;
+
+        finish(t);
+        this.actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        if (this.done) {
+            return;
+        }
+        this.done = true;
+
+        finish(null);
+        this.actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+        if (Operators.validate(n) && Operators.addCap(DEMAND, this, n) == 0) {
+            stallEnded();
+        }
+        this.subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        this.subscription.cancel();
+        finish(null);
+    }
+
+    @Override
+    public Context currentContext() {
+        return this.actual.currentContext();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Object scanUnsafe(Attr key) {
+        if (key == Attr.PARENT) {
+            return this.subscription;
+        } else if (key == Attr.ACTUAL) {
+            return this.actual;
+        } else if (key == Attr.TERMINATED) {
+            return this.done;
+        } else if (key == Attr.CANCELLED) {
+            return !this.done && this.finished == 1;
+        }
+        return null;
+    }
+
+    private void stallStarted() {
+        long now = this.ticker.read();
+        this.stallStartNanos = now;
+        // demand may have been replenished before the start is recorded
+        if (this.demand > 0) {
+            STALL_START_NANOS.compareAndSet(this, now, -1);
+        }
+    }
+
+    private void stallEnded() {
+        long start = STALL_START_NANOS.getAndSet(this, -1);
+        if (start >= 0) {
+            long stalled = this.ticker.read() - start;
+            this.executionInfo.setBackpressureStallNanos(this.executionInfo.getBackpressureStallNanos() + stalled);
+        }
+    }
+
+    private long elapsed() {
+        return this.ticker.read() - this.executionInfo.getExecuteStartNanos();
+    }
+
+    /**
+     * Call the last aggregated query result callback only once, regardless of completion, error, or cancel.
+     */
+    private void finish(Throwable throwable) {
+        if (!FINISHED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+
+        try {
+            aggregatedQueryResult(throwable);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            Operators.onErrorDropped(e, currentContext());
+        }
+    }
+
+    private void aggregatedQueryResult(Throwable throwable) {
+        // time of the last row is taken when callback is called, instead of reading the ticker for each row
+        if (this.executionInfo.getResultRowCount() > 0) {
+            this.executionInfo.setLastRowNanos(elapsed());
+        }
+        this.executionInfo.setCurrentMappedResult(null);
+        this.executionInfo.setThrowable(throwable);
+        this.executionInfo.setProxyEventType(ProxyEventType.AGGREGATED_QUERY_RESULT);
+        this.executionInfo.setThread(Thread.currentThread());
+
+        this.listener.aggregatedQueryResult(this.executionInfo);
+    }
+
+}
@@ -33,20 +33,37 @@ public class ReactiveBatchCallback extends CallbackSupport {
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // kind of the method and invoker for the target are resolved by a single lookup
+        MethodHandleMethodInvoker.ResolvedMethod resolvedMethod = MethodHandleMethodInvoker.resolve(method, this.batch.getClass());
+        return invoke(proxy, method, resolvedMethod.getProxyMethod(), args, resolvedMethod.getInvoker());
+    }
+
+    /**
+     * Invoke the method with a {@link MethodInvoker} that calls the target directly.
+     *
+     * @see CallbackSupport#invokeTarget(Method, MethodInvoker, Object, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args, MethodInvoker invoker) throws Throwable {
+        return invoke(proxy, method, ProxyMethod.of(method), args, invoker);
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Method, Object[], MethodInvoker)} but with already resolved {@link ProxyMethod}.
+     */
+    Object invoke(Object proxy, Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) throws Throwable {
 
-        String methodName = method.getName();
 
-        if ("getTarget".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.GET_TARGET) {
             return this.batch;
-        } else if ("getOriginalConnection".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.GET_ORIGINAL_CONNECTION) {
             return this.connectionInfo.getOriginalConnection();
         }
 
-        Object result = proceedExecution(method, this.batch, args, this.proxyConfig.getListeners(), this.connectionInfo, null, null);
+        Object result = proceedExecution(method, proxyMethod, invoker, this.batch, args, this.proxyConfig.getListeners(), this.connectionInfo, null, null);
 
-        if ("add".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.ADD) {
             this.queries.add((String) args[0]);
-        } else if ("execute".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.EXECUTE) {
 
             List<QueryInfo> queryInfoList = this.queries.stream()
                     .map(QueryInfo::new)
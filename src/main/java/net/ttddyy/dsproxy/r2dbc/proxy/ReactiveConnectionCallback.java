@@ -26,42 +26,59 @@ public class ReactiveConnectionCallback extends CallbackSupport {
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // kind of the method and invoker for the target are resolved by a single lookup
+        MethodHandleMethodInvoker.ResolvedMethod resolvedMethod = MethodHandleMethodInvoker.resolve(method, this.connection.getClass());
+        return invoke(proxy, method, resolvedMethod.getProxyMethod(), args, resolvedMethod.getInvoker());
+    }
+
+    /**
+     * Invoke the method with a {@link MethodInvoker} that calls the target directly.
+     *
+     * @see CallbackSupport#invokeTarget(Method, MethodInvoker, Object, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args, MethodInvoker invoker) throws Throwable {
+        return invoke(proxy, method, ProxyMethod.of(method), args, invoker);
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Method, Object[], MethodInvoker)} but with already resolved {@link ProxyMethod}.
+     */
+    Object invoke(Object proxy, Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) throws Throwable {
 
-        String methodName = method.getName();
 
-        if ("getTarget".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.GET_TARGET) {
             return this.connection;
-        } else if ("getOriginalConnection".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.GET_ORIGINAL_CONNECTION) {
             return this.connection;
         }
 
         Consumer<MethodExecutionInfo> onComplete = null;
 
         // since these methods return Publisher<Void> pass the callback for doOnComplete().
-        if ("beginTransaction".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.BEGIN_TRANSACTION) {
             onComplete = executionInfo -> {
                 executionInfo.getConnectionInfo().incrementTransactionCount();
             };
-        } else if ("commitTransaction".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.COMMIT_TRANSACTION) {
             onComplete = executionInfo -> {
                 executionInfo.getConnectionInfo().incrementCommitCount();
             };
-        } else if ("rollbackTransaction".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.ROLLBACK_TRANSACTION) {
             onComplete = executionInfo -> {
                 executionInfo.getConnectionInfo().incrementRollbackCount();
             };
-        } else if ("close".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.CLOSE) {
             onComplete = executionInfo -> {
                 executionInfo.getConnectionInfo().setClosed(true);
             };
         }
         // TODO: createSavepoint, releaseSavepoint, rollbackTransactionToSavepoint
 
-        Object result = proceedExecution(method, this.connection, args, this.proxyConfig.getListeners(), this.connectionInfo, null, onComplete);
+        Object result = proceedExecution(method, proxyMethod, invoker, this.connection, args, this.proxyConfig.getListeners(), this.connectionInfo, null, onComplete);
 
-        if ("createBatch".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.CREATE_BATCH) {
             return this.proxyConfig.getProxyFactory().createBatch((Batch) result, this.connectionInfo);
-        } else if ("createStatement".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.CREATE_STATEMENT) {
             String query = (String) args[0];
             return this.proxyConfig.getProxyFactory().createStatement((Statement) result, query, this.connectionInfo);
         }
@@ -23,15 +23,32 @@ public class ReactiveConnectionFactoryCallback extends CallbackSupport {
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // kind of the method and invoker for the target are resolved by a single lookup
+        MethodHandleMethodInvoker.ResolvedMethod resolvedMethod = MethodHandleMethodInvoker.resolve(method, this.connectionFactory.getClass());
+        return invoke(proxy, method, resolvedMethod.getProxyMethod(), args, resolvedMethod.getInvoker());
+    }
+
+    /**
+     * Invoke the method with a {@link MethodInvoker} that calls the target directly.
+     *
+     * @see CallbackSupport#invokeTarget(Method, MethodInvoker, Object, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args, MethodInvoker invoker) throws Throwable {
+        return invoke(proxy, method, ProxyMethod.of(method), args, invoker);
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Method, Object[], MethodInvoker)} but with already resolved {@link ProxyMethod}.
+     */
+    Object invoke(Object proxy, Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) throws Throwable {
 
-        String methodName = method.getName();
 
-        if ("getTarget".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.GET_TARGET) {
             return this.connectionFactory;
         }
 
         BiFunction<Object, MethodExecutionInfo, Object> onMap = null;
-        if ("create".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.CREATE) {
 
             // callback for creating connection proxy
             onMap = (resultObj, executionInfo) -> {
@@ -54,7 +71,7 @@ public class ReactiveConnectionFactoryCallback extends CallbackSupport {
 
         }
 
-        Object result = proceedExecution(method, this.connectionFactory, args, this.proxyConfig.getListeners(), null, onMap, null);
+        Object result = proceedExecution(method, proxyMethod, invoker, this.connectionFactory, args, this.proxyConfig.getListeners(), null, onMap, null);
         return result;
     }
 
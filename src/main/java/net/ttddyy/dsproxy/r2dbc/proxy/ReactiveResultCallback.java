@@ -3,9 +3,11 @@ package net.ttddyy.dsproxy.r2dbc.proxy;
 import io.r2dbc.spi.Result;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,25 +29,70 @@ public class ReactiveResultCallback extends CallbackSupport {
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // kind of the method and invoker for the target are resolved by a single lookup
+        MethodHandleMethodInvoker.ResolvedMethod resolvedMethod = MethodHandleMethodInvoker.resolve(method, this.result.getClass());
+        return invoke(proxy, method, resolvedMethod.getProxyMethod(), args, resolvedMethod.getInvoker());
+    }
+
+    /**
+     * Invoke the method with a {@link MethodInvoker} that calls the target directly.
+     *
+     * @see CallbackSupport#invokeTarget(Method, MethodInvoker, Object, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args, MethodInvoker invoker) throws Throwable {
+        return invoke(proxy, method, ProxyMethod.of(method), args, invoker);
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Method, Object[], MethodInvoker)} but with already resolved {@link ProxyMethod}.
+     */
+    @SuppressWarnings("unchecked")
+    Object invoke(Object proxy, Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) throws Throwable {
 
-        String methodName = method.getName();
         ConnectionInfo connectionInfo = this.queryExecutionInfo.getConnectionInfo();
 
-        if ("getTarget".equals(methodName)) {  // for ProxyObject
+        if (proxyMethod == ProxyMethod.GET_TARGET) {  // for ProxyObject
             return this.result;
-        } else if ("getOriginalConnection".equals(methodName)) {  // for ConnectionHolder
+        } else if (proxyMethod == ProxyMethod.GET_ORIGINAL_CONNECTION) {  // for ConnectionHolder
             return connectionInfo.getOriginalConnection();
         }
 
 
-        Object invocationResult = proceedExecution(method, this.result, args, this.proxyConfig.getListeners(), connectionInfo, null, null);
+        Object invocationResult = proceedExecution(method, proxyMethod, invoker, this.result, args, this.proxyConfig.getListeners(), connectionInfo, null, null);
 
-        if ("map".equals(methodName)) {
+        ProxyExecutionListener listeners = this.proxyConfig.getListeners();
+
+        if (proxyMethod == ProxyMethod.GET_ROWS_UPDATED && isQueryExecutionListened(listeners)) {
+            // record updated count per Result
+            // keep Mono as Mono, so that callers can still treat it as Mono
+            return Mono.from((Publisher<Integer>) invocationResult)
+                    .doOnNext(this.queryExecutionInfo::addRowsUpdatedCount);
+        }
+
+        // result callbacks are not needed for executions not sampled
+        if (proxyMethod != ProxyMethod.MAP || !this.queryExecutionInfo.isSampled()) {
+            return invocationResult;
+        }
+
+        boolean eachQueryResultListened = isEachQueryResultListened(listeners);
+        boolean aggregatedQueryResultListened = isAggregatedQueryResultListened(listeners);
+        if (!eachQueryResultListened && !aggregatedQueryResultListened) {
+            return invocationResult;
+        }
+
+        Flux<?> flux = Flux.from((Publisher<?>) invocationResult);
+
+        // aggregate first, so that rows are counted before "listener#eachQueryResult()"
+        if (aggregatedQueryResultListened) {
+            flux = aggregateQueryResult(flux);
+        }
+
+        if (eachQueryResultListened) {
 
             AtomicInteger resultCount = new AtomicInteger(0);
 
             // add logic to call "listener#eachQueryResult()"
-            return Flux.from((Publisher<?>) invocationResult)
+            flux = flux
                     .doOnEach(signal -> {
 
                         boolean proceed = signal.isOnNext() || signal.isOnError();
@@ -72,10 +119,7 @@ public class ReactiveResultCallback extends CallbackSupport {
 
                         this.queryExecutionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
 
-                        String threadName = Thread.currentThread().getName();
-                        long threadId = Thread.currentThread().getId();
-                        this.queryExecutionInfo.setThreadName(threadName);
-                        this.queryExecutionInfo.setThreadId(threadId);
+                        this.queryExecutionInfo.setThread(Thread.currentThread());
 
                         // callback
                         this.proxyConfig.getListeners().eachQueryResult(this.queryExecutionInfo);
@@ -84,9 +128,16 @@ public class ReactiveResultCallback extends CallbackSupport {
 
         }
 
+        return flux;
 
-        return invocationResult;
+    }
 
+    /**
+     * Add logic to call "listener#aggregatedQueryResult()" every N rows and at the end of the result.
+     */
+    private <T> Flux<T> aggregateQueryResult(Flux<T> flux) {
+        return new FluxQueryResultAggregation<>(flux, this.proxyConfig.getListeners(), this.queryExecutionInfo,
+                this.ticker, this.proxyConfig.getQueryResultAggregationInterval());
     }
 
 }
@@ -3,9 +3,8 @@ package net.ttddyy.dsproxy.r2dbc.proxy;
 import io.r2dbc.spi.Result;
 import io.r2dbc.spi.Statement;
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue;
-import net.ttddyy.dsproxy.r2dbc.core.BindingValue.NullBindingValue;
-import net.ttddyy.dsproxy.r2dbc.core.BindingValue.SimpleBindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.Bindings;
+import net.ttddyy.dsproxy.r2dbc.core.BindingsSummary;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.ExecutionType;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
@@ -31,65 +30,81 @@ public class ReactiveStatementCallback extends CallbackSupport {
     private ConnectionInfo connectionInfo;
     private String query;
 
-    private List<Bindings> bindings = new ArrayList<>();
+    private BindingCapturePolicy bindingCapturePolicy;
+
+    // bind operations captured into Bindings only when read. See QueryInfo#setBindingsCapture()
+    private List<PendingBind> pendingBinds = new ArrayList<>();
     private int currentBindingsIndex = 0;
+    private int bindingsSize = 0;  // num of rows with bound values, including the ones not captured
 
     public ReactiveStatementCallback(Statement<?> statement, String query, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
         super(proxyConfig);
         this.statement = statement;
         this.query = query;
         this.connectionInfo = connectionInfo;
+        this.bindingCapturePolicy = proxyConfig.getBindingCapturePolicy();
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // kind of the method and invoker for the target are resolved by a single lookup
+        MethodHandleMethodInvoker.ResolvedMethod resolvedMethod = MethodHandleMethodInvoker.resolve(method, this.statement.getClass());
+        return invoke(proxy, method, resolvedMethod.getProxyMethod(), args, resolvedMethod.getInvoker());
+    }
+
+    /**
+     * Invoke the method with a {@link MethodInvoker} that calls the target directly.
+     *
+     * @see CallbackSupport#invokeTarget(Method, MethodInvoker, Object, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args, MethodInvoker invoker) throws Throwable {
+        return invoke(proxy, method, ProxyMethod.of(method), args, invoker);
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Method, Object[], MethodInvoker)} but with already resolved {@link ProxyMethod}.
+     */
+    Object invoke(Object proxy, Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) throws Throwable {
 
-        String methodName = method.getName();
 
-        if ("getTarget".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.GET_TARGET) {
             return this.statement;
-        } else if ("getOriginalConnection".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.GET_ORIGINAL_CONNECTION) {
             return this.connectionInfo.getOriginalConnection();
         }
 
-        Object result = proceedExecution(method, this.statement, args, this.proxyConfig.getListeners(), this.connectionInfo, null, null);
+        Object result = proceedExecution(method, proxyMethod, invoker, this.statement, args, this.proxyConfig.getListeners(), this.connectionInfo, null, null);
 
         // add, bind, bindNull, execute
-        if ("add".equals(methodName)) {
+        if (proxyMethod == ProxyMethod.ADD) {
             this.currentBindingsIndex++;
-        } else if ("bind".equals(methodName) || "bindNull".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.BIND || proxyMethod == ProxyMethod.BIND_NULL) {
 
-            if (this.bindings.size() <= this.currentBindingsIndex) {
-                this.bindings.add(new Bindings());
+            this.bindingsSize = this.currentBindingsIndex + 1;
+            if (this.bindingCapturePolicy.isCaptured(this.currentBindingsIndex) || this.bindingCapturePolicy.isSummarized()) {
+                this.pendingBinds.add(new PendingBind(this.currentBindingsIndex, proxyMethod, args));
             }
-            Bindings bindings = this.bindings.get(this.currentBindingsIndex);
-
-            BindingValue bindingValue;
-            if ("bind".equals(methodName)) {
-                bindingValue = new SimpleBindingValue(args[1]);
-            } else {
-                bindingValue = new NullBindingValue((Class<?>) args[1]);
-            }
-
-            if (args[0] instanceof Integer) {
-                bindings.addIndexBinding((int) args[0], bindingValue);
-            } else {
-                bindings.addIdentifierBinding(args[0], bindingValue);
-            }
-        } else if ("execute".equals(methodName)) {
+        } else if (proxyMethod == ProxyMethod.EXECUTE) {
 
             // build QueryExecutionInfo  TODO: improve
             QueryInfo queryInfo = new QueryInfo(this.query);
-            queryInfo.getBindingsList().addAll(this.bindings);
+            if (!this.pendingBinds.isEmpty()) {
+                List<PendingBind> pendingBinds = this.pendingBinds;
+                int bindingsSize = this.bindingsSize;
+                queryInfo.setBindingsCapture(info -> captureBindings(info, pendingBinds, bindingsSize));
+            }
             List<QueryInfo> queries = Stream.of(queryInfo).collect(toList());
 
             QueryExecutionInfo execInfo = new QueryExecutionInfo();
             execInfo.setType(ExecutionType.STATEMENT);
             execInfo.setQueries(queries);
-            execInfo.setBindingsSize(this.bindings.size());
+            execInfo.setBindingsSize(this.bindingsSize);
             execInfo.setMethod(method);
             execInfo.setMethodArgs(args);
             execInfo.setConnectionInfo(this.connectionInfo);
 
+            // captured values belong to this execution. start over for next execution of this statement.
+            resetBindings();
+
             // API defines "execute()" returns a publisher
             Publisher<? extends Result> publisher = (Publisher<? extends Result>) result;
 
@@ -99,4 +114,82 @@ public class ReactiveStatementCallback extends CallbackSupport {
         return result;
     }
 
+    private void resetBindings() {
+        this.pendingBinds = new ArrayList<>();
+        this.currentBindingsIndex = 0;
+        this.bindingsSize = 0;
+    }
+
+    private void captureBindings(QueryInfo queryInfo, List<PendingBind> pendingBinds, int bindingsSize) {
+        List<Bindings> bindingsList = queryInfo.getBindingsList();
+        BindingsSummary bindingsSummary = null;
+        for (PendingBind pendingBind : pendingBinds) {
+            if (this.bindingCapturePolicy.isCaptured(pendingBind.rowIndex)) {
+                while (bindingsList.size() <= pendingBind.rowIndex) {
+                    bindingsList.add(new Bindings());
+                }
+                bind(bindingsList.get(pendingBind.rowIndex), pendingBind.proxyMethod, pendingBind.args);
+            } else {
+                if (bindingsSummary == null) {
+                    bindingsSummary = new BindingsSummary();
+                }
+                if (pendingBind.proxyMethod == ProxyMethod.BIND) {
+                    bindingsSummary.recordValue(pendingBind.args[1]);
+                } else {
+                    bindingsSummary.recordNull();
+                }
+            }
+        }
+        if (bindingsSummary != null) {
+            bindingsSummary.setRowCount(bindingsSize);
+            queryInfo.setBindingsSummary(bindingsSummary);
+        }
+    }
+
+    private void bind(Bindings bindings, ProxyMethod proxyMethod, Object[] args) {
+        Object key = args[0];
+        if (proxyMethod == ProxyMethod.BIND_NULL) {
+            if (key instanceof Integer) {
+                bindings.bindIndexNull((int) key, (Class<?>) args[1]);
+            } else {
+                bindings.bindIdentifierNull(key, (Class<?>) args[1]);
+            }
+            return;
+        }
+
+        Object value = args[1];
+        Object captured = this.bindingCapturePolicy.capture(value);
+        if (captured != value) {
+            // converted by the policy
+            if (key instanceof Integer) {
+                bindings.addIndexBinding((int) key, (BindingValue) captured);
+            } else {
+                bindings.addIdentifierBinding(key, (BindingValue) captured);
+            }
+        } else if (key instanceof Integer) {
+            bindings.bindIndex((int) key, value);
+        } else {
+            bindings.bindIdentifier(key, value);
+        }
+    }
+
+    /**
+     * Arguments of a bind operation, kept until the bound values are captured.
+     */
+    private static final class PendingBind {
+
+        private final int rowIndex;
+
+        private final ProxyMethod proxyMethod;
+
+        private final Object[] args;
+
+        private PendingBind(int rowIndex, ProxyMethod proxyMethod, Object[] args) {
+            this.rowIndex = rowIndex;
+            this.proxyMethod = proxyMethod;
+            this.args = args;
+        }
+
+    }
+
 }
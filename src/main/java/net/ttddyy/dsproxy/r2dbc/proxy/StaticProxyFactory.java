@@ -0,0 +1,490 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionHolder;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import org.reactivestreams.Publisher;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.BiFunction;
+
+/**
+ * ProxyFactory using hand-written delegating classes.
+ *
+ * <p>Unlike {@link JdkProxyFactory}, proxies created by this factory do not use
+ * {@link java.lang.reflect.Proxy}. Each SPI method is implemented explicitly and invokes the target
+ * directly via {@link MethodInvoker}, while listener callbacks are performed by the same
+ * {@code Reactive*Callback} classes. The kind of each method is passed to the callbacks, so they do not look it up.
+ *
+ * <p>Proxy objects implement {@link ProxyObject}, and ones for {@link Connection}, {@link Batch},
+ * {@link Statement} and {@link Result} also implement {@link ConnectionHolder}.
+ *
+ * @author Tadaya Tsuyukubo
+ * @see JdkProxyFactory
+ */
+public class StaticProxyFactory implements ProxyFactory {
+
+    private static final Method TO_STRING_METHOD = getMethod(Object.class, "toString");
+
+    private ProxyConfig proxyConfig;
+
+    @Override
+    public void setProxyConfig(ProxyConfig proxyConfig) {
+        this.proxyConfig = proxyConfig;
+    }
+
+    @Override
+    public ConnectionFactory createConnectionFactory(ConnectionFactory connectionFactory) {
+        return new ConnectionFactoryProxy(connectionFactory, this.proxyConfig);
+    }
+
+    @Override
+    public Connection createConnection(Connection connection, ConnectionInfo connectionInfo) {
+        return new ConnectionProxy(connection, connectionInfo, this.proxyConfig);
+    }
+
+    @Override
+    public Batch<?> createBatch(Batch<?> batch, ConnectionInfo connectionInfo) {
+        return new BatchProxy(batch, connectionInfo, this.proxyConfig);
+    }
+
+    @Override
+    public Statement<?> createStatement(Statement<?> statement, String query, ConnectionInfo connectionInfo) {
+        return new StatementProxy(statement, query, connectionInfo, this.proxyConfig);
+    }
+
+    @Override
+    public Result createResult(Result result, QueryExecutionInfo queryExecutionInfo) {
+        return new ResultProxy(result, queryExecutionInfo, this.proxyConfig);
+    }
+
+    private static Method getMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        // same as JDK dynamic proxy, unchecked exceptions are thrown as is and checked ones are wrapped
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new UndeclaredThrowableException(throwable);
+    }
+
+    public static class ConnectionFactoryProxy implements ConnectionFactory, ProxyObject {
+
+        private static final Method CREATE_METHOD = getMethod(ConnectionFactory.class, "create");
+        private static final Method GET_METADATA_METHOD = getMethod(ConnectionFactory.class, "getMetadata");
+
+        private static final MethodInvoker CREATE_INVOKER = (target, args) -> ((ConnectionFactory) target).create();
+        private static final MethodInvoker GET_METADATA_INVOKER = (target, args) -> ((ConnectionFactory) target).getMetadata();
+
+        private ConnectionFactory connectionFactory;
+        private ReactiveConnectionFactoryCallback delegate;
+
+        public ConnectionFactoryProxy(ConnectionFactory connectionFactory, ProxyConfig proxyConfig) {
+            this.connectionFactory = connectionFactory;
+            this.delegate = new ReactiveConnectionFactoryCallback(connectionFactory, proxyConfig);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<? extends Connection> create() {
+            return (Publisher<? extends Connection>) invoke(CREATE_METHOD, ProxyMethod.CREATE, null, CREATE_INVOKER);
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return (ConnectionFactoryMetadata) invoke(GET_METADATA_METHOD, ProxyMethod.OTHER, null, GET_METADATA_INVOKER);
+        }
+
+        @Override
+        public Object getTarget() {
+            return this.connectionFactory;
+        }
+
+        private Object invoke(Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) {
+            try {
+                return this.delegate.invoke(this, method, proxyMethod, args, invoker);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this.connectionFactory.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.connectionFactory.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (String) invoke(TO_STRING_METHOD, ProxyMethod.TO_STRING, null, null);
+        }
+    }
+
+    public static class ConnectionProxy implements Connection, ProxyObject, ConnectionHolder {
+
+        private static final Method BEGIN_TRANSACTION_METHOD = getMethod(Connection.class, "beginTransaction");
+        private static final Method CLOSE_METHOD = getMethod(Connection.class, "close");
+        private static final Method COMMIT_TRANSACTION_METHOD = getMethod(Connection.class, "commitTransaction");
+        private static final Method CREATE_BATCH_METHOD = getMethod(Connection.class, "createBatch");
+        private static final Method CREATE_SAVEPOINT_METHOD = getMethod(Connection.class, "createSavepoint", String.class);
+        private static final Method CREATE_STATEMENT_METHOD = getMethod(Connection.class, "createStatement", String.class);
+        private static final Method RELEASE_SAVEPOINT_METHOD = getMethod(Connection.class, "releaseSavepoint", String.class);
+        private static final Method ROLLBACK_TRANSACTION_METHOD = getMethod(Connection.class, "rollbackTransaction");
+        private static final Method ROLLBACK_TRANSACTION_TO_SAVEPOINT_METHOD = getMethod(Connection.class, "rollbackTransactionToSavepoint", String.class);
+        private static final Method SET_TRANSACTION_ISOLATION_LEVEL_METHOD = getMethod(Connection.class, "setTransactionIsolationLevel", IsolationLevel.class);
+
+        private static final MethodInvoker BEGIN_TRANSACTION_INVOKER = (target, args) -> ((Connection) target).beginTransaction();
+        private static final MethodInvoker CLOSE_INVOKER = (target, args) -> ((Connection) target).close();
+        private static final MethodInvoker COMMIT_TRANSACTION_INVOKER = (target, args) -> ((Connection) target).commitTransaction();
+        private static final MethodInvoker CREATE_BATCH_INVOKER = (target, args) -> ((Connection) target).createBatch();
+        private static final MethodInvoker CREATE_SAVEPOINT_INVOKER = (target, args) -> ((Connection) target).createSavepoint((String) args[0]);
+        private static final MethodInvoker CREATE_STATEMENT_INVOKER = (target, args) -> ((Connection) target).createStatement((String) args[0]);
+        private static final MethodInvoker RELEASE_SAVEPOINT_INVOKER = (target, args) -> ((Connection) target).releaseSavepoint((String) args[0]);
+        private static final MethodInvoker ROLLBACK_TRANSACTION_INVOKER = (target, args) -> ((Connection) target).rollbackTransaction();
+        private static final MethodInvoker ROLLBACK_TRANSACTION_TO_SAVEPOINT_INVOKER = (target, args) -> ((Connection) target).rollbackTransactionToSavepoint((String) args[0]);
+        private static final MethodInvoker SET_TRANSACTION_ISOLATION_LEVEL_INVOKER = (target, args) -> ((Connection) target).setTransactionIsolationLevel((IsolationLevel) args[0]);
+
+        private Connection connection;
+        private ReactiveConnectionCallback delegate;
+
+        public ConnectionProxy(Connection connection, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            this.connection = connection;
+            this.delegate = new ReactiveConnectionCallback(connection, connectionInfo, proxyConfig);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> beginTransaction() {
+            return (Publisher<Void>) invoke(BEGIN_TRANSACTION_METHOD, ProxyMethod.BEGIN_TRANSACTION, null, BEGIN_TRANSACTION_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> close() {
+            return (Publisher<Void>) invoke(CLOSE_METHOD, ProxyMethod.CLOSE, null, CLOSE_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> commitTransaction() {
+            return (Publisher<Void>) invoke(COMMIT_TRANSACTION_METHOD, ProxyMethod.COMMIT_TRANSACTION, null, COMMIT_TRANSACTION_INVOKER);
+        }
+
+        @Override
+        public Batch<?> createBatch() {
+            return (Batch<?>) invoke(CREATE_BATCH_METHOD, ProxyMethod.CREATE_BATCH, null, CREATE_BATCH_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> createSavepoint(String name) {
+            return (Publisher<Void>) invoke(CREATE_SAVEPOINT_METHOD, ProxyMethod.OTHER, new Object[]{name}, CREATE_SAVEPOINT_INVOKER);
+        }
+
+        @Override
+        public Statement<?> createStatement(String sql) {
+            return (Statement<?>) invoke(CREATE_STATEMENT_METHOD, ProxyMethod.CREATE_STATEMENT, new Object[]{sql}, CREATE_STATEMENT_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> releaseSavepoint(String name) {
+            return (Publisher<Void>) invoke(RELEASE_SAVEPOINT_METHOD, ProxyMethod.OTHER, new Object[]{name}, RELEASE_SAVEPOINT_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> rollbackTransaction() {
+            return (Publisher<Void>) invoke(ROLLBACK_TRANSACTION_METHOD, ProxyMethod.ROLLBACK_TRANSACTION, null, ROLLBACK_TRANSACTION_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+            return (Publisher<Void>) invoke(ROLLBACK_TRANSACTION_TO_SAVEPOINT_METHOD, ProxyMethod.OTHER, new Object[]{name}, ROLLBACK_TRANSACTION_TO_SAVEPOINT_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+            return (Publisher<Void>) invoke(SET_TRANSACTION_ISOLATION_LEVEL_METHOD, ProxyMethod.OTHER, new Object[]{isolationLevel}, SET_TRANSACTION_ISOLATION_LEVEL_INVOKER);
+        }
+
+        @Override
+        public Object getTarget() {
+            return this.connection;
+        }
+
+        @Override
+        public Connection getOriginalConnection() {
+            return this.connection;
+        }
+
+        private Object invoke(Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) {
+            try {
+                return this.delegate.invoke(this, method, proxyMethod, args, invoker);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this.connection.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.connection.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (String) invoke(TO_STRING_METHOD, ProxyMethod.TO_STRING, null, null);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static class BatchProxy implements Batch, ProxyObject, ConnectionHolder {
+
+        private static final Method ADD_METHOD = getMethod(Batch.class, "add", String.class);
+        private static final Method EXECUTE_METHOD = getMethod(Batch.class, "execute");
+
+        private static final MethodInvoker ADD_INVOKER = (target, args) -> ((Batch<?>) target).add((String) args[0]);
+        private static final MethodInvoker EXECUTE_INVOKER = (target, args) -> ((Batch<?>) target).execute();
+
+        private Batch<?> batch;
+        private ConnectionInfo connectionInfo;
+        private ReactiveBatchCallback delegate;
+
+        public BatchProxy(Batch<?> batch, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            this.batch = batch;
+            this.connectionInfo = connectionInfo;
+            this.delegate = new ReactiveBatchCallback(batch, connectionInfo, proxyConfig);
+        }
+
+        @Override
+        public Batch add(String sql) {
+            return (Batch) invoke(ADD_METHOD, ProxyMethod.ADD, new Object[]{sql}, ADD_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<? extends Result> execute() {
+            return (Publisher<? extends Result>) invoke(EXECUTE_METHOD, ProxyMethod.EXECUTE, null, EXECUTE_INVOKER);
+        }
+
+        @Override
+        public Object getTarget() {
+            return this.batch;
+        }
+
+        @Override
+        public Connection getOriginalConnection() {
+            return this.connectionInfo.getOriginalConnection();
+        }
+
+        private Object invoke(Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) {
+            try {
+                return this.delegate.invoke(this, method, proxyMethod, args, invoker);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this.batch.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.batch.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (String) invoke(TO_STRING_METHOD, ProxyMethod.TO_STRING, null, null);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static class StatementProxy implements Statement, ProxyObject, ConnectionHolder {
+
+        private static final Method ADD_METHOD = getMethod(Statement.class, "add");
+        private static final Method BIND_BY_ID_METHOD = getMethod(Statement.class, "bind", Object.class, Object.class);
+        private static final Method BIND_BY_INDEX_METHOD = getMethod(Statement.class, "bind", int.class, Object.class);
+        private static final Method BIND_NULL_BY_ID_METHOD = getMethod(Statement.class, "bindNull", Object.class, Class.class);
+        private static final Method BIND_NULL_BY_INDEX_METHOD = getMethod(Statement.class, "bindNull", int.class, Class.class);
+        private static final Method EXECUTE_METHOD = getMethod(Statement.class, "execute");
+
+        private static final MethodInvoker ADD_INVOKER = (target, args) -> ((Statement<?>) target).add();
+        private static final MethodInvoker BIND_BY_ID_INVOKER = (target, args) -> ((Statement<?>) target).bind(args[0], args[1]);
+        private static final MethodInvoker BIND_BY_INDEX_INVOKER = (target, args) -> ((Statement<?>) target).bind((int) args[0], args[1]);
+        private static final MethodInvoker BIND_NULL_BY_ID_INVOKER = (target, args) -> ((Statement<?>) target).bindNull(args[0], (Class<?>) args[1]);
+        private static final MethodInvoker BIND_NULL_BY_INDEX_INVOKER = (target, args) -> ((Statement<?>) target).bindNull((int) args[0], (Class<?>) args[1]);
+        private static final MethodInvoker EXECUTE_INVOKER = (target, args) -> ((Statement<?>) target).execute();
+
+        private Statement<?> statement;
+        private ConnectionInfo connectionInfo;
+        private ReactiveStatementCallback delegate;
+
+        public StatementProxy(Statement<?> statement, String query, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            this.statement = statement;
+            this.connectionInfo = connectionInfo;
+            this.delegate = new ReactiveStatementCallback(statement, query, connectionInfo, proxyConfig);
+        }
+
+        @Override
+        public Statement add() {
+            return (Statement) invoke(ADD_METHOD, ProxyMethod.ADD, null, ADD_INVOKER);
+        }
+
+        @Override
+        public Statement bind(Object identifier, Object value) {
+            return (Statement) invoke(BIND_BY_ID_METHOD, ProxyMethod.BIND, new Object[]{identifier, value}, BIND_BY_ID_INVOKER);
+        }
+
+        @Override
+        public Statement bind(int index, Object value) {
+            return (Statement) invoke(BIND_BY_INDEX_METHOD, ProxyMethod.BIND, new Object[]{index, value}, BIND_BY_INDEX_INVOKER);
+        }
+
+        @Override
+        public Statement bindNull(Object identifier, Class type) {
+            return (Statement) invoke(BIND_NULL_BY_ID_METHOD, ProxyMethod.BIND_NULL, new Object[]{identifier, type}, BIND_NULL_BY_ID_INVOKER);
+        }
+
+        @Override
+        public Statement bindNull(int index, Class type) {
+            return (Statement) invoke(BIND_NULL_BY_INDEX_METHOD, ProxyMethod.BIND_NULL, new Object[]{index, type}, BIND_NULL_BY_INDEX_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<? extends Result> execute() {
+            return (Publisher<? extends Result>) invoke(EXECUTE_METHOD, ProxyMethod.EXECUTE, null, EXECUTE_INVOKER);
+        }
+
+        @Override
+        public Object getTarget() {
+            return this.statement;
+        }
+
+        @Override
+        public Connection getOriginalConnection() {
+            return this.connectionInfo.getOriginalConnection();
+        }
+
+        private Object invoke(Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) {
+            try {
+                return this.delegate.invoke(this, method, proxyMethod, args, invoker);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this.statement.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.statement.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (String) invoke(TO_STRING_METHOD, ProxyMethod.TO_STRING, null, null);
+        }
+    }
+
+    public static class ResultProxy implements Result, ProxyObject, ConnectionHolder {
+
+        private static final Method GET_ROWS_UPDATED_METHOD = getMethod(Result.class, "getRowsUpdated");
+        private static final Method MAP_METHOD = getMethod(Result.class, "map", BiFunction.class);
+
+        private static final MethodInvoker GET_ROWS_UPDATED_INVOKER = (target, args) -> ((Result) target).getRowsUpdated();
+        @SuppressWarnings("unchecked")
+        private static final MethodInvoker MAP_INVOKER = (target, args) -> ((Result) target).map((BiFunction<Row, RowMetadata, ?>) args[0]);
+
+        private Result result;
+        private QueryExecutionInfo queryExecutionInfo;
+        private ReactiveResultCallback delegate;
+
+        public ResultProxy(Result result, QueryExecutionInfo queryExecutionInfo, ProxyConfig proxyConfig) {
+            this.result = result;
+            this.queryExecutionInfo = queryExecutionInfo;
+            this.delegate = new ReactiveResultCallback(result, queryExecutionInfo, proxyConfig);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<Integer> getRowsUpdated() {
+            return (Publisher<Integer>) invoke(GET_ROWS_UPDATED_METHOD, ProxyMethod.GET_ROWS_UPDATED, null, GET_ROWS_UPDATED_INVOKER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> f) {
+            return (Publisher<T>) invoke(MAP_METHOD, ProxyMethod.MAP, new Object[]{f}, MAP_INVOKER);
+        }
+
+        @Override
+        public Object getTarget() {
+            return this.result;
+        }
+
+        @Override
+        public Connection getOriginalConnection() {
+            return this.queryExecutionInfo.getConnectionInfo().getOriginalConnection();
+        }
+
+        private Object invoke(Method method, ProxyMethod proxyMethod, Object[] args, MethodInvoker invoker) {
+            try {
+                return this.delegate.invoke(this, method, proxyMethod, args, invoker);
+            } catch (Throwable throwable) {
+                throw propagate(throwable);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this.result.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.result.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (String) invoke(TO_STRING_METHOD, ProxyMethod.TO_STRING, null, null);
+        }
+    }
+
+}
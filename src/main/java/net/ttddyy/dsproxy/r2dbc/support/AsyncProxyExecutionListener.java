@@ -0,0 +1,404 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link ProxyExecutionListener} that calls the delegate listener on a dedicated thread.
+ *
+ * Events are put into a bounded ring buffer and the delegate is called from a consumer thread, so that slow
+ * listeners do not hold up the threads performing database I/O. When the buffer is full, events are handled
+ * by {@link OverflowPolicy}.
+ *
+ * Since execution infos are modified by proxies while the delegate processes events, the delegate receives
+ * a detached copy({@link QueryExecutionInfo#QueryExecutionInfo(QueryExecution)},
+ * {@link MethodExecutionInfo#MethodExecutionInfo(MethodExecution)}) taken at the time of the event.
+ * Changes made by the delegate, such as custom values, are kept only on the copy.
+ *
+ * Call {@link #close()} to process remaining events and stop the consumer thread.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class AsyncProxyExecutionListener implements ProxyExecutionListener, AutoCloseable {
+
+    /**
+     * How to handle events when buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the event.
+         */
+        DROP,
+        /**
+         * Wait until buffer has space. Caller thread is blocked, parking with exponential backoff.
+         *
+         * Listeners are usually called on I/O threads of the driver(event loops). Blocking them stalls I/O of all
+         * connections served by the thread, so use this only when events must not be lost and the delegate keeps up.
+         */
+        BLOCK,
+        /**
+         * Once buffer is more than half full, accept one event per {@link #setSampleInterval(int) sample interval}
+         * and discard others. Discard the event when buffer is full.
+         */
+        SAMPLE
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final long MIN_BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static final long MAX_BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ProxyExecutionListener delegate;
+
+    private final Set<ProxyEventType> listenedEventTypes;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final RingBuffer buffer;
+
+    private final Thread consumer;
+
+    private final AtomicLongArray droppedCounts = new AtomicLongArray(ProxyEventType.values().length);
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private volatile int sampleInterval = 10;
+
+    private volatile boolean consumerWaiting;
+
+    private volatile boolean closed;
+
+    // set by the consumer thread before the final drain
+    private volatile boolean terminated;
+
+    // serializes polling once the consumer thread is terminating
+    private final Object terminationLock = new Object();
+
+    public static AsyncProxyExecutionListener of(ProxyExecutionListener delegate) {
+        return new AsyncProxyExecutionListener(delegate, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * @param delegate       listener to call on consumer thread
+     * @param bufferSize     number of events the buffer holds. Rounded up to power of two.
+     * @param overflowPolicy how to handle events when buffer is full
+     */
+    public AsyncProxyExecutionListener(ProxyExecutionListener delegate, int bufferSize, OverflowPolicy overflowPolicy) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.delegate = delegate;
+        this.listenedEventTypes = EnumSet.noneOf(ProxyEventType.class);
+        this.listenedEventTypes.addAll(delegate.getListenedEventTypes());
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = new RingBuffer(bufferSize);
+
+        this.consumer = new Thread(this::consume, "dsproxy-r2dbc-async-listener");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void onMethodExecution(MethodExecutionInfo executionInfo) {
+        ProxyEventType eventType = executionInfo.getProxyEventType();
+        if (this.listenedEventTypes.contains(eventType)) {
+            publish(eventType, new MethodExecutionInfo(executionInfo));
+        }
+    }
+
+    @Override
+    public void onQueryExecution(QueryExecutionInfo executionInfo) {
+        ProxyEventType eventType = executionInfo.getProxyEventType();
+        if (this.listenedEventTypes.contains(eventType)) {
+            publish(eventType, new QueryExecutionInfo(executionInfo));
+        }
+    }
+
+    @Override
+    public void eachQueryResult(QueryExecutionInfo execInfo) {
+        if (this.listenedEventTypes.contains(ProxyEventType.EACH_QUERY_RESULT)) {
+            publish(ProxyEventType.EACH_QUERY_RESULT, new QueryExecutionInfo(execInfo));
+        }
+    }
+
+    @Override
+    public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+        if (this.listenedEventTypes.contains(ProxyEventType.AGGREGATED_QUERY_RESULT)) {
+            publish(ProxyEventType.AGGREGATED_QUERY_RESULT, new QueryExecutionInfo(execInfo));
+        }
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.copyOf(this.listenedEventTypes);
+    }
+
+    private void publish(ProxyEventType eventType, Object event) {
+        if (this.closed) {
+            drop(eventType);
+            return;
+        }
+
+        OverflowPolicy policy = this.overflowPolicy;
+        if (policy == OverflowPolicy.SAMPLE && this.buffer.size() > this.buffer.capacity() / 2) {
+            if (this.sampleCounter.getAndIncrement() % this.sampleInterval != 0) {
+                drop(eventType);
+                return;
+            }
+        }
+
+        long parkNanos = MIN_BLOCK_PARK_NANOS;
+        while (!this.buffer.offer(event)) {
+            if (policy != OverflowPolicy.BLOCK || this.closed) {
+                drop(eventType);
+                return;
+            }
+            signalConsumer();
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos * 2, MAX_BLOCK_PARK_NANOS);
+        }
+
+        if (this.terminated) {
+            // passed the closed check before close(), but offered after the consumer thread finished draining
+            discardRemaining();
+            return;
+        }
+        signalConsumer();
+    }
+
+    private void discardRemaining() {
+        synchronized (this.terminationLock) {
+            Object event;
+            while ((event = this.buffer.poll()) != null) {
+                drop(getEventType(event));
+            }
+        }
+    }
+
+    private static ProxyEventType getEventType(Object event) {
+        if (event instanceof MethodExecutionInfo) {
+            return ((MethodExecutionInfo) event).getProxyEventType();
+        }
+        return ((QueryExecutionInfo) event).getProxyEventType();
+    }
+
+    private void drop(ProxyEventType eventType) {
+        this.droppedCounts.incrementAndGet(eventType.ordinal());
+    }
+
+    private void signalConsumer() {
+        if (this.consumerWaiting) {
+            LockSupport.unpark(this.consumer);
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            Object event = this.buffer.poll();
+            if (event != null) {
+                dispatch(event);
+                continue;
+            }
+            if (this.closed) {
+                while ((event = this.buffer.poll()) != null) {
+                    dispatch(event);
+                }
+                // Publishers may still be in the middle of offering. Ones that offered before seeing "terminated"
+                // are dispatched here, and ones seeing it discard the remaining events by themselves.
+                this.terminated = true;
+                synchronized (this.terminationLock) {
+                    while ((event = this.buffer.poll()) != null) {
+                        dispatch(event);
+                    }
+                }
+                return;
+            }
+
+            this.consumerWaiting = true;
+            // Re-check after flagging to not miss a signal. Publishers advance the tail then read the flag, thus
+            // either the tail is seen here or the publisher unparks this thread. close() always unparks.
+            if (this.buffer.isEmpty() && !this.closed) {
+                LockSupport.park(this);
+            }
+            this.consumerWaiting = false;
+        }
+    }
+
+    private void dispatch(Object event) {
+        try {
+            if (event instanceof MethodExecutionInfo) {
+                this.delegate.onMethodExecution((MethodExecutionInfo) event);
+            } else {
+                QueryExecutionInfo queryExecutionInfo = (QueryExecutionInfo) event;
+                if (queryExecutionInfo.getProxyEventType() == ProxyEventType.EACH_QUERY_RESULT) {
+                    this.delegate.eachQueryResult(queryExecutionInfo);
+                } else if (queryExecutionInfo.getProxyEventType() == ProxyEventType.AGGREGATED_QUERY_RESULT) {
+                    this.delegate.aggregatedQueryResult(queryExecutionInfo);
+                } else {
+                    this.delegate.onQueryExecution(queryExecutionInfo);
+                }
+            }
+        } catch (Throwable ex) {
+            // keep consuming. let the handler decide what to do with the error.
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+        }
+    }
+
+    /**
+     * Stop accepting events, process buffered events, then stop the consumer thread.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.consumer);
+        if (Thread.currentThread() != this.consumer) {
+            try {
+                this.consumer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Number of events discarded by {@link OverflowPolicy} or after closed, including ones published while closing
+     * that arrived after the consumer thread stopped.
+     *
+     * @return total number of discarded events
+     */
+    public long getDroppedCount() {
+        long count = 0;
+        for (int i = 0; i < this.droppedCounts.length(); i++) {
+            count += this.droppedCounts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Number of discarded events for the event type.
+     *
+     * @param eventType event type
+     * @return number of discarded events
+     */
+    public long getDroppedCount(ProxyEventType eventType) {
+        return this.droppedCounts.get(eventType.ordinal());
+    }
+
+    /**
+     * Number of events waiting in the buffer.
+     *
+     * @return number of buffered events
+     */
+    public int getBufferedCount() {
+        return this.buffer.size();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    public int getSampleInterval() {
+        return this.sampleInterval;
+    }
+
+    /**
+     * Set the interval for {@link OverflowPolicy#SAMPLE}.
+     *
+     * @param sampleInterval accept one event per this number of events
+     */
+    public void setSampleInterval(int sampleInterval) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("sampleInterval must be positive");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Bounded multi-producer single-consumer ring buffer.
+     *
+     * Each slot has a sequence that tells whether the slot is ready for producers or the consumer
+     * (D. Vyukov's bounded queue). Producers claim a slot with CAS on the tail. Only one thread at a time
+     * moves the head.
+     */
+    private static final class RingBuffer {
+
+        private final int mask;
+
+        private final AtomicReferenceArray<Object> elements;
+
+        private final AtomicLongArray sequences;
+
+        private final AtomicLong tail = new AtomicLong();
+
+        private volatile long head;
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(requestedCapacity, 2) - 1) << 1;
+            this.mask = capacity - 1;
+            this.elements = new AtomicReferenceArray<>(capacity);
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                this.sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Object element) {
+            while (true) {
+                long position = this.tail.get();
+                int index = (int) position & this.mask;
+                long diff = this.sequences.get(index) - position;
+                if (diff == 0) {
+                    if (this.tail.compareAndSet(position, position + 1)) {
+                        this.elements.lazySet(index, element);
+                        this.sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (diff < 0) {
+                    return false;  // full
+                }
+                // else another producer claimed the slot, retry
+            }
+        }
+
+        Object poll() {
+            long position = this.head;
+            int index = (int) position & this.mask;
+            if (this.sequences.get(index) - (position + 1) < 0) {
+                return null;  // empty or producer has not finished writing
+            }
+            Object element = this.elements.get(index);
+            this.elements.lazySet(index, null);
+            this.head = position + 1;
+            this.sequences.set(index, position + this.mask + 1);
+            return element;
+        }
+
+        boolean isEmpty() {
+            return this.tail.get() == this.head;
+        }
+
+        int size() {
+            return (int) Math.max(0, this.tail.get() - this.head);
+        }
+
+        int capacity() {
+            return this.mask + 1;
+        }
+
+    }
+
+}
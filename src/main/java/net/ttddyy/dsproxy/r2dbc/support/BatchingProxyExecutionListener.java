@@ -0,0 +1,285 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link ProxyExecutionListener} that collects completed query and method executions and passes them to sinks
+ * as a {@link List}.
+ *
+ * Collected executions are flushed when the number of executions reaches the batch size, or when the flush interval
+ * has passed. Sinks are called on a dedicated thread with immutable snapshots({@link QueryExecution},
+ * {@link MethodExecution}) of execution infos. Remaining executions are passed to sinks on the thread calling
+ * {@link #close()} after the dedicated thread stopped, thus sinks are never called concurrently.
+ *
+ * Number of executions waiting to be passed to sinks is bounded. When the bound is reached, executions are dropped
+ * and counted.
+ *
+ * <pre>{@code
+ * BatchingProxyExecutionListener listener =
+ *     BatchingProxyExecutionListener.forQueries(100, Duration.ofSeconds(1), executions -> exporter.export(executions));
+ * ProxyConnectionFactoryBuilder.create(connectionFactory).listener(listener).build();
+ * }</pre>
+ *
+ * Call {@link #close()} to flush remaining executions and stop the thread.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class BatchingProxyExecutionListener implements ProxyExecutionListener, AutoCloseable {
+
+    private final int batchSize;
+
+    private final int maxPendingSize;
+
+    private final Batch<QueryExecution> queryBatch;
+
+    private final Batch<MethodExecution> methodBatch;
+
+    private final Set<ProxyEventType> listenedEventTypes = EnumSet.noneOf(ProxyEventType.class);
+
+    private final ScheduledExecutorService executor;
+
+    // executions accepted but not yet passed to sinks
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public static BatchingProxyExecutionListener forQueries(int batchSize, Duration flushInterval, Consumer<List<QueryExecution>> querySink) {
+        return new BatchingProxyExecutionListener(batchSize, flushInterval, defaultMaxPendingSize(batchSize), querySink, null);
+    }
+
+    public static BatchingProxyExecutionListener forMethods(int batchSize, Duration flushInterval, Consumer<List<MethodExecution>> methodSink) {
+        return new BatchingProxyExecutionListener(batchSize, flushInterval, defaultMaxPendingSize(batchSize), null, methodSink);
+    }
+
+    private static int defaultMaxPendingSize(int batchSize) {
+        return (int) Math.min(batchSize * 4L, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param batchSize      number of executions to flush at once
+     * @param flushInterval  interval to flush collected executions regardless of the batch size
+     * @param maxPendingSize max number of executions waiting for sinks. Executions exceeding this are dropped.
+     * @param querySink      sink for query executions({@code afterQuery}). {@code null} not to collect queries.
+     * @param methodSink     sink for method executions({@code afterMethod}). {@code null} not to collect methods.
+     */
+    public BatchingProxyExecutionListener(int batchSize, Duration flushInterval, int maxPendingSize,
+                                          Consumer<List<QueryExecution>> querySink,
+                                          Consumer<List<MethodExecution>> methodSink) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (maxPendingSize < batchSize) {
+            throw new IllegalArgumentException("maxPendingSize must be equal or greater than batchSize");
+        }
+        long flushIntervalNanos = flushInterval.toNanos();
+        if (flushIntervalNanos <= 0) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+
+        this.batchSize = batchSize;
+        this.maxPendingSize = maxPendingSize;
+        this.queryBatch = querySink != null ? new Batch<>(querySink) : null;
+        this.methodBatch = methodSink != null ? new Batch<>(methodSink) : null;
+        if (this.queryBatch != null) {
+            this.listenedEventTypes.add(ProxyEventType.AFTER_QUERY);
+        }
+        if (this.methodBatch != null) {
+            this.listenedEventTypes.add(ProxyEventType.AFTER_METHOD);
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dsproxy-r2dbc-batching-listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::emitAll, flushIntervalNanos, flushIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        if (this.queryBatch != null) {
+            collect(this.queryBatch, execInfo.snapshot());
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionInfo executionInfo) {
+        if (this.methodBatch != null) {
+            collect(this.methodBatch, executionInfo.snapshot());
+        }
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.copyOf(this.listenedEventTypes);
+    }
+
+    private <T> void collect(Batch<T> batch, T executionInfo) {
+        if (this.closed) {
+            this.droppedCount.incrementAndGet();
+            return;
+        }
+        if (this.pendingCount.incrementAndGet() > this.maxPendingSize) {
+            this.pendingCount.decrementAndGet();
+            this.droppedCount.incrementAndGet();
+            return;
+        }
+
+        List<T> full = batch.add(executionInfo, this.batchSize);
+        if (this.closed) {
+            // Passed the closed check before close(), but the final drain of close() may have already run.
+            // Executions added before "closed" is set are drained by close(), and others are discarded here.
+            if (full != null) {
+                discard(full);
+            }
+            discard(batch.drain());
+            return;
+        }
+        if (full != null) {
+            try {
+                this.executor.execute(() -> emit(batch, full));
+            } catch (RejectedExecutionException ex) {
+                // closed while collecting
+                discard(full);
+            }
+        }
+    }
+
+    private void discard(List<?> executionInfos) {
+        this.pendingCount.addAndGet(-executionInfos.size());
+        this.droppedCount.addAndGet(executionInfos.size());
+    }
+
+    /**
+     * Pass all collected executions to sinks on the dedicated thread.
+     *
+     * This method does not wait for sinks. Does nothing after closed.
+     */
+    public void flush() {
+        try {
+            this.executor.execute(this::emitAll);
+        } catch (RejectedExecutionException ex) {
+            // closed. remaining executions are passed on close.
+        }
+    }
+
+    private void emitAll() {
+        if (this.queryBatch != null) {
+            emit(this.queryBatch, this.queryBatch.drain());
+        }
+        if (this.methodBatch != null) {
+            emit(this.methodBatch, this.methodBatch.drain());
+        }
+    }
+
+    private <T> void emit(Batch<T> batch, List<T> executionInfos) {
+        if (executionInfos.isEmpty()) {
+            return;
+        }
+        try {
+            batch.sink.accept(executionInfos);
+        } catch (Throwable ex) {
+            // keep the scheduled flush running. let the handler decide what to do with the error.
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+        } finally {
+            this.pendingCount.addAndGet(-executionInfos.size());
+        }
+    }
+
+    /**
+     * Stop collecting executions, and pass remaining executions to sinks.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        emitAll();
+    }
+
+    /**
+     * Number of executions dropped because the number of pending executions reached the max, or after closed.
+     * Executions collected concurrently with {@link #close()} are either passed to sinks or counted here.
+     *
+     * @return number of dropped executions
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Number of executions collected but not yet passed to sinks.
+     *
+     * @return number of pending executions
+     */
+    public int getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public int getMaxPendingSize() {
+        return this.maxPendingSize;
+    }
+
+    private static final class Batch<T> {
+
+        private final Consumer<List<T>> sink;
+
+        private List<T> elements = new ArrayList<>();
+
+        Batch(Consumer<List<T>> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * @return collected elements when reached the batch size, otherwise {@code null}
+         */
+        synchronized List<T> add(T element, int batchSize) {
+            this.elements.add(element);
+            if (this.elements.size() < batchSize) {
+                return null;
+            }
+            List<T> full = this.elements;
+            this.elements = new ArrayList<>(batchSize);
+            return full;
+        }
+
+        synchronized List<T> drain() {
+            List<T> drained = this.elements;
+            if (!drained.isEmpty()) {
+                this.elements = new ArrayList<>();
+            }
+            return drained;
+        }
+
+    }
+
+}
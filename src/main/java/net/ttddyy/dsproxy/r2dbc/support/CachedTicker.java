@@ -0,0 +1,49 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Ticker} that returns cached time updated periodically by a background thread.
+ *
+ * Reading time is a volatile read, at the cost of precision. Durations are measured in the unit of
+ * the given resolution.
+ * Call {@link #close()} to stop the background thread. After closed, it keeps returning the last time.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class CachedTicker implements Ticker, AutoCloseable {
+
+    private final ScheduledExecutorService executor;
+
+    private volatile long nanos = System.nanoTime();
+
+    public CachedTicker(Duration resolution) {
+        long resolutionNanos = resolution.toNanos();
+        if (resolutionNanos <= 0) {
+            throw new IllegalArgumentException("resolution must be positive");
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dsproxy-r2dbc-cached-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(() -> this.nanos = System.nanoTime(), resolutionNanos, resolutionNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long read() {
+        return this.nanos;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,164 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.concurrent.Queues;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * {@link ProxyExecutionListener} that publishes executions as hot {@link Flux}.
+ *
+ * Method executions and query executions are multicast to subscribers of {@link #getMethodExecutions()} and
+ * {@link #getQueryExecutions()}. Each flux is backed by a processor with a bounded buffer. When subscribers do not
+ * keep up and the buffer is full, executions are dropped and counted. Subscribers can apply reactor operators such as
+ * {@code onBackpressureBuffer()}, {@code bufferTimeout()}, or {@code groupBy()}.
+ *
+ * Executions are published as immutable snapshots({@link QueryExecution}, {@link MethodExecution}), which are taken
+ * only while the flux has subscribers and room in the buffer. Executions without subscribers are dropped and counted
+ * as well.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class FluxProxyExecutionListener implements ProxyExecutionListener {
+
+    public static final int DEFAULT_BUFFER_SIZE = Queues.SMALL_BUFFER_SIZE;
+
+    private final Set<ProxyEventType> listenedEventTypes;
+
+    private final EmitterProcessor<MethodExecution> methodProcessor;
+
+    private final EmitterProcessor<QueryExecution> queryProcessor;
+
+    private final FluxSink<MethodExecution> methodSink;
+
+    private final FluxSink<QueryExecution> querySink;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Publish before/after method and before/after query executions.
+     *
+     * @return listener
+     */
+    public static FluxProxyExecutionListener create() {
+        return new FluxProxyExecutionListener(DEFAULT_BUFFER_SIZE, EnumSet.of(ProxyEventType.BEFORE_METHOD,
+                ProxyEventType.AFTER_METHOD, ProxyEventType.BEFORE_QUERY, ProxyEventType.AFTER_QUERY));
+    }
+
+    /**
+     * @param bufferSize buffer size of each processor
+     * @param eventTypes event types to publish. Query flux publishes {@link ProxyEventType#EACH_QUERY_RESULT}
+     *                   and {@link ProxyEventType#AGGREGATED_QUERY_RESULT} when they are included.
+     */
+    public FluxProxyExecutionListener(int bufferSize, Set<ProxyEventType> eventTypes) {
+        this.listenedEventTypes = EnumSet.noneOf(ProxyEventType.class);
+        this.listenedEventTypes.addAll(eventTypes);
+
+        // keep processors alive when subscribers come and go
+        this.methodProcessor = EmitterProcessor.create(bufferSize, false);
+        this.queryProcessor = EmitterProcessor.create(bufferSize, false);
+        this.methodSink = createSink(this.methodProcessor);
+        this.querySink = createSink(this.queryProcessor);
+    }
+
+    /**
+     * Create a serialized sink that feeds the processor.
+     *
+     * Sink for {@link FluxSink.OverflowStrategy#DROP} discards executions silently. Instead, ignore the demand in the
+     * sink and drop executions that the processor has not requested in {@link Flux#onBackpressureDrop}, which counts
+     * them.
+     */
+    private <T> FluxSink<T> createSink(EmitterProcessor<T> processor) {
+        AtomicReference<FluxSink<T>> sinkHolder = new AtomicReference<>();
+        Flux.<T>create(sinkHolder::set, FluxSink.OverflowStrategy.IGNORE)
+                .onBackpressureDrop(dropped -> this.droppedCount.incrementAndGet())
+                .subscribe(processor);
+        return sinkHolder.get();
+    }
+
+    @Override
+    public void onMethodExecution(MethodExecutionInfo executionInfo) {
+        if (this.listenedEventTypes.contains(executionInfo.getProxyEventType())) {
+            publish(this.methodProcessor, this.methodSink, executionInfo, MethodExecutionInfo::snapshot);
+        }
+    }
+
+    @Override
+    public void onQueryExecution(QueryExecutionInfo executionInfo) {
+        if (this.listenedEventTypes.contains(executionInfo.getProxyEventType())) {
+            publish(this.queryProcessor, this.querySink, executionInfo, QueryExecutionInfo::snapshot);
+        }
+    }
+
+    @Override
+    public void eachQueryResult(QueryExecutionInfo execInfo) {
+        if (this.listenedEventTypes.contains(ProxyEventType.EACH_QUERY_RESULT)) {
+            publish(this.queryProcessor, this.querySink, execInfo, QueryExecutionInfo::snapshot);
+        }
+    }
+
+    @Override
+    public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+        if (this.listenedEventTypes.contains(ProxyEventType.AGGREGATED_QUERY_RESULT)) {
+            publish(this.queryProcessor, this.querySink, execInfo, QueryExecutionInfo::snapshot);
+        }
+    }
+
+    private <I, T> void publish(EmitterProcessor<T> processor, FluxSink<T> sink, I executionInfo,
+                                Function<I, T> snapshotFunction) {
+        // take a snapshot only when it can be emitted
+        if (processor.downstreamCount() == 0 || processor.getPending() >= processor.getBufferSize()) {
+            this.droppedCount.incrementAndGet();
+            return;
+        }
+
+        // sink is serialized. executions beyond the demand, taken by other threads after the check above, are
+        // dropped and counted by the sink.
+        sink.next(snapshotFunction.apply(executionInfo));
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.copyOf(this.listenedEventTypes);
+    }
+
+    /**
+     * Hot flux of method executions.
+     *
+     * @return flux of before and after method executions
+     */
+    public Flux<MethodExecution> getMethodExecutions() {
+        return this.methodProcessor;
+    }
+
+    /**
+     * Hot flux of query executions.
+     *
+     * @return flux of before and after query executions, and each query result when listened
+     */
+    public Flux<QueryExecution> getQueryExecutions() {
+        return this.queryProcessor;
+    }
+
+    /**
+     * Number of executions dropped because there were no subscribers or subscribers did not keep up.
+     *
+     * @return number of dropped executions
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+}
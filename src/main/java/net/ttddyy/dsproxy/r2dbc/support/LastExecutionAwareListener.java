@@ -16,6 +16,7 @@ public class LastExecutionAwareListener implements ProxyExecutionListener {
     private QueryExecutionInfo beforeQueryExecutionInfo;
     private QueryExecutionInfo afterQueryExecutionInfo;
     private QueryExecutionInfo eachQueryResultExecutionInfo;
+    private QueryExecutionInfo aggregatedQueryResultExecutionInfo;
     private MethodExecutionInfo beforeMethodExecutionInfo;
     private MethodExecutionInfo afterMethodExecutionInfo;
 
@@ -34,6 +35,11 @@ public class LastExecutionAwareListener implements ProxyExecutionListener {
         this.eachQueryResultExecutionInfo = execInfo;
     }
 
+    @Override
+    public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+        this.aggregatedQueryResultExecutionInfo = execInfo;
+    }
+
     @Override
     public void beforeMethod(MethodExecutionInfo executionInfo) {
         this.beforeMethodExecutionInfo = executionInfo;
@@ -56,6 +62,10 @@ public class LastExecutionAwareListener implements ProxyExecutionListener {
         return eachQueryResultExecutionInfo;
     }
 
+    public QueryExecutionInfo getAggregatedQueryResultExecutionInfo() {
+        return aggregatedQueryResultExecutionInfo;
+    }
+
     public MethodExecutionInfo getBeforeMethodExecutionInfo() {
         return beforeMethodExecutionInfo;
     }
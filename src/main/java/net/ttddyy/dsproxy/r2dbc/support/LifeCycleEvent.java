@@ -0,0 +1,159 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Before and after callbacks on {@link LifeCycleListener} for each SPI method.
+ *
+ * Invoked methods are resolved to this once and cached.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+enum LifeCycleEvent {
+
+    // ConnectionFactory
+    CREATE_ON_CONNECTION_FACTORY(ConnectionFactory.class, "create",
+            LifeCycleListener::beforeCreateOnConnectionFactory, LifeCycleListener::afterCreateOnConnectionFactory),
+    GET_METADATA_ON_CONNECTION_FACTORY(ConnectionFactory.class, "getMetadata",
+            LifeCycleListener::beforeGetMetadataOnConnectionFactory, LifeCycleListener::afterGetMetadataOnConnectionFactory),
+
+    // Connection
+    BEGIN_TRANSACTION_ON_CONNECTION(Connection.class, "beginTransaction",
+            LifeCycleListener::beforeBeginTransactionOnConnection, LifeCycleListener::afterBeginTransactionOnConnection),
+    CLOSE_ON_CONNECTION(Connection.class, "close",
+            LifeCycleListener::beforeCloseOnConnection, LifeCycleListener::afterCloseOnConnection),
+    COMMIT_TRANSACTION_ON_CONNECTION(Connection.class, "commitTransaction",
+            LifeCycleListener::beforeCommitTransactionOnConnection, LifeCycleListener::afterCommitTransactionOnConnection),
+    CREATE_BATCH_ON_CONNECTION(Connection.class, "createBatch",
+            LifeCycleListener::beforeCreateBatchOnConnection, LifeCycleListener::afterCreateBatchOnConnection),
+    CREATE_SAVEPOINT_ON_CONNECTION(Connection.class, "createSavepoint",
+            LifeCycleListener::beforeCreateSavepointOnConnection, LifeCycleListener::afterCreateSavepointOnConnection),
+    CREATE_STATEMENT_ON_CONNECTION(Connection.class, "createStatement",
+            LifeCycleListener::beforeCreateStatementOnConnection, LifeCycleListener::afterCreateStatementOnConnection),
+    RELEASE_SAVEPOINT_ON_CONNECTION(Connection.class, "releaseSavepoint",
+            LifeCycleListener::beforeReleaseSavepointOnConnection, LifeCycleListener::afterReleaseSavepointOnConnection),
+    ROLLBACK_TRANSACTION_ON_CONNECTION(Connection.class, "rollbackTransaction",
+            LifeCycleListener::beforeRollbackTransactionOnConnection, LifeCycleListener::afterRollbackTransactionOnConnection),
+    ROLLBACK_TRANSACTION_TO_SAVEPOINT_ON_CONNECTION(Connection.class, "rollbackTransactionToSavepoint",
+            LifeCycleListener::beforeRollbackTransactionToSavepointOnConnection, LifeCycleListener::afterRollbackTransactionToSavepointOnConnection),
+    SET_TRANSACTION_ISOLATION_LEVEL_ON_CONNECTION(Connection.class, "setTransactionIsolationLevel",
+            LifeCycleListener::beforeSetTransactionIsolationLevelOnConnection, LifeCycleListener::afterSetTransactionIsolationLevelOnConnection),
+
+    // Batch
+    ADD_ON_BATCH(Batch.class, "add",
+            LifeCycleListener::beforeAddOnBatch, LifeCycleListener::afterAddOnBatch),
+    EXECUTE_ON_BATCH(Batch.class, "execute",
+            LifeCycleListener::beforeExecuteOnBatch, LifeCycleListener::afterExecuteOnBatch),
+
+    // Statement
+    ADD_ON_STATEMENT(Statement.class, "add",
+            LifeCycleListener::beforeAddOnStatement, LifeCycleListener::afterAddOnStatement),
+    BIND_ON_STATEMENT(Statement.class, "bind",
+            LifeCycleListener::beforeBindOnStatement, LifeCycleListener::afterBindOnStatement),
+    BIND_NULL_ON_STATEMENT(Statement.class, "bindNull",
+            LifeCycleListener::beforeBindNullOnStatement, LifeCycleListener::afterBindNullOnStatement),
+    EXECUTE_ON_STATEMENT(Statement.class, "execute",
+            LifeCycleListener::beforeExecuteOnStatement, LifeCycleListener::afterExecuteOnStatement),
+
+    // Result
+    GET_ROWS_UPDATED_ON_RESULT(Result.class, "getRowsUpdated",
+            LifeCycleListener::beforeGetRowsUpdatedOnResult, LifeCycleListener::afterGetRowsUpdatedOnResult),
+    MAP_ON_RESULT(Result.class, "map",
+            LifeCycleListener::beforeMapOnResult, LifeCycleListener::afterMapOnResult),
+
+    /**
+     * Methods that do not have corresponding callbacks.
+     */
+    NONE(null, null, (listener, executionInfo) -> {
+    }, (listener, executionInfo) -> {
+    });
+
+    private static final Class<?>[] SPI_CLASSES = {ConnectionFactory.class, Connection.class, Batch.class, Statement.class, Result.class};
+
+    private static final Map<Method, LifeCycleEvent> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        // precompute for methods declared on SPI
+        for (Class<?> spiClass : SPI_CLASSES) {
+            for (Method method : spiClass.getDeclaredMethods()) {
+                CACHE.put(method, findEvent(spiClass, method.getName()));
+            }
+        }
+    }
+
+    private final Class<?> spiClass;
+
+    private final String methodName;
+
+    private final BiConsumer<LifeCycleListener, MethodExecutionInfo> beforeCallback;
+
+    private final BiConsumer<LifeCycleListener, MethodExecutionInfo> afterCallback;
+
+    LifeCycleEvent(Class<?> spiClass, String methodName,
+                   BiConsumer<LifeCycleListener, MethodExecutionInfo> beforeCallback,
+                   BiConsumer<LifeCycleListener, MethodExecutionInfo> afterCallback) {
+        this.spiClass = spiClass;
+        this.methodName = methodName;
+        this.beforeCallback = beforeCallback;
+        this.afterCallback = afterCallback;
+    }
+
+    void before(LifeCycleListener listener, MethodExecutionInfo executionInfo) {
+        this.beforeCallback.accept(listener, executionInfo);
+    }
+
+    void after(LifeCycleListener listener, MethodExecutionInfo executionInfo) {
+        this.afterCallback.accept(listener, executionInfo);
+    }
+
+    static LifeCycleEvent of(Method method) {
+        LifeCycleEvent event = CACHE.get(method);
+        if (event == null) {
+            event = resolve(method);
+            CACHE.put(method, event);
+        }
+        return event;
+    }
+
+    /**
+     * Resolve a method declared on other than SPI classes, such as driver implementation classes, to the SPI method
+     * it implements.
+     */
+    private static LifeCycleEvent resolve(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        for (Class<?> spiClass : SPI_CLASSES) {
+            if (!spiClass.isAssignableFrom(declaringClass)) {
+                continue;
+            }
+            try {
+                Method spiMethod = spiClass.getMethod(method.getName(), method.getParameterTypes());
+                if (spiMethod.getDeclaringClass() == spiClass) {
+                    return findEvent(spiClass, spiMethod.getName());
+                }
+            } catch (NoSuchMethodException ex) {
+                // not a SPI method
+            }
+        }
+        return NONE;
+    }
+
+    private static LifeCycleEvent findEvent(Class<?> spiClass, String methodName) {
+        for (LifeCycleEvent event : values()) {
+            if (event.spiClass == spiClass && event.methodName.equals(methodName)) {
+                return event;
+            }
+        }
+        return NONE;
+    }
+
+}
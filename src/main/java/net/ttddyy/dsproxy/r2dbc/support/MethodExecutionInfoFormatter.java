@@ -5,6 +5,7 @@ import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -25,7 +26,7 @@ public class MethodExecutionInfoFormatter implements Function<MethodExecutionInf
     // Default consumer to format the MethodExecutionInfo
     private BiConsumer<MethodExecutionInfo, StringBuilder> defaultConsumer = (executionInfo, sb) -> {
         long seq = this.sequenceNumber.getAndIncrement();
-        long executionTime = executionInfo.getExecuteDuration().toMillis();
+        long executionTime = TimeUnit.NANOSECONDS.toMillis(executionInfo.getExecuteDurationNanos());
         String targetClass = executionInfo.getTarget().getClass().getSimpleName();
         String methodName = executionInfo.getMethod().getName();
         long threadId = executionInfo.getThreadId();
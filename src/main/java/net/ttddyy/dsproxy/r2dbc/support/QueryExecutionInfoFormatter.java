@@ -3,14 +3,18 @@ package net.ttddyy.dsproxy.r2dbc.support;
 import net.ttddyy.dsproxy.r2dbc.core.Binding;
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue.NullBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TruncatedBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TypeBindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.ExecutionType;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -72,7 +76,7 @@ public class QueryExecutionInfoFormatter implements Function<QueryExecutionInfo,
      */
     private BiConsumer<QueryExecutionInfo, StringBuilder> onTime = (executionInfo, sb) -> {
         sb.append("Time:");
-        sb.append(executionInfo.getExecuteDuration().toMillis());
+        sb.append(TimeUnit.NANOSECONDS.toMillis(executionInfo.getExecuteDurationNanos()));
     };
 
     /**
@@ -125,6 +129,17 @@ public class QueryExecutionInfoFormatter implements Function<QueryExecutionInfo,
             sb.append("null(");
             sb.append(type.getSimpleName());
             sb.append(")");
+        } else if (bindingValue instanceof TypeBindingValue) {
+            sb.append("(");
+            sb.append(((TypeBindingValue) bindingValue).getType().getSimpleName());
+            sb.append(")");
+        } else if (bindingValue instanceof TruncatedBindingValue) {
+            TruncatedBindingValue truncated = (TruncatedBindingValue) bindingValue;
+            Object value = truncated.getValue();
+            sb.append(value instanceof byte[] ? Arrays.toString((byte[]) value) : value);
+            sb.append("...(");
+            sb.append(truncated.getOriginalSize());
+            sb.append(")");
         } else {
             sb.append(bindingValue.getValue());
         }
@@ -175,23 +190,23 @@ public class QueryExecutionInfoFormatter implements Function<QueryExecutionInfo,
         List<QueryInfo> queries = executionInfo.getQueries();
         if (!queries.isEmpty()) {
             String s = queries.stream()
-                    .map(QueryInfo::getBindingsList)
-                    .filter(bindings -> !bindings.isEmpty())
-                    .map(bindings -> bindings.stream()
-                            .map(binds -> {
-                                StringBuilder sbForBindings = new StringBuilder();
-                                SortedSet<Binding> indexBindings = binds.getIndexBindings();
-                                if (!indexBindings.isEmpty()) {
-                                    this.onIndexBindings.accept(indexBindings, sbForBindings);
-                                }
-
-                                SortedSet<Binding> identifierBindings = binds.getIdentifierBindings();
-                                if (!identifierBindings.isEmpty()) {
-                                    this.onIdentifierBindings.accept(identifierBindings, sbForBindings);
-                                }
-                                return sbForBindings.toString();
-                            })
-                            .collect(joining("),(", "(", ")")))
+                    .filter(queryInfo -> !queryInfo.getBindingsList().isEmpty() || queryInfo.getBindingsSummary() != null)
+                    .map(queryInfo -> queryInfo.getBindingsList().isEmpty() ? queryInfo.getBindingsSummary().toString() :
+                            queryInfo.getBindingsList().stream()
+                                .map(binds -> {
+                                    StringBuilder sbForBindings = new StringBuilder();
+                                    SortedSet<Binding> indexBindings = binds.getIndexBindings();
+                                    if (!indexBindings.isEmpty()) {
+                                        this.onIndexBindings.accept(indexBindings, sbForBindings);
+                                    }
+
+                                    SortedSet<Binding> identifierBindings = binds.getIdentifierBindings();
+                                    if (!identifierBindings.isEmpty()) {
+                                        this.onIdentifierBindings.accept(identifierBindings, sbForBindings);
+                                    }
+                                    return sbForBindings.toString();
+                                })
+                                .collect(joining("),(", "(", ")")))
                     .collect(joining(","));
             sb.append(s);
         }
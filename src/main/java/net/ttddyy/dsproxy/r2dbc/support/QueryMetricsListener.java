@@ -0,0 +1,282 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.LogLinearHistogram;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryFingerprinter;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ProxyExecutionListener} that records query execution durations per normalized query.
+ *
+ * Queries are normalized by {@link QueryInfo#getFingerprint()}, so that executions differ only in literals or number
+ * of {@code IN} list elements are recorded to the same {@link LogLinearHistogram}.
+ * Fingerprints are cached per query string by {@link QueryFingerprinter}, thus recording an execution of already seen
+ * single query looks up the metrics without creating the normalized query again.
+ *
+ * For executions with multiple queries, such as batch, normalized queries are joined with {@code "; "}. The joined
+ * query is built only when the combination of normalized queries is seen for the first time. Looking up the
+ * combination creates a small key per execution.
+ *
+ * When the execution reports updated rows by {@link io.r2dbc.spi.Result#getRowsUpdated()}, the total across
+ * {@link io.r2dbc.spi.Result}s is recorded to a separate histogram, to find statements that update too many rows.
+ * The histogram is created when updated rows are reported for the normalized query for the first time.
+ *
+ * Each histogram has 488 buckets and takes about 4 KB. With {@link #DEFAULT_MAX_QUERIES}, histograms take up to about
+ * 40 MB, and up to about 80 MB when all normalized queries report updated rows. Specify smaller max number of
+ * normalized queries to reduce the footprint.
+ *
+ * <pre>{@code
+ * QueryMetricsListener listener = new QueryMetricsListener();
+ * ...
+ * LogLinearHistogram.Snapshot snapshot = listener.getSnapshots().get("select * from emp where id in(?)");
+ * long p99 = snapshot.getValueAtPercentile(99);  // in nanoseconds
+ * }</pre>
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class QueryMetricsListener implements ProxyExecutionListener {
+
+    /**
+     * Default max number of normalized queries.
+     */
+    public static final int DEFAULT_MAX_QUERIES = 10_000;
+
+    private final int maxQueries;
+
+    // normalized query to metrics
+    private final Map<String, QueryMetrics> metricsByFingerprint = new ConcurrentHashMap<>();
+
+    // normalized queries of batch to metrics, so that joined normalized query is built only once per batch
+    private final Map<BatchKey, QueryMetrics> metricsByBatch = new ConcurrentHashMap<>();
+
+    public QueryMetricsListener() {
+        this(DEFAULT_MAX_QUERIES);
+    }
+
+    /**
+     * @param maxQueries max number of normalized queries. When the number of normalized queries exceeds this,
+     *                   new normalized queries are not recorded.
+     */
+    public QueryMetricsListener(int maxQueries) {
+        if (maxQueries <= 0) {
+            throw new IllegalArgumentException("maxQueries must be positive");
+        }
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        QueryMetrics metrics = getMetrics(execInfo.getQueries());
+        if (metrics == null) {
+            return;
+        }
+        metrics.histogram.record(execInfo.getExecuteDurationNanos());
+        if (!execInfo.getRowsUpdatedCounts().isEmpty()) {
+            metrics.getOrCreateRowsUpdatedHistogram().record(execInfo.getRowsUpdated());
+        }
+        if (execInfo.getThrowable() != null) {
+            metrics.errorCount.increment();
+        }
+    }
+
+    private QueryMetrics getMetrics(List<QueryInfo> queries) {
+        if (queries.isEmpty() || queries.get(0).getQuery() == null) {
+            return null;
+        }
+        if (queries.size() == 1) {
+            return getMetrics(queries.get(0).getFingerprint().getNormalizedQuery());
+        }
+
+        String[] normalizedQueries = new String[queries.size()];
+        for (int i = 0; i < normalizedQueries.length; i++) {
+            normalizedQueries[i] = queries.get(i).getFingerprint().getNormalizedQuery();
+        }
+        BatchKey batchKey = new BatchKey(normalizedQueries);
+
+        QueryMetrics metrics = this.metricsByBatch.get(batchKey);
+        if (metrics == null) {
+            metrics = getMetrics(String.join("; ", normalizedQueries));
+            if (metrics != null) {
+                this.metricsByBatch.putIfAbsent(batchKey, metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private QueryMetrics getMetrics(String fingerprint) {
+        QueryMetrics metrics = this.metricsByFingerprint.get(fingerprint);
+        if (metrics == null) {
+            if (this.metricsByFingerprint.size() >= this.maxQueries) {
+                return null;
+            }
+            metrics = this.metricsByFingerprint.computeIfAbsent(fingerprint, QueryMetrics::new);
+        }
+        return metrics;
+    }
+
+    /**
+     * @return metrics keyed by normalized query
+     */
+    public Map<String, QueryMetrics> getMetrics() {
+        return Collections.unmodifiableMap(this.metricsByFingerprint);
+    }
+
+    /**
+     * Take snapshots of all histograms.
+     *
+     * @return snapshots keyed by normalized query
+     */
+    public Map<String, LogLinearHistogram.Snapshot> getSnapshots() {
+        Map<String, LogLinearHistogram.Snapshot> snapshots = new HashMap<>();
+        this.metricsByFingerprint.forEach((fingerprint, metrics) -> snapshots.put(fingerprint, metrics.getSnapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Take snapshots of all updated rows histograms.
+     *
+     * @return snapshots keyed by normalized query. Normalized queries without updated rows are not included.
+     */
+    public Map<String, LogLinearHistogram.Snapshot> getRowsUpdatedSnapshots() {
+        Map<String, LogLinearHistogram.Snapshot> snapshots = new HashMap<>();
+        this.metricsByFingerprint.forEach((fingerprint, metrics) -> {
+            LogLinearHistogram rowsUpdatedHistogram = metrics.rowsUpdatedHistogram;
+            if (rowsUpdatedHistogram != null) {
+                snapshots.put(fingerprint, rowsUpdatedHistogram.getSnapshot());
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * Remove all recorded metrics.
+     */
+    public void reset() {
+        this.metricsByBatch.clear();
+        this.metricsByFingerprint.clear();
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.of(ProxyEventType.AFTER_QUERY);
+    }
+
+    /**
+     * Normalized queries of a batch. Normalized queries are shared by cached fingerprints, thus mostly compared by
+     * identity.
+     */
+    private static final class BatchKey {
+
+        private final String[] normalizedQueries;
+
+        private final int hash;
+
+        BatchKey(String[] normalizedQueries) {
+            this.normalizedQueries = normalizedQueries;
+            this.hash = Arrays.hashCode(normalizedQueries);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) obj;
+            return this.hash == other.hash && Arrays.equals(this.normalizedQueries, other.normalizedQueries);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * Metrics of a normalized query.
+     */
+    public static final class QueryMetrics {
+
+        private static final AtomicReferenceFieldUpdater<QueryMetrics, LogLinearHistogram> ROWS_UPDATED_HISTOGRAM =
+                AtomicReferenceFieldUpdater.newUpdater(QueryMetrics.class, LogLinearHistogram.class, "rowsUpdatedHistogram");
+
+        private static final LogLinearHistogram.Snapshot EMPTY_SNAPSHOT = new LogLinearHistogram().getSnapshot();
+
+        private final String fingerprint;
+
+        private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+        // created on first updated rows, since most queries do not report them
+        private volatile LogLinearHistogram rowsUpdatedHistogram;
+
+        private final LongAdder errorCount = new LongAdder();
+
+        QueryMetrics(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return normalized query
+         */
+        public String getFingerprint() {
+            return this.fingerprint;
+        }
+
+        /**
+         * @return histogram of execution durations in nanoseconds
+         */
+        public LogLinearHistogram getHistogram() {
+            return this.histogram;
+        }
+
+        /**
+         * @return histogram of updated rows per execution. Executions without updated rows are not recorded.
+         * {@code null} when no execution reported updated rows.
+         */
+        public LogLinearHistogram getRowsUpdatedHistogram() {
+            return this.rowsUpdatedHistogram;
+        }
+
+        private LogLinearHistogram getOrCreateRowsUpdatedHistogram() {
+            LogLinearHistogram rowsUpdatedHistogram = this.rowsUpdatedHistogram;
+            if (rowsUpdatedHistogram == null) {
+                ROWS_UPDATED_HISTOGRAM.compareAndSet(this, null, new LogLinearHistogram());
+                rowsUpdatedHistogram = this.rowsUpdatedHistogram;
+            }
+            return rowsUpdatedHistogram;
+        }
+
+        /**
+         * @return number of failed executions
+         */
+        public long getErrorCount() {
+            return this.errorCount.sum();
+        }
+
+        public LogLinearHistogram.Snapshot getSnapshot() {
+            return this.histogram.getSnapshot();
+        }
+
+        public LogLinearHistogram.Snapshot getRowsUpdatedSnapshot() {
+            LogLinearHistogram rowsUpdatedHistogram = this.rowsUpdatedHistogram;
+            return rowsUpdatedHistogram != null ? rowsUpdatedHistogram.getSnapshot() : EMPTY_SNAPSHOT;
+        }
+
+    }
+
+}
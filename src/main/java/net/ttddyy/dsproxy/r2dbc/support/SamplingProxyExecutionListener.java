@@ -0,0 +1,329 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ProxyExecutionListener} that passes only sampled query executions to the delegate listener.
+ *
+ * Sampling decision is made in two places:
+ * <ul>
+ * <li>Head sampling: decided at {@code beforeQuery} by the sampler. When sampled, {@code beforeQuery},
+ * {@code eachQueryResult}, {@code aggregatedQueryResult} and {@code afterQuery} of the execution are passed to the
+ * delegate.
+ * Otherwise, none of them are passed.</li>
+ * <li>Tail sampling: decided at {@code afterQuery}. Executions that took longer than the threshold or failed are
+ * passed to the delegate's {@code afterQuery} regardless of head sampling.</li>
+ * </ul>
+ *
+ * Executions not head sampled are marked by {@link QueryExecutionInfo#setSampled(boolean)}, so that proxies skip
+ * capturing bound values and wrapping {@code Result#map} for them. Other listeners on the same proxy do not receive
+ * each query result and aggregated query result callbacks of these executions either, and tail sampled executions are
+ * passed without bound values.
+ *
+ * Method executions are passed to the delegate as is.
+ *
+ * @author Tadaya Tsuyukubo
+ */
+public class SamplingProxyExecutionListener implements ProxyExecutionListener {
+
+    private static final String SAMPLED_KEY = SamplingProxyExecutionListener.class.getName() + ".sampled";
+
+    /**
+     * Key for per-query sampling. Queries of the execution joined with a new line.
+     */
+    public static final Function<QueryExecutionInfo, String> QUERY_KEY = executionInfo ->
+            executionInfo.getQueries().size() == 1 ? executionInfo.getQueries().get(0).getQuery() :
+                    executionInfo.getQueries().stream().map(QueryInfo::getQuery).collect(Collectors.joining("\n"));
+
+    /**
+     * Key for per-query-shape sampling. Fingerprints of queries of the execution.
+     *
+     * @see QueryInfo#getFingerprint()
+     */
+    public static final Function<QueryExecutionInfo, Object> FINGERPRINT_KEY = executionInfo ->
+            executionInfo.getQueries().size() == 1 ? executionInfo.getQueries().get(0).getFingerprint() :
+                    executionInfo.getFingerprints();
+
+    private final ProxyExecutionListener delegate;
+
+    private final Predicate<QueryExecutionInfo> sampler;
+
+    private final long slowThresholdNanos;
+
+    private final boolean sampleErrors;
+
+    private final Set<ProxyEventType> listenedEventTypes;
+
+    /**
+     * Sample executions with the given probability.
+     *
+     * @param delegate delegate listener
+     * @param ratio    probability between 0.0 and 1.0
+     * @return sampling listener
+     */
+    public static SamplingProxyExecutionListener probabilistic(ProxyExecutionListener delegate, double ratio) {
+        return new SamplingProxyExecutionListener(delegate, probabilistic(ratio), null, false);
+    }
+
+    /**
+     * Sample one execution out of every given number of executions.
+     *
+     * @param delegate delegate listener
+     * @param interval sample one per this number of executions
+     * @return sampling listener
+     */
+    public static SamplingProxyExecutionListener fixedRate(ProxyExecutionListener delegate, int interval) {
+        return new SamplingProxyExecutionListener(delegate, fixedRate(interval), null, false);
+    }
+
+    /**
+     * Sample up to the given number of executions per second for each query shape.
+     *
+     * Queries differing only in literals share the rate.
+     *
+     * @param delegate         delegate listener
+     * @param permitsPerSecond max number of sampled executions per second per query shape
+     * @return sampling listener
+     * @see #FINGERPRINT_KEY
+     */
+    public static SamplingProxyExecutionListener ratePerQuery(ProxyExecutionListener delegate, int permitsPerSecond) {
+        return new SamplingProxyExecutionListener(delegate, ratePerKey(FINGERPRINT_KEY, permitsPerSecond), null, false);
+    }
+
+    /**
+     * Pass only executions that took longer than the threshold, or failed.
+     *
+     * @param delegate  delegate listener
+     * @param threshold execution duration threshold
+     * @return sampling listener
+     */
+    public static SamplingProxyExecutionListener slowOrError(ProxyExecutionListener delegate, Duration threshold) {
+        return new SamplingProxyExecutionListener(delegate, null, threshold, true);
+    }
+
+    /**
+     * @param delegate      delegate listener
+     * @param sampler       head sampler called at {@code beforeQuery}. {@code null} to disable head sampling.
+     * @param slowThreshold executions took longer than this are passed to {@code afterQuery}.
+     *                      {@code null} to disable.
+     * @param sampleErrors  whether to pass failed executions to {@code afterQuery}
+     */
+    public SamplingProxyExecutionListener(ProxyExecutionListener delegate, Predicate<QueryExecutionInfo> sampler,
+                                          Duration slowThreshold, boolean sampleErrors) {
+        this.delegate = delegate;
+        this.sampler = sampler;
+        this.slowThresholdNanos = slowThreshold != null ? slowThreshold.toNanos() : -1;
+        this.sampleErrors = sampleErrors;
+
+        Set<ProxyEventType> delegateEventTypes = delegate.getListenedEventTypes();
+        this.listenedEventTypes = EnumSet.noneOf(ProxyEventType.class);
+        if (delegateEventTypes.contains(ProxyEventType.BEFORE_METHOD)) {
+            this.listenedEventTypes.add(ProxyEventType.BEFORE_METHOD);
+        }
+        if (delegateEventTypes.contains(ProxyEventType.AFTER_METHOD)) {
+            this.listenedEventTypes.add(ProxyEventType.AFTER_METHOD);
+        }
+        if (sampler != null) {
+            // decision is made at before query
+            this.listenedEventTypes.add(ProxyEventType.BEFORE_QUERY);
+            if (delegateEventTypes.contains(ProxyEventType.EACH_QUERY_RESULT)) {
+                this.listenedEventTypes.add(ProxyEventType.EACH_QUERY_RESULT);
+            }
+            if (delegateEventTypes.contains(ProxyEventType.AGGREGATED_QUERY_RESULT)) {
+                this.listenedEventTypes.add(ProxyEventType.AGGREGATED_QUERY_RESULT);
+            }
+        }
+        if (delegateEventTypes.contains(ProxyEventType.AFTER_QUERY)) {
+            this.listenedEventTypes.add(ProxyEventType.AFTER_QUERY);
+        }
+    }
+
+    @Override
+    public void onMethodExecution(MethodExecutionInfo executionInfo) {
+        this.delegate.onMethodExecution(executionInfo);
+    }
+
+    @Override
+    public void onQueryExecution(QueryExecutionInfo executionInfo) {
+        ProxyEventType eventType = executionInfo.getProxyEventType();
+        if (eventType == ProxyEventType.BEFORE_QUERY) {
+            if (this.sampler == null) {
+                return;
+            }
+            boolean sampled = this.sampler.test(executionInfo);
+            executionInfo.addCustomValue(SAMPLED_KEY, sampled);
+            if (sampled) {
+                this.delegate.onQueryExecution(executionInfo);
+            } else {
+                executionInfo.setSampled(false);
+            }
+        } else if (eventType == ProxyEventType.AFTER_QUERY) {
+            if (isSampled(executionInfo) || isTailSampled(executionInfo)) {
+                this.delegate.onQueryExecution(executionInfo);
+            }
+        }
+    }
+
+    @Override
+    public void eachQueryResult(QueryExecutionInfo execInfo) {
+        if (isSampled(execInfo)) {
+            this.delegate.eachQueryResult(execInfo);
+        }
+    }
+
+    @Override
+    public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+        if (isSampled(execInfo)) {
+            this.delegate.aggregatedQueryResult(execInfo);
+        }
+    }
+
+    private boolean isSampled(QueryExecutionInfo executionInfo) {
+        return Boolean.TRUE.equals(executionInfo.getCustomValue(SAMPLED_KEY, Boolean.class));
+    }
+
+    private boolean isTailSampled(QueryExecutionInfo executionInfo) {
+        if (this.sampleErrors && executionInfo.getThrowable() != null) {
+            return true;
+        }
+        return this.slowThresholdNanos >= 0 && executionInfo.getExecuteDurationNanos() >= this.slowThresholdNanos;
+    }
+
+    @Override
+    public Set<ProxyEventType> getListenedEventTypes() {
+        return EnumSet.copyOf(this.listenedEventTypes);
+    }
+
+    /**
+     * Sampler that samples executions with the given probability.
+     *
+     * @param ratio probability between 0.0 and 1.0
+     * @return sampler
+     */
+    public static Predicate<QueryExecutionInfo> probabilistic(double ratio) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("ratio must be between 0.0 and 1.0");
+        }
+        return executionInfo -> ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+    /**
+     * Sampler that samples one execution out of every given number of executions.
+     *
+     * @param interval sample one per this number of executions
+     * @return sampler
+     */
+    public static Predicate<QueryExecutionInfo> fixedRate(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        AtomicLong counter = new AtomicLong();
+        return executionInfo -> counter.getAndIncrement() % interval == 0;
+    }
+
+    /**
+     * Sampler that samples up to the given number of executions per second for each key.
+     *
+     * @param keyFunction      resolves key from execution
+     * @param permitsPerSecond max number of sampled executions per second per key
+     * @return sampler
+     */
+    public static Predicate<QueryExecutionInfo> ratePerKey(Function<QueryExecutionInfo, ?> keyFunction, int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        return new KeyRateLimiter(keyFunction, permitsPerSecond);
+    }
+
+    /**
+     * Counts executions per key in one second windows.
+     */
+    private static final class KeyRateLimiter implements Predicate<QueryExecutionInfo> {
+
+        // upper bound for number of keys to keep memory bounded
+        private static final int MAX_KEYS = 10_000;
+
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final Function<QueryExecutionInfo, ?> keyFunction;
+
+        private final int permitsPerSecond;
+
+        private final Map<Object, Window> windows = new ConcurrentHashMap<>();
+
+        KeyRateLimiter(Function<QueryExecutionInfo, ?> keyFunction, int permitsPerSecond) {
+            this.keyFunction = keyFunction;
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        @Override
+        public boolean test(QueryExecutionInfo executionInfo) {
+            Object key = this.keyFunction.apply(executionInfo);
+            long now = System.nanoTime();
+            Window window = this.windows.get(key);
+            if (window == null) {
+                if (this.windows.size() >= MAX_KEYS) {
+                    evict(now);
+                }
+                window = this.windows.computeIfAbsent(key, k -> new Window());
+            }
+            return window.tryAcquire(now, this.permitsPerSecond);
+        }
+
+        private void evict(long now) {
+            // expired windows are same as new ones, thus removing them does not affect rates
+            this.windows.values().removeIf(window -> window.isExpired(now));
+            if (this.windows.size() >= MAX_KEYS) {
+                // all keys are active. make room for the new key.
+                Iterator<Object> keys = this.windows.keySet().iterator();
+                if (keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+        }
+
+    }
+
+    private static final class Window {
+
+        private long start = System.nanoTime();
+
+        private int count;
+
+        synchronized boolean isExpired(long now) {
+            return now - this.start >= KeyRateLimiter.WINDOW_NANOS;
+        }
+
+        synchronized boolean tryAcquire(long now, int permits) {
+            if (now - this.start >= KeyRateLimiter.WINDOW_NANOS) {
+                this.start = now;
+                this.count = 0;
+            }
+            if (this.count < permits) {
+                this.count++;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
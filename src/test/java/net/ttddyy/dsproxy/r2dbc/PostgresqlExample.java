@@ -22,6 +22,7 @@ import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.Result;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
 import net.ttddyy.dsproxy.r2dbc.support.MethodExecutionInfoFormatter;
 import net.ttddyy.dsproxy.r2dbc.support.QueryExecutionInfoFormatter;
 import org.junit.jupiter.api.extension.AfterAllCallback;
@@ -66,22 +67,22 @@ final class PostgresqlExample implements Example<String> {
 
         ConnectionFactory proxyConnectionFactory =
                 ProxyConnectionFactoryBuilder.create(connectionFactory)
-                        .onAfterMethod(execInfo ->
-                                execInfo.map(methodExecutionFormatter::format)
-                                        .doOnNext(System.out::println)
-                                        .subscribe())
-                        .onEachQueryResult(result -> {
-                            result.doOnNext(executionInfo -> {
+                        .onMethodExecutions(flux ->
+                                flux.filter(execInfo -> execInfo.getProxyEventType() == ProxyEventType.AFTER_METHOD)
+                                        .map(methodExecutionFormatter::format)
+                                        .subscribe(System.out::println))
+                        .onEachQueryResults(flux -> {
+                            flux.subscribe(executionInfo -> {
                                 int currentResultCount = executionInfo.getCurrentResultCount();
                                 Object currentResult = executionInfo.getCurrentMappedResult();
 
                                 System.out.println("RESULT_NO=" + currentResultCount + " RESULT=" + currentResult);
-                            }).subscribe();
+                            });
                         })
-                        .onAfterQuery(execInfo ->
-                                execInfo.map(queryExecutionFormatter::format)
-                                        .doOnNext(System.out::println)
-                                        .subscribe())
+                        .onQueryExecutions(flux ->
+                                flux.filter(execInfo -> execInfo.getProxyEventType() == ProxyEventType.AFTER_QUERY)
+                                        .map(queryExecutionFormatter::format)
+                                        .subscribe(System.out::println))
                         .build();
 
         this.r2dbc = new R2dbc(proxyConnectionFactory);
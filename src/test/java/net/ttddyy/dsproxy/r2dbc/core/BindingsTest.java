@@ -0,0 +1,97 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.NullBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.SimpleBindingValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class BindingsTest {
+
+    @Test
+    void indexBindings() {
+        Bindings bindings = new Bindings();
+        assertTrue(bindings.isEmpty());
+
+        bindings.bindIndex(2, "c");
+        bindings.bindIndexNull(1, String.class);
+        bindings.bindIndex(0, "a");
+        bindings.bindIndex(20, "z");  // grow
+        bindings.bindIndex(2, "C");  // replace
+
+        assertEquals(4, bindings.getIndexBindingCount());
+        assertEquals(0, bindings.getIdentifierBindingCount());
+
+        SortedSet<Binding> indexBindings = bindings.getIndexBindings();
+        assertThat(indexBindings).extracting(Binding::getKey).containsExactly(0, 1, 2, 20);
+        assertThat(indexBindings).extracting(binding -> binding.getBindingValue().getValue())
+                .containsExactly("a", null, "C", "z");
+
+        List<Binding> list = new ArrayList<>(indexBindings);
+        assertThat(list.get(0).getBindingValue()).isExactlyInstanceOf(SimpleBindingValue.class);
+        assertThat(list.get(1).getBindingValue()).isExactlyInstanceOf(NullBindingValue.class);
+        assertSame(String.class, ((NullBindingValue) list.get(1).getBindingValue()).getType());
+
+        assertThrows(IllegalArgumentException.class, () -> bindings.bindIndex(-1, "a"));
+    }
+
+    @Test
+    void identifierBindings() {
+        Bindings bindings = new Bindings();
+        for (int i = 99; i >= 0; i--) {
+            bindings.bindIdentifier(String.format("$%02d", i), i);
+        }
+        bindings.bindIdentifierNull("$50", Integer.class);  // replace
+
+        assertEquals(100, bindings.getIdentifierBindingCount());
+        SortedSet<Binding> identifierBindings = bindings.getIdentifierBindings();
+        assertThat(identifierBindings).hasSize(100);
+        assertThat(identifierBindings.first().getKey()).isEqualTo("$00");
+        assertThat(identifierBindings.last().getKey()).isEqualTo("$99");
+
+        Binding replaced = identifierBindings.stream().filter(binding -> "$50".equals(binding.getKey())).findFirst().get();
+        assertThat(replaced.getBindingValue()).isExactlyInstanceOf(NullBindingValue.class);
+    }
+
+    @Test
+    void identifiersOfDifferentTypes() {
+        // identifiers that are not mutually comparable
+        Bindings bindings = new Bindings();
+        bindings.bindIdentifier("b", 1);
+        bindings.bindIdentifier(10L, 2);
+        bindings.bindIdentifier("a", 3);
+        bindings.bindIdentifier(new Object() {
+            @Override
+            public String toString() {
+                return "obj";
+            }
+        }, 4);
+
+        assertThat(bindings.getIdentifierBindings()).hasSize(4)
+                .extracting(binding -> binding.getBindingValue().getValue())
+                .containsSubsequence(3, 1);
+    }
+
+    @Test
+    void addBindingValue() {
+        Bindings bindings = new Bindings();
+        SimpleBindingValue value = new SimpleBindingValue("a");
+        bindings.addIndexBinding(0, value);
+        bindings.addIdentifierBinding("id", value);
+
+        assertSame(value, bindings.getIndexBindings().first().getBindingValue());
+        assertSame(value, bindings.getIdentifierBindings().first().getBindingValue());
+    }
+
+}
@@ -4,7 +4,18 @@ import net.ttddyy.dsproxy.r2dbc.support.LastExecutionAwareListener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Tadaya Tsuyukubo
@@ -129,5 +140,224 @@ public class CompositeProxyExecutionListenerTest {
 
     }
 
+    @Test
+    void aggregatedQueryResult() {
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AGGREGATED_QUERY_RESULT);
+
+        this.compositeListener.aggregatedQueryResult(executionInfo);
+
+        assertSame(executionInfo, this.listener1.getAggregatedQueryResultExecutionInfo());
+        assertSame(executionInfo, this.listener2.getAggregatedQueryResultExecutionInfo());
+
+    }
+
+
+    @Test
+    void isListened() {
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener();
+        for (ProxyEventType eventType : ProxyEventType.values()) {
+            assertFalse(compositeListener.isListened(eventType));
+        }
+
+        compositeListener.add(this.listener1);
+        for (ProxyEventType eventType : ProxyEventType.values()) {
+            assertTrue(compositeListener.isListened(eventType));
+        }
+
+        for (ProxyEventType eventType : ProxyEventType.values()) {
+            assertTrue(this.compositeListener.isListened(eventType));
+        }
+    }
+
+    @Test
+    void isListenedWithOverriddenMethods() {
+
+        ProxyExecutionListener afterQueryListener = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+            }
+        };
+        ProxyExecutionListener methodListener = new ProxyExecutionListener() {
+            @Override
+            public void onMethodExecution(MethodExecutionInfo executionInfo) {
+            }
+        };
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener(afterQueryListener);
+        assertThat(compositeListener.getListenedEventTypes()).containsExactly(ProxyEventType.AFTER_QUERY);
+        assertTrue(compositeListener.isListened(ProxyEventType.AFTER_QUERY));
+        assertFalse(compositeListener.isListened(ProxyEventType.BEFORE_QUERY));
+        assertFalse(compositeListener.isListened(ProxyEventType.BEFORE_METHOD));
+        assertFalse(compositeListener.isListened(ProxyEventType.EACH_QUERY_RESULT));
+
+        compositeListener.add(methodListener);
+        assertThat(compositeListener.getListenedEventTypes())
+                .containsExactlyInAnyOrder(ProxyEventType.AFTER_QUERY, ProxyEventType.BEFORE_METHOD, ProxyEventType.AFTER_METHOD);
+    }
+
+    @Test
+    void isListenedWithDeclaredEventTypes() {
+
+        ProxyExecutionListener listener = new ProxyExecutionListener() {
+            @Override
+            public void onQueryExecution(QueryExecutionInfo executionInfo) {
+            }
+
+            @Override
+            public Set<ProxyEventType> getListenedEventTypes() {
+                return EnumSet.of(ProxyEventType.AFTER_QUERY);
+            }
+        };
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener(listener);
+        assertTrue(compositeListener.isListened(ProxyEventType.AFTER_QUERY));
+        assertFalse(compositeListener.isListened(ProxyEventType.BEFORE_QUERY));
+    }
+
+    @Test
+    void remove() {
+
+        assertTrue(this.compositeListener.remove(this.listener1));
+        assertFalse(this.compositeListener.remove(this.listener1));
+        assertThat(this.compositeListener.getListeners()).containsExactly(this.listener2);
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        this.compositeListener.afterQuery(executionInfo);
+
+        assertNull(this.listener1.getAfterQueryExecutionInfo());
+        assertSame(executionInfo, this.listener2.getAfterQueryExecutionInfo());
+
+        assertTrue(this.compositeListener.remove(this.listener2));
+        assertThat(this.compositeListener.getListeners()).isEmpty();
+        for (ProxyEventType eventType : ProxyEventType.values()) {
+            assertFalse(this.compositeListener.isListened(eventType));
+        }
+    }
+
+    @Test
+    void modifyGetListeners() {
+
+        List<ProxyExecutionListener> listeners = this.compositeListener.getListeners();
+        LastExecutionAwareListener addedListener = new LastExecutionAwareListener();
+        listeners.add(addedListener);
+
+        assertThat(this.compositeListener.getListeners()).containsExactly(this.listener1, this.listener2, addedListener);
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        this.compositeListener.onQueryExecution(executionInfo);
+        assertSame(executionInfo, addedListener.getAfterQueryExecutionInfo());
+
+        assertTrue(listeners.remove(this.listener1));
+        assertThat(this.compositeListener.getListeners()).containsExactly(this.listener2, addedListener);
+
+        listeners.clear();
+        assertThat(this.compositeListener.getListeners()).isEmpty();
+        assertFalse(this.compositeListener.isListened(ProxyEventType.AFTER_QUERY));
+    }
+
+    @Test
+    void addWhileDispatching() {
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        LastExecutionAwareListener addedListener = new LastExecutionAwareListener();
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener();
+        compositeListener.add(new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                // modifying listeners during dispatch does not affect current dispatch
+                compositeListener.add(addedListener);
+            }
+        });
+
+        compositeListener.afterQuery(executionInfo);
+        assertNull(addedListener.getAfterQueryExecutionInfo());
+
+        compositeListener.afterQuery(executionInfo);
+        assertSame(executionInfo, addedListener.getAfterQueryExecutionInfo());
+    }
+
+    @Test
+    void recordStats() {
+        AtomicLong time = new AtomicLong();
+        this.compositeListener.setTicker(time::get);
+        this.compositeListener.setRecordStats(true);
+
+        ProxyExecutionListener slowListener = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                time.addAndGet(100);
+            }
+        };
+        this.compositeListener.add(slowListener);
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        this.compositeListener.onQueryExecution(executionInfo);
+        this.compositeListener.onQueryExecution(executionInfo);
+
+        // listeners are still called
+        assertSame(executionInfo, this.listener1.getAfterQueryExecutionInfo());
+
+        List<ListenerStats> stats = this.compositeListener.getListenerStats();
+        assertThat(stats).extracting(ListenerStats::getListener).containsExactly(this.listener1, this.listener2, slowListener);
+
+        ListenerStats slowListenerStats = stats.get(2);
+        assertEquals(2, slowListenerStats.getInvocationCount(ProxyEventType.AFTER_QUERY));
+        assertEquals(200, slowListenerStats.getTotalNanos(ProxyEventType.AFTER_QUERY));
+        assertEquals(200, slowListenerStats.getTotalNanos());
+        assertEquals(100, slowListenerStats.getHistogram(ProxyEventType.AFTER_QUERY).getMax());
+        assertEquals(0, slowListenerStats.getInvocationCount(ProxyEventType.BEFORE_QUERY));
+
+        assertEquals(2, stats.get(0).getInvocationCount(ProxyEventType.AFTER_QUERY));
+        assertEquals(0, stats.get(0).getTotalNanos());
+
+        // stats are kept when other listener is removed
+        this.compositeListener.remove(this.listener2);
+        assertThat(this.compositeListener.getListenerStats()).containsExactly(stats.get(0), slowListenerStats);
+
+        // stop recording
+        this.compositeListener.setRecordStats(false);
+        this.compositeListener.onQueryExecution(executionInfo);
+        assertEquals(2, slowListenerStats.getInvocationCount(ProxyEventType.AFTER_QUERY));
+    }
+
+    @Test
+    void isolateErrors() {
+        RuntimeException exception = new RuntimeException();
+        ProxyExecutionListener failingListener = new ProxyExecutionListener() {
+            @Override
+            public void beforeMethod(MethodExecutionInfo executionInfo) {
+                throw exception;
+            }
+        };
+        LastExecutionAwareListener lastListener = new LastExecutionAwareListener();
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener(failingListener, lastListener);
+
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.BEFORE_METHOD);
+
+        // default propagates
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> compositeListener.onMethodExecution(executionInfo));
+        assertSame(exception, thrown);
+        assertNull(lastListener.getBeforeMethodExecutionInfo());
+
+        compositeListener.setIsolateErrors(true);
+        compositeListener.onMethodExecution(executionInfo);
+        compositeListener.beforeMethod(executionInfo);
+
+        assertSame(executionInfo, lastListener.getBeforeMethodExecutionInfo());
+        ListenerStats stats = compositeListener.getListenerStats().get(0);
+        assertEquals(2, stats.getErrorCount(ProxyEventType.BEFORE_METHOD));
+        assertEquals(2, stats.getErrorCount());
+        assertEquals(0, compositeListener.getListenerStats().get(1).getErrorCount());
+        // not recording time
+        assertEquals(0, stats.getInvocationCount(ProxyEventType.BEFORE_METHOD));
+    }
 
 }
@@ -0,0 +1,159 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class ExecutionInfoSnapshotTest {
+
+    @Test
+    void queryExecutionInfo() throws Exception {
+        Method method = Object.class.getMethod("toString");
+        Object[] args = new Object[]{"foo"};
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+        QueryInfo queryInfo = new QueryInfo("SELECT 1");
+        Object mappedResult = new Object();
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setMethod(method);
+        executionInfo.setMethodArgs(args);
+        executionInfo.setConnectionInfo(connectionInfo);
+        executionInfo.setSuccess(true);
+        executionInfo.setBatchSize(2);
+        executionInfo.setType(ExecutionType.BATCH);
+        executionInfo.setBindingsSize(3);
+        executionInfo.setExecuteDurationNanos(100);
+        executionInfo.setThreadName("my-thread");
+        executionInfo.setThreadId(10);
+        executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+        executionInfo.setCurrentResultCount(5);
+        executionInfo.setCurrentMappedResult(mappedResult);
+        executionInfo.getQueries().add(queryInfo);
+        executionInfo.addCustomValue("foo", "FOO");
+
+        QueryExecution snapshot = executionInfo.snapshot();
+
+        // updating original doesn't affect the snapshot
+        executionInfo.setSuccess(false);
+        executionInfo.setCurrentResultCount(6);
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        executionInfo.addCustomValue("bar", "BAR");
+
+        assertNotSame(executionInfo, snapshot);
+        assertSame(method, snapshot.getMethod());
+        assertSame(args, snapshot.getMethodArgs());
+        assertSame(connectionInfo, snapshot.getConnectionInfo());
+        assertTrue(snapshot.isSuccess());
+        assertEquals(2, snapshot.getBatchSize());
+        assertEquals(ExecutionType.BATCH, snapshot.getType());
+        assertEquals(3, snapshot.getBindingsSize());
+        assertEquals(100, snapshot.getExecuteDurationNanos());
+        assertEquals(Duration.ofNanos(100), snapshot.getExecuteDuration());
+        assertEquals("my-thread", snapshot.getThreadName());
+        assertEquals(10, snapshot.getThreadId());
+        assertEquals(ProxyEventType.EACH_QUERY_RESULT, snapshot.getProxyEventType());
+        assertEquals(5, snapshot.getCurrentResultCount());
+        assertSame(mappedResult, snapshot.getCurrentMappedResult());
+        assertThat(snapshot.getQueries()).containsExactly(queryInfo);
+        assertSame(queryInfo, snapshot.getQueries().get(0));
+        assertEquals("FOO", snapshot.getCustomValue("foo", String.class));
+        assertNull(snapshot.getCustomValue("bar", String.class));
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getQueries().add(queryInfo));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getCustomValues().put("baz", "BAZ"));
+
+        // copy is modifiable without affecting the snapshot
+        QueryExecutionInfo copy = new QueryExecutionInfo(snapshot);
+        copy.setSuccess(false);
+        copy.addCustomValue("baz", "BAZ");
+        copy.getQueries().add(new QueryInfo("SELECT 2"));
+        assertTrue(snapshot.isSuccess());
+        assertEquals("FOO", copy.getCustomValue("foo", String.class));
+        assertNull(snapshot.getCustomValue("baz", String.class));
+        assertThat(snapshot.getQueries()).hasSize(1);
+        assertEquals("my-thread", copy.getThreadName());
+        assertEquals(5, copy.getCurrentResultCount());
+    }
+
+    @Test
+    void queryExecutionInfoThreadName() {
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        assertEquals("", executionInfo.snapshot().getThreadName());
+
+        Thread thread = new Thread(() -> {
+        }, "original-name");
+        executionInfo.setThread(thread);
+
+        QueryExecution snapshot = executionInfo.snapshot();
+
+        // thread name is resolved when the snapshot is created
+        thread.setName("updated-name");
+        assertEquals("original-name", snapshot.getThreadName());
+        assertEquals("updated-name", executionInfo.getThreadName());
+        assertEquals(thread.getId(), snapshot.getThreadId());
+    }
+
+    @Test
+    void methodExecutionInfo() throws Exception {
+        Method method = Object.class.getMethod("toString");
+        Object[] args = new Object[]{"foo"};
+        Object target = new Object();
+        Object result = new Object();
+        RuntimeException thrown = new RuntimeException();
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setTarget(target);
+        executionInfo.setMethod(method);
+        executionInfo.setMethodArgs(args);
+        executionInfo.setResult(result);
+        executionInfo.setThrown(thrown);
+        executionInfo.setConnectionInfo(connectionInfo);
+        executionInfo.setExecuteDurationNanos(100);
+        executionInfo.setThreadName("my-thread");
+        executionInfo.setThreadId(10);
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+
+        MethodExecution snapshot = executionInfo.snapshot();
+
+        executionInfo.setResult(null);
+        executionInfo.setProxyEventType(ProxyEventType.BEFORE_METHOD);
+
+        assertNotSame(executionInfo, snapshot);
+        assertSame(target, snapshot.getTarget());
+        assertSame(method, snapshot.getMethod());
+        assertSame(args, snapshot.getMethodArgs());
+        assertSame(result, snapshot.getResult());
+        assertSame(thrown, snapshot.getThrown());
+        assertSame(connectionInfo, snapshot.getConnectionInfo());
+        assertEquals(100, snapshot.getExecuteDurationNanos());
+        assertEquals("my-thread", snapshot.getThreadName());
+        assertEquals(10, snapshot.getThreadId());
+        assertEquals(ProxyEventType.AFTER_METHOD, snapshot.getProxyEventType());
+        assertNull(snapshot.getCustomValue("foo", String.class));
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getCustomValues().put("foo", "FOO"));
+
+        // copy is modifiable without affecting the snapshot
+        MethodExecutionInfo copy = new MethodExecutionInfo(snapshot);
+        copy.setResult(null);
+        copy.addCustomValue("foo", "FOO");
+        assertSame(result, snapshot.getResult());
+        assertNull(snapshot.getCustomValue("foo", String.class));
+        assertSame(target, copy.getTarget());
+        assertEquals(ProxyEventType.AFTER_METHOD, copy.getProxyEventType());
+    }
+
+}
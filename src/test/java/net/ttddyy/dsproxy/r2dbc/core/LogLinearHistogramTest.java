@@ -0,0 +1,131 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class LogLinearHistogramTest {
+
+    @Test
+    void bucketBounds() {
+        // every value falls into the bucket whose bounds contain it
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LogLinearHistogram.bucketIndex(value);
+            assertThat(LogLinearHistogram.lowerBound(index)).isLessThanOrEqualTo(value);
+            assertThat(LogLinearHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+        }
+
+        // relative error is at most 1/8
+        for (long value = 8; value < 100_000; value += 37) {
+            int index = LogLinearHistogram.bucketIndex(value);
+            long width = LogLinearHistogram.upperBound(index) - LogLinearHistogram.lowerBound(index) + 1;
+            assertThat((double) width / LogLinearHistogram.lowerBound(index)).isLessThanOrEqualTo(0.125);
+        }
+    }
+
+    @Test
+    void percentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(500L, 563L);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(990L, 1000L);
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    @Test
+    void negativeValue() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(-10);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void concurrentRecording() throws Exception {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                for (int j = 1; j <= 10_000; j++) {
+                    histogram.record(j);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(4L * 10_000 * 10_001 / 2, histogram.getSum());
+    }
+
+    @Test
+    void snapshot() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(10);
+        histogram.record(20);
+
+        LogLinearHistogram.Snapshot snapshot = histogram.getSnapshot();
+        histogram.record(1000);
+
+        // not affected by later recording
+        assertEquals(2, snapshot.getCount());
+        assertEquals(30, snapshot.getSum());
+        assertEquals(20, snapshot.getMax());
+        assertEquals(15.0, snapshot.getMean(), 0.001);
+        assertEquals(20, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    void mergeSnapshots() {
+        LogLinearHistogram first = new LogLinearHistogram();
+        LogLinearHistogram second = new LogLinearHistogram();
+        LogLinearHistogram all = new LogLinearHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            (i % 3 == 0 ? first : second).record(i);
+            all.record(i);
+        }
+
+        // transfer through raw values as if it came from other node
+        LogLinearHistogram.Snapshot secondSnapshot = second.getSnapshot();
+        LogLinearHistogram.Snapshot transferred = LogLinearHistogram.Snapshot.of(
+                secondSnapshot.getBucketCounts(), secondSnapshot.getSum(), secondSnapshot.getMax());
+
+        LogLinearHistogram.Snapshot merged = first.getSnapshot().merge(transferred);
+        LogLinearHistogram.Snapshot expected = all.getSnapshot();
+
+        assertEquals(expected.getCount(), merged.getCount());
+        assertEquals(expected.getSum(), merged.getSum());
+        assertEquals(expected.getMax(), merged.getMax());
+        assertThat(merged.getBucketCounts()).isEqualTo(expected.getBucketCounts());
+        assertEquals(expected.getValueAtPercentile(99.9), merged.getValueAtPercentile(99.9));
+
+        assertThrows(IllegalArgumentException.class, () -> LogLinearHistogram.Snapshot.of(new long[1], 0, 0));
+    }
+
+}
@@ -0,0 +1,156 @@
+package net.ttddyy.dsproxy.r2dbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class QueryFingerprinterTest {
+
+    @Test
+    void normalize() {
+        assertNormalized("SELECT * FROM emp WHERE id IN ($1, $2, $3) AND name = 'foo'",
+                "select * from emp where id in(?) and name = ?");
+        assertNormalized("select *   from emp\n where id = 10",
+                "select * from emp where id = ?");
+        assertNormalized("SELECT * FROM emp WHERE id = ? -- comment",
+                "select * from emp where id = ?");
+        assertNormalized("SELECT /* hint */ e.name FROM emp e",
+                "select e.name from emp e");
+        assertNormalized("SELECT * FROM emp WHERE name = 'it''s' AND salary > 1.5e3",
+                "select * from emp where name = ? and salary > ?");
+        assertNormalized("SELECT \"Name\" FROM emp WHERE id = :id",
+                "select \"Name\" from emp where id = ?");
+        assertNormalized("SELECT * FROM emp WHERE id = @id OR id = 0x1F",
+                "select * from emp where id = ? or id = ?");
+        assertNormalized("SELECT $$literal$$, $tag$x$tag$",
+                "select ?, ?");
+        assertNormalized("SELECT id::text FROM emp WHERE a <> 1",
+                "select id::text from emp where a <> ?");
+        assertNormalized("SELECT * FROM emp WHERE id IN (SELECT id FROM dept WHERE code IN ('a', 'b'))",
+                "select * from emp where id in(select id from dept where code in(?))");
+        assertNormalized("SELECT count(*) FROM emp WHERE id IN (1, name)",
+                "select count(*) from emp where id in(?, name)");
+        assertNormalized("INSERT INTO emp (id, name) VALUES (1, 'foo')",
+                "insert into emp(id, name) values(?, ?)");
+    }
+
+    @Test
+    void backslashInStringLiteral() {
+        // standard conforming strings. backslash is not an escape.
+        assertNormalized("SELECT * FROM files WHERE path = 'C:\\' AND id = 1",
+                "select * from files where path = ? and id = ?");
+        // escape string literal
+        assertNormalized("SELECT * FROM emp WHERE name = E'it\\'s' AND id = 1",
+                "select * from emp where name = ? and id = ?");
+        assertNormalized("SELECT * FROM emp WHERE name = e'a\\\\' AND id = 1",
+                "select * from emp where name = ? and id = ?");
+        // word ending with "e" is not a prefix
+        assertNormalized("SELECT name FROM emp WHERE type = 'a'",
+                "select name from emp where type = ?");
+    }
+
+    @Test
+    void negativeNumber() {
+        assertNormalized("SELECT * FROM emp WHERE x = -1", "select * from emp where x = ?");
+        assertNormalized("SELECT * FROM emp WHERE x IN (-1, -2.5, 3)", "select * from emp where x in(?)");
+        assertNormalized("SELECT -1, x FROM emp", "select ?, x from emp");
+        assertNormalized("SELECT * FROM emp WHERE x = a * -.5", "select * from emp where x = a * ?");
+
+        // binary minus is kept
+        assertNormalized("SELECT x - 1, x-1, max(x) - 1, 2 - -1 FROM emp", "select x - ?, x - ?, max(x) - ?, ? - ? from emp");
+
+        assertThat(QueryFingerprinter.create("SELECT * FROM emp WHERE x = -1"))
+                .isEqualTo(QueryFingerprinter.create("SELECT * FROM emp WHERE x = 1"));
+    }
+
+    @Test
+    void statementType() {
+        assertStatementType("SELECT * FROM emp", StatementType.SELECT);
+        assertStatementType("/* comment */ insert INTO emp VALUES (1)", StatementType.INSERT);
+        assertStatementType("UPDATE emp SET name = (SELECT name FROM dept)", StatementType.UPDATE);
+        assertStatementType("DELETE FROM emp", StatementType.DELETE);
+        assertStatementType("CREATE TABLE emp (id INT)", StatementType.DDL);
+        assertStatementType("drop table emp", StatementType.DDL);
+        assertStatementType("WITH t AS (SELECT id FROM emp) DELETE FROM emp WHERE id IN (SELECT id FROM t)", StatementType.DELETE);
+        assertStatementType("WITH RECURSIVE t(n) AS (SELECT 1) SELECT n FROM t", StatementType.SELECT);
+        assertStatementType("BEGIN", StatementType.OTHER);
+        assertStatementType("", StatementType.OTHER);
+    }
+
+    @Test
+    void turkishDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            // fresh instance not to hit cached fingerprints
+            QueryFingerprint fingerprint = new QueryFingerprinter(16).fingerprint("INSERT INTO emp VALUES (1)");
+            assertThat(fingerprint.getNormalizedQuery()).isEqualTo("insert into emp values(?)");
+            assertThat(fingerprint.getStatementType()).isEqualTo(StatementType.INSERT);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void fingerprint() {
+        QueryFingerprint first = QueryFingerprinter.create("SELECT * FROM emp WHERE id = 1");
+        QueryFingerprint second = QueryFingerprinter.create("select * from emp where id = 2");
+        QueryFingerprint other = QueryFingerprinter.create("select * from dept where id = 2");
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.getId()).isEqualTo(second.getId());
+        assertThat(first.getNormalizedQuery()).isEqualTo("select * from emp where id = ?");
+        assertThat(first).isNotEqualTo(other);
+        assertThat(first.getId()).isNotEqualTo(other.getId());
+    }
+
+    @Test
+    void cache() {
+        QueryFingerprinter fingerprinter = new QueryFingerprinter(4);
+
+        QueryFingerprint fingerprint = fingerprinter.fingerprint("SELECT 1");
+        assertThat(fingerprinter.fingerprint("SELECT 1")).isSameAs(fingerprint);
+
+        for (int i = 0; i < 10; i++) {
+            fingerprinter.fingerprint("SELECT " + i);
+            // recently used entry is kept
+            assertThat(fingerprinter.fingerprint("SELECT 1")).isSameAs(fingerprint);
+            assertThat(fingerprinter.getCachedQueryCount()).isLessThanOrEqualTo(4);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new QueryFingerprinter(1));
+    }
+
+    @Test
+    void queryInfo() {
+        QueryInfo queryInfo = new QueryInfo("SELECT * FROM emp WHERE id = 1");
+        QueryFingerprint fingerprint = queryInfo.getFingerprint();
+        assertThat(fingerprint.getNormalizedQuery()).isEqualTo("select * from emp where id = ?");
+        assertThat(fingerprint.getStatementType()).isEqualTo(StatementType.SELECT);
+
+        queryInfo.setQuery("DELETE FROM emp");
+        assertThat(queryInfo.getFingerprint().getStatementType()).isEqualTo(StatementType.DELETE);
+
+        assertThat(new QueryInfo().getFingerprint()).isNull();
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.getQueries().add(new QueryInfo("INSERT INTO emp VALUES (1)"));
+        executionInfo.getQueries().add(new QueryInfo("INSERT INTO emp VALUES (2)"));
+        assertThat(executionInfo.getFingerprints()).hasSize(2).containsOnly(QueryFingerprinter.create("insert into emp values(?)"));
+    }
+
+    private static void assertStatementType(String query, StatementType expected) {
+        assertThat(QueryFingerprinter.create(query).getStatementType()).as(query).isEqualTo(expected);
+    }
+
+    private static void assertNormalized(String query, String expected) {
+        assertThat(QueryFingerprinter.normalize(query)).as(query).isEqualTo(expected);
+    }
+
+}
@@ -16,6 +16,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.reactivestreams.Publisher;
 import org.springframework.util.ReflectionUtils;
+import reactor.core.Scannable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -27,6 +28,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -129,6 +132,34 @@ public class CallbackSupportTest {
 
     }
 
+    @Test
+    void interceptQueryExecutionRecordsFirstResult() {
+
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+
+        ProxyFactory proxyFactory = mock(ProxyFactory.class);
+        when(this.proxyConfig.getListeners()).thenReturn(new CompositeProxyExecutionListener(listener));
+        when(this.proxyConfig.getProxyFactory()).thenReturn(proxyFactory);
+        when(proxyFactory.createResult(any(), any())).thenReturn(mock(Result.class));
+
+        AtomicLong nanos = new AtomicLong(100);
+        this.callbackSupport.setTicker(() -> nanos.getAndAdd(50));
+
+        Flux<Result> publisher = Flux.just(mock(Result.class), mock(Result.class));
+        Flux<? extends Result> result = this.callbackSupport.interceptQueryExecution(publisher, executionInfo);
+
+        StepVerifier.create(result)
+                .expectNextCount(2)
+                .verifyComplete();
+
+        // start=100, first result=150, end=200
+        assertEquals(100, executionInfo.getExecuteStartNanos());
+        assertEquals(50, executionInfo.getFirstResultNanos());
+        assertEquals(100, executionInfo.getExecuteDurationNanos());
+        assertSame(executionInfo, listener.getAfterQueryExecutionInfo());
+    }
+
     @Test
     void interceptQueryExecutionWithFailure() {
 
@@ -254,6 +285,36 @@ public class CallbackSupportTest {
         assertThat(captured).hasSize(3).containsExactly(mockResult1, mockResult2, mockResult3);
     }
 
+    @Test
+    void interceptQueryExecutionWithCancel() {
+
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener(listener);
+        when(this.proxyConfig.getListeners()).thenReturn(compositeListener);
+
+        TestPublisher<Result> publisher = TestPublisher.create();
+
+        Flux<? extends Result> result = this.callbackSupport.interceptQueryExecution(publisher, executionInfo);
+
+        StepVerifier.create(result)
+                .expectSubscription()
+                .then(() -> {
+                    assertSame(executionInfo, listener.getBeforeQueryExecutionInfo());
+                    assertNull(listener.getAfterQueryExecutionInfo());
+                })
+                .thenCancel()
+                .verify();
+
+        publisher.assertCancelled();
+
+        // after query is called on cancel
+        assertSame(executionInfo, listener.getAfterQueryExecutionInfo());
+        assertEquals(ProxyEventType.AFTER_QUERY, executionInfo.getProxyEventType());
+        assertFalse(executionInfo.isSuccess());
+    }
+
     @Test
     void interceptQueryExecutionWithEmptyResult() {
 
@@ -375,6 +436,100 @@ public class CallbackSupportTest {
         assertNull(afterMethodExecution.getThrown());
     }
 
+    @Test
+    void proceedExecutionWithTicker() throws Throwable {
+
+        Method addMethod = ReflectionUtils.findMethod(Batch.class, "add", String.class);
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{"QUERY"};
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+
+        AtomicLong nanos = new AtomicLong(100);
+        this.callbackSupport.setTicker(() -> nanos.getAndAdd(50));
+
+        this.callbackSupport.proceedExecution(addMethod, target, args, listener, new ConnectionInfo(), null, null);
+
+        MethodExecutionInfo afterMethodExecution = listener.getAfterMethodExecutionInfo();
+        assertEquals(50, afterMethodExecution.getExecuteDurationNanos());
+        assertEquals(Duration.ofNanos(50), afterMethodExecution.getExecuteDuration());
+    }
+
+    @Test
+    void proceedExecutionResolvesThreadNameLazily() throws Throwable {
+
+        Method addMethod = ReflectionUtils.findMethod(Batch.class, "add", String.class);
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{"QUERY"};
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+
+        Thread thread = new Thread(() -> {
+            try {
+                this.callbackSupport.proceedExecution(addMethod, target, args, listener, new ConnectionInfo(), null, null);
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        }, "before-rename");
+        thread.start();
+        thread.join();
+
+        MethodExecutionInfo afterMethodExecution = listener.getAfterMethodExecutionInfo();
+        assertEquals(thread.getId(), afterMethodExecution.getThreadId());
+        assertEquals("before-rename", afterMethodExecution.getThreadName());
+
+        // name is read from the thread when requested
+        thread.setName("after-rename");
+        assertEquals("after-rename", afterMethodExecution.getThreadName());
+
+        // explicitly set name takes precedence
+        afterMethodExecution.setThreadName("explicit");
+        assertEquals("explicit", afterMethodExecution.getThreadName());
+    }
+
+    @Test
+    void proceedExecutionWithPublisherKeepsMono() throws Throwable {
+
+        Method executeMethod = ReflectionUtils.findMethod(Batch.class, "execute");
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{};
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+
+        Mono<Result> publisher = Mono.just(mock(Result.class));
+        when(target.execute()).thenReturn(publisher);
+
+        Object result = this.callbackSupport.proceedExecution(executeMethod, target, args, listener, new ConnectionInfo(), null, null);
+
+        assertThat(result).isInstanceOf(Mono.class);
+        assertSame(publisher, Scannable.from(result).scan(Scannable.Attr.PARENT));
+    }
+
+    @Test
+    void proceedExecutionWithPublisherCancel() throws Throwable {
+
+        Method executeMethod = ReflectionUtils.findMethod(Batch.class, "execute");
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{};
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+
+        TestPublisher<Result> publisher = TestPublisher.create();
+        when(target.execute()).thenReturn(publisher);
+
+        Object result = this.callbackSupport.proceedExecution(executeMethod, target, args, listener, new ConnectionInfo(), null, null);
+
+        StepVerifier.create((Publisher<?>) result)
+                .expectSubscription()
+                .then(() -> assertNull(listener.getAfterMethodExecutionInfo()))
+                .thenCancel()
+                .verify();
+
+        publisher.assertCancelled();
+
+        // after method is called on cancel
+        MethodExecutionInfo afterMethodExecution = listener.getAfterMethodExecutionInfo();
+        assertNotNull(afterMethodExecution);
+        assertEquals(ProxyEventType.AFTER_METHOD, afterMethodExecution.getProxyEventType());
+        assertNull(afterMethodExecution.getThrown());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     void proceedExecutionWithPublisherThrowsException() throws Throwable {
@@ -563,4 +718,85 @@ public class CallbackSupportTest {
         assertThat(result).isEqualTo(true);
     }
 
+    @Test
+    void proceedExecutionWithoutListener() throws Throwable {
+
+        Method executeMethod = ReflectionUtils.findMethod(Batch.class, "execute");
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{};
+        CompositeProxyExecutionListener listener = new CompositeProxyExecutionListener();
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+
+        Mono<Result> publisher = Mono.just(mock(Result.class));
+        when(target.execute()).thenReturn(publisher);
+
+        // no onMap nor onComplete, publisher from target is returned as is
+        Object result = this.callbackSupport.proceedExecution(executeMethod, target, args, listener, connectionInfo, null, null);
+        assertSame(publisher, result);
+
+        // add a listener at runtime
+        LastExecutionAwareListener lastExecutionAwareListener = new LastExecutionAwareListener();
+        listener.add(lastExecutionAwareListener);
+
+        result = this.callbackSupport.proceedExecution(executeMethod, target, args, listener, connectionInfo, null, null);
+        assertThat(result).isNotSameAs(publisher);
+
+        StepVerifier.create((Publisher<?>) result)
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertNotNull(lastExecutionAwareListener.getAfterMethodExecutionInfo());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void proceedExecutionWithoutListenerAppliesOnMapAndOnComplete() throws Throwable {
+
+        Method executeMethod = ReflectionUtils.findMethod(Batch.class, "execute");
+        Batch target = mock(Batch.class);
+        Object[] args = new Object[]{};
+        CompositeProxyExecutionListener listener = new CompositeProxyExecutionListener();
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+
+        Result mockResult = mock(Result.class);
+        Result mappedResult = mock(Result.class);
+        when(target.execute()).thenReturn(Mono.just(mockResult));
+
+        AtomicReference<MethodExecutionInfo> onCompleteHolder = new AtomicReference<>();
+
+        Object result = this.callbackSupport.proceedExecution(executeMethod, target, args, listener, connectionInfo,
+                (resultObj, executionInfo) -> mappedResult, onCompleteHolder::set);
+
+        StepVerifier.create((Publisher<Result>) result)
+                .expectNext(mappedResult)
+                .verifyComplete();
+
+        MethodExecutionInfo executionInfo = onCompleteHolder.get();
+        assertNotNull(executionInfo);
+        assertSame(mockResult, executionInfo.getResult());
+        assertSame(connectionInfo, executionInfo.getConnectionInfo());
+    }
+
+    @Test
+    void interceptQueryExecutionWithoutListener() {
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        ProxyFactory proxyFactory = mock(ProxyFactory.class);
+
+        when(this.proxyConfig.getListeners()).thenReturn(new CompositeProxyExecutionListener());
+        when(this.proxyConfig.getProxyFactory()).thenReturn(proxyFactory);
+
+        Result mockResultProxy = mock(Result.class);
+        when(proxyFactory.createResult(any(), any())).thenReturn(mockResultProxy);
+
+        Flux<? extends Result> result = this.callbackSupport.interceptQueryExecution(Mono.just(mock(Result.class)), executionInfo);
+
+        // results are still wrapped by proxy
+        StepVerifier.create(result)
+                .consumeNextWith(c -> assertSame(mockResultProxy, c))
+                .verifyComplete();
+
+        assertNull(executionInfo.getProxyEventType());
+    }
+
 }
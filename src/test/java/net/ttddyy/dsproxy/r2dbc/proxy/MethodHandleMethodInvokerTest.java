@@ -0,0 +1,100 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class MethodHandleMethodInvokerTest {
+
+    @Test
+    void invoke() throws Throwable {
+        Statement<?> statement = mock(Statement.class);
+        Statement<?> returned = mock(Statement.class);
+        when(statement.bind(1, (Object) 100)).thenReturn((Statement) returned);
+
+        Method bindMethod = ReflectionUtils.findMethod(Statement.class, "bind", int.class, Object.class);
+        MethodInvoker invoker = MethodHandleMethodInvoker.of(bindMethod, statement.getClass());
+
+        Object result = invoker.invoke(statement, new Object[]{1, 100});
+
+        assertSame(returned, result);
+        verify(statement).bind(1, (Object) 100);
+    }
+
+    @Test
+    void invokeWithNoArgs() throws Throwable {
+        Object target = new Object();
+
+        Method hashCodeMethod = ReflectionUtils.findMethod(Object.class, "hashCode");
+        MethodInvoker invoker = MethodHandleMethodInvoker.of(hashCodeMethod, target.getClass());
+
+        assertThat(invoker.invoke(target, null)).isEqualTo(target.hashCode());
+        assertThat(invoker.invoke(target, new Object[0])).isEqualTo(target.hashCode());
+    }
+
+    @Test
+    void invokeOnNonPublicClass() throws Throwable {
+        NonPublicBatch batch = new NonPublicBatch();
+
+        Method addMethod = ReflectionUtils.findMethod(Batch.class, "add", String.class);
+        MethodInvoker invoker = MethodHandleMethodInvoker.of(addMethod, batch.getClass());
+
+        assertSame(batch, invoker.invoke(batch, new Object[]{"QUERY"}));
+        assertThat(batch.query).isEqualTo("QUERY");
+    }
+
+    @Test
+    void exceptionIsNotWrapped() {
+        Batch<?> batch = mock(Batch.class);
+        RuntimeException exception = new RuntimeException();
+        when(batch.add("QUERY")).thenThrow(exception);
+
+        Method addMethod = ReflectionUtils.findMethod(Batch.class, "add", String.class);
+        MethodInvoker invoker = MethodHandleMethodInvoker.of(addMethod, batch.getClass());
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> invoker.invoke(batch, new Object[]{"QUERY"}));
+        assertSame(exception, thrown);
+    }
+
+    @Test
+    void cachedPerTargetClass() {
+        Method addMethod = ReflectionUtils.findMethod(Batch.class, "add", String.class);
+
+        MethodInvoker invoker1 = MethodHandleMethodInvoker.of(addMethod, NonPublicBatch.class);
+        MethodInvoker invoker2 = MethodHandleMethodInvoker.of(addMethod, Batch.class);
+
+        assertThat(invoker1).isNotSameAs(invoker2);
+        assertSame(invoker1, MethodHandleMethodInvoker.of(addMethod, NonPublicBatch.class));
+        assertSame(invoker2, MethodHandleMethodInvoker.of(addMethod, Batch.class));
+    }
+
+    private static class NonPublicBatch implements Batch<NonPublicBatch> {
+
+        private String query;
+
+        @Override
+        public NonPublicBatch add(String sql) {
+            this.query = sql;
+            return this;
+        }
+
+        @Override
+        public org.reactivestreams.Publisher<? extends io.r2dbc.spi.Result> execute() {
+            return null;
+        }
+    }
+
+}
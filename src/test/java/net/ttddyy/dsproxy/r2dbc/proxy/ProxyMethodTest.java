@@ -0,0 +1,43 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class ProxyMethodTest {
+
+    @Test
+    void of() {
+        assertThat(ProxyMethod.of(findMethod(Object.class, "toString"))).isEqualTo(ProxyMethod.TO_STRING);
+        assertThat(ProxyMethod.of(findMethod(Object.class, "hashCode"))).isEqualTo(ProxyMethod.PASS_THROUGH);
+        assertThat(ProxyMethod.of(findMethod(Object.class, "equals", Object.class))).isEqualTo(ProxyMethod.PASS_THROUGH);
+
+        assertThat(ProxyMethod.of(findMethod(ProxyObject.class, "getTarget"))).isEqualTo(ProxyMethod.GET_TARGET);
+        assertThat(ProxyMethod.of(findMethod(ConnectionHolder.class, "getOriginalConnection"))).isEqualTo(ProxyMethod.GET_ORIGINAL_CONNECTION);
+
+        assertThat(ProxyMethod.of(findMethod(Connection.class, "beginTransaction"))).isEqualTo(ProxyMethod.BEGIN_TRANSACTION);
+        assertThat(ProxyMethod.of(findMethod(Connection.class, "createStatement", String.class))).isEqualTo(ProxyMethod.CREATE_STATEMENT);
+        assertThat(ProxyMethod.of(findMethod(Batch.class, "add", String.class))).isEqualTo(ProxyMethod.ADD);
+        assertThat(ProxyMethod.of(findMethod(Statement.class, "bind", int.class, Object.class))).isEqualTo(ProxyMethod.BIND);
+        assertThat(ProxyMethod.of(findMethod(Statement.class, "bindNull", int.class, Class.class))).isEqualTo(ProxyMethod.BIND_NULL);
+        assertThat(ProxyMethod.of(findMethod(Statement.class, "execute"))).isEqualTo(ProxyMethod.EXECUTE);
+        assertThat(ProxyMethod.of(findMethod(Result.class, "getRowsUpdated"))).isEqualTo(ProxyMethod.GET_ROWS_UPDATED);
+        assertThat(ProxyMethod.of(findMethod(Connection.class, "createSavepoint", String.class))).isEqualTo(ProxyMethod.OTHER);
+    }
+
+    private static Method findMethod(Class<?> clazz, String name, Class<?>... paramTypes) {
+        return ReflectionUtils.findMethod(clazz, name, paramTypes);
+    }
+
+}
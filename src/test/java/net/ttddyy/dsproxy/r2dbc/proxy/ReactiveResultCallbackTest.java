@@ -3,16 +3,25 @@ package net.ttddyy.dsproxy.r2dbc.proxy;
 import io.r2dbc.spi.Result;
 import net.ttddyy.dsproxy.r2dbc.core.CompositeProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.support.LastExecutionAwareListener;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.util.ReflectionUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 import reactor.test.publisher.TestPublisher;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +39,7 @@ import static org.mockito.Mockito.when;
 public class ReactiveResultCallbackTest {
 
     private static Method MAP_METHOD = ReflectionUtils.findMethod(Result.class, "map", BiFunction.class);
+    private static Method GET_ROWS_UPDATED_METHOD = ReflectionUtils.findMethod(Result.class, "getRowsUpdated");
     private static Method GET_TARGET_METHOD = ReflectionUtils.findMethod(ProxyObject.class, "getTarget");
 
     @Test
@@ -100,6 +110,53 @@ public class ReactiveResultCallbackTest {
 
     }
 
+    @Test
+    void mapWithoutEachQueryResultListener() throws Throwable {
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+            }
+        });
+
+        Publisher<Object> source = Flux.just("foo", "bar", "baz");
+        Result mockResult = mock(Result.class);
+        when(mockResult.map(any())).thenReturn(source);
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, new QueryExecutionInfo(), proxyConfig);
+
+        Object[] args = new Object[]{null};
+        Object result = callback.invoke(null, MAP_METHOD, args);
+
+        // no listener for each query result and method, thus publisher is not wrapped
+        assertSame(source, result);
+    }
+
+    @Test
+    void mapWhenNotSampled() throws Throwable {
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(listener);
+
+        Publisher<Object> source = Flux.just("foo", "bar", "baz");
+        Result mockResult = mock(Result.class);
+        when(mockResult.map(any())).thenReturn(source);
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        queryExecutionInfo.setSampled(false);
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+
+        Object[] args = new Object[]{null};
+        Object result = callback.invoke(null, MAP_METHOD, args);
+
+        StepVerifier.create((Publisher<?>) result)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        // execution is not sampled, thus each query result callback is not called
+        assertNull(listener.getEachQueryResultExecutionInfo());
+    }
+
     @Test
     void mapWithPublisherException() throws Throwable {
         LastExecutionAwareListener listener = new LastExecutionAwareListener();
@@ -236,6 +293,244 @@ public class ReactiveResultCallbackTest {
 
     }
 
+    @Test
+    void mapWithAggregatedQueryResult() throws Throwable {
+        List<QueryExecution> aggregated = new ArrayList<>();
+        AtomicInteger eachQueryResultCount = new AtomicInteger();
+        ProxyExecutionListener listener = new ProxyExecutionListener() {
+            @Override
+            public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+                aggregated.add(execInfo.snapshot());
+            }
+        };
+        CompositeProxyExecutionListener compositeListener = new CompositeProxyExecutionListener(listener, new ProxyExecutionListener() {
+            @Override
+            public void eachQueryResult(QueryExecutionInfo execInfo) {
+                eachQueryResultCount.incrementAndGet();
+            }
+        });
+
+        // each read advances 10ns
+        AtomicLong time = new AtomicLong();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(compositeListener);
+        proxyConfig.setTicker(() -> time.addAndGet(10));
+        proxyConfig.setQueryResultAggregationInterval(2);
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        queryExecutionInfo.setExecuteStartNanos(0);
+
+        Result mockResult = mock(Result.class);
+        Publisher<Object> source = Flux.just("a", "b", "c", "d", "e");
+        when(mockResult.map(any())).thenReturn(source);
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+        Object result = callback.invoke(null, MAP_METHOD, new Object[]{null});
+
+        StepVerifier.create(Flux.from((Publisher<?>) result).cast(Object.class))
+                .expectNext("a", "b", "c", "d", "e")
+                .verifyComplete();
+
+        assertThat(eachQueryResultCount).hasValue(5);
+
+        // every 2 rows and on completion
+        assertThat(aggregated).hasSize(3);
+        assertThat(aggregated).extracting(QueryExecution::getResultRowCount).containsExactly(2L, 4L, 5L);
+        assertThat(aggregated).extracting(QueryExecution::getProxyEventType).containsOnly(ProxyEventType.AGGREGATED_QUERY_RESULT);
+
+        QueryExecution last = aggregated.get(2);
+        // ticker is read for the first row and on callbacks
+        assertThat(last.getFirstRowNanos()).isEqualTo(10);
+        assertThat(last.getLastRowNanos()).isEqualTo(40);
+        assertThat(time).hasValue(40);
+        assertThat(last.getThrowable()).isNull();
+        assertThat(last.getCurrentMappedResult()).isNull();
+    }
+
+    @Test
+    void mapWithAggregatedQueryResultOnly() throws Throwable {
+        List<QueryExecution> aggregated = new ArrayList<>();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+                aggregated.add(execInfo.snapshot());
+            }
+        });
+
+        RuntimeException exception = new RuntimeException("boom");
+        Result mockResult = mock(Result.class);
+        Publisher<Object> source = Flux.<Object>just("a", "b").concatWith(Flux.error(exception));
+        when(mockResult.map(any())).thenReturn(source);
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+        Object result = callback.invoke(null, MAP_METHOD, new Object[]{null});
+
+        StepVerifier.create(Flux.from((Publisher<?>) result).cast(Object.class))
+                .expectNext("a", "b")
+                .verifyErrorMessage("boom");
+
+        // no callback per row with default interval
+        assertThat(aggregated).hasSize(1);
+        assertThat(aggregated.get(0).getResultRowCount()).isEqualTo(2);
+        assertThat(aggregated.get(0).getThrowable()).isSameAs(exception);
+        assertThat(queryExecutionInfo.getCurrentResultCount()).isEqualTo(0);
+    }
+
+    @Test
+    void mapWithBackpressureStall() throws Throwable {
+        List<QueryExecution> aggregated = new ArrayList<>();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+                aggregated.add(execInfo.snapshot());
+            }
+        });
+
+        // each read advances 10ns
+        AtomicLong time = new AtomicLong();
+        proxyConfig.setTicker(() -> time.addAndGet(10));
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        queryExecutionInfo.setFirstResultNanos(5);
+
+        Result mockResult = mock(Result.class);
+        Publisher<Object> source = Flux.just("a", "b", "c");
+        when(mockResult.map(any())).thenReturn(source);
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+        Object result = callback.invoke(null, MAP_METHOD, new Object[]{null});
+
+        StepVerifier.create(Flux.from((Publisher<?>) result).cast(Object.class), 1)
+                .expectNext("a")  // first row=10, stall starts at 20
+                .then(() -> time.addAndGet(100))
+                .thenRequest(2)  // stall ends at 130
+                .expectNext("b", "c")  // stall starts again at 140, but not counted
+                .verifyComplete();  // last row=150
+
+        assertThat(aggregated).hasSize(1);
+        QueryExecution info = aggregated.get(0);
+        assertThat(info.getResultRowCount()).isEqualTo(3);
+        assertThat(info.getFirstRowNanos()).isEqualTo(10);
+        assertThat(info.getLastRowNanos()).isEqualTo(150);
+        assertThat(info.getFirstResultToFirstRowNanos()).isEqualTo(5);
+        assertThat(info.getRowStreamingNanos()).isEqualTo(140);
+        assertThat(info.getBackpressureStallNanos()).isEqualTo(110);
+    }
+
+    @Test
+    void mapWithUnboundedDemand() throws Throwable {
+        List<QueryExecution> aggregated = new ArrayList<>();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void aggregatedQueryResult(QueryExecutionInfo execInfo) {
+                aggregated.add(execInfo.snapshot());
+            }
+        });
+
+        AtomicInteger tickerReads = new AtomicInteger();
+        proxyConfig.setTicker(() -> tickerReads.incrementAndGet() * 10L);
+
+        Result mockResult = mock(Result.class);
+        Publisher<Object> source = Flux.range(0, 1000).cast(Object.class);
+        when(mockResult.map(any())).thenReturn(source);
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, new QueryExecutionInfo(), proxyConfig);
+        Object result = callback.invoke(null, MAP_METHOD, new Object[]{null});
+
+        StepVerifier.create(Flux.from((Publisher<?>) result).cast(Object.class))
+                .expectNextCount(1000)
+                .verifyComplete();
+
+        // first row and completion only
+        assertThat(tickerReads).hasValue(2);
+        assertThat(aggregated).hasSize(1);
+        assertThat(aggregated.get(0).getResultRowCount()).isEqualTo(1000);
+        assertThat(aggregated.get(0).getBackpressureStallNanos()).isEqualTo(0);
+        assertThat(aggregated.get(0).getRowStreamingNanos()).isEqualTo(10);
+    }
+
+    @Test
+    void getRowsUpdated() throws Throwable {
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new LastExecutionAwareListener());
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        queryExecutionInfo.addRowsUpdatedCount(3);
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getRowsUpdated()).thenReturn(Mono.just(10));
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+        Object result = callback.invoke(null, GET_ROWS_UPDATED_METHOD, null);
+
+        // kept as Mono
+        assertThat(result).isInstanceOf(Mono.class);
+
+        StepVerifier.create(Flux.from((Publisher<?>) result).cast(Object.class))
+                .expectNext(10)
+                .verifyComplete();
+
+        // counts are kept per Result and summed
+        assertThat(queryExecutionInfo.getRowsUpdatedCounts()).containsExactly(3, 10);
+        assertThat(queryExecutionInfo.getRowsUpdated()).isEqualTo(13);
+        assertThat(queryExecutionInfo.snapshot().getRowsUpdatedCounts()).containsExactly(3, 10);
+
+        // given list is copied
+        List<Integer> counts = new ArrayList<>(Arrays.asList(1, 2));
+        queryExecutionInfo.setRowsUpdatedCounts(counts);
+        queryExecutionInfo.addRowsUpdatedCount(3);
+        assertThat(counts).containsExactly(1, 2);
+        assertThat(queryExecutionInfo.getRowsUpdatedCounts()).containsExactly(1, 2, 3);
+        assertThat(queryExecutionInfo.getRowsUpdated()).isEqualTo(6);
+    }
+
+    @Test
+    void getRowsUpdatedConcurrently() throws Throwable {
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new LastExecutionAwareListener());
+
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getRowsUpdated()).thenReturn(Mono.just(1));
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, queryExecutionInfo, proxyConfig);
+
+        int count = 1000;
+        Flux.range(0, count)
+                .parallel(4)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> {
+                    try {
+                        return (Publisher<?>) callback.invoke(null, GET_ROWS_UPDATED_METHOD, null);
+                    } catch (Throwable e) {
+                        return Mono.error(e);
+                    }
+                })
+                .sequential()
+                .blockLast();
+
+        assertThat(queryExecutionInfo.getRowsUpdatedCounts()).hasSize(count);
+        assertThat(queryExecutionInfo.getRowsUpdated()).isEqualTo(count);
+    }
+
+    @Test
+    void getRowsUpdatedWithoutQueryListener() throws Throwable {
+        ProxyConfig proxyConfig = new ProxyConfig();
+
+        Publisher<Integer> source = Mono.just(10);
+        Result mockResult = mock(Result.class);
+        when(mockResult.getRowsUpdated()).thenReturn(source);
+
+        ReactiveResultCallback callback = new ReactiveResultCallback(mockResult, new QueryExecutionInfo(), proxyConfig);
+        Object result = callback.invoke(null, GET_ROWS_UPDATED_METHOD, null);
+
+        assertSame(source, result);
+    }
+
     @Test
     void getTarget() throws Throwable {
         Result mockResult = mock(Result.class);
@@ -3,8 +3,12 @@ package net.ttddyy.dsproxy.r2dbc.proxy;
 import io.r2dbc.spi.Statement;
 import net.ttddyy.dsproxy.r2dbc.core.Binding;
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TruncatedBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TypeBindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.Bindings;
+import net.ttddyy.dsproxy.r2dbc.core.BindingsSummary;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
 import net.ttddyy.dsproxy.r2dbc.support.LastExecutionAwareListener;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
@@ -15,6 +19,7 @@ import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
@@ -246,4 +251,139 @@ public class ReactiveStatementCallbackTest {
         assertSame(statement, result);
     }
 
+    @Test
+    void bindingCapturePolicy() throws Throwable {
+        String longString = "abcdefghij";
+        byte[] longBytes = new byte[]{1, 2, 3, 4, 5};
+        ByteBuffer buffer = ByteBuffer.wrap(longBytes);
+
+        // truncated with max rows
+        QueryExecutionInfo execInfo = executeWithPolicy(BindingCapturePolicy.truncated(3).withMaxRows(1),
+                longString, longBytes, buffer, 10);
+
+        assertEquals(2, execInfo.getBindingsSize());
+        List<Bindings> bindingsList = execInfo.getQueries().get(0).getBindingsList();
+        assertThat(bindingsList).hasSize(1);
+        List<BindingValue> values = bindingsList.get(0).getIndexBindings().stream()
+                .map(Binding::getBindingValue).collect(toList());
+
+        assertThat(values.get(0)).isExactlyInstanceOf(TruncatedBindingValue.class);
+        assertEquals("abc", values.get(0).getValue());
+        assertEquals(10, ((TruncatedBindingValue) values.get(0)).getOriginalSize());
+        assertThat((byte[]) values.get(1).getValue()).containsExactly(1, 2, 3);
+        assertThat((byte[]) values.get(2).getValue()).containsExactly(1, 2, 3);
+        assertEquals(5, ((TruncatedBindingValue) values.get(2)).getOriginalSize());
+        assertEquals(0, buffer.position(), "bound buffer should not be consumed");
+        assertEquals(10, values.get(3).getValue());
+
+        // types only
+        execInfo = executeWithPolicy(BindingCapturePolicy.typesOnly(), longString, longBytes, buffer, 10);
+        values = execInfo.getQueries().get(0).getBindingsList().get(0).getIndexBindings().stream()
+                .map(Binding::getBindingValue).collect(toList());
+        assertThat(values).allMatch(value -> value instanceof TypeBindingValue);
+        assertThat(values).extracting(value -> (Object) ((TypeBindingValue) value).getType())
+                .containsExactly(String.class, byte[].class, ByteBuffer.wrap(longBytes).getClass(), Integer.class);
+
+        // none
+        execInfo = executeWithPolicy(BindingCapturePolicy.none(), longString, longBytes, buffer, 10);
+        assertEquals(2, execInfo.getBindingsSize());
+        assertThat(execInfo.getQueries().get(0).getBindingsList()).isEmpty();
+    }
+
+    @Test
+    void bindingsResetAfterExecute() throws Throwable {
+        LastExecutionAwareListener testListener = new LastExecutionAwareListener();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(testListener);
+        Statement statement = mock(Statement.class);
+        when(statement.execute()).thenReturn(Flux.empty());
+
+        ReactiveStatementCallback callback = new ReactiveStatementCallback(statement, "QUERY", new ConnectionInfo(), proxyConfig);
+
+        callback.invoke(null, BIND_BY_INDEX_METHOD, new Object[]{0, 100});
+        callback.invoke(null, ADD_METHOD, null);
+        callback.invoke(null, BIND_BY_INDEX_METHOD, new Object[]{0, 101});
+        StepVerifier.create((Publisher) callback.invoke(null, EXECUTE_METHOD, null)).verifyComplete();
+        QueryExecutionInfo first = testListener.getAfterQueryExecutionInfo();
+
+        // re-bind and re-execute the same statement
+        callback.invoke(null, BIND_BY_INDEX_METHOD, new Object[]{0, 200});
+        StepVerifier.create((Publisher) callback.invoke(null, EXECUTE_METHOD, null)).verifyComplete();
+        QueryExecutionInfo second = testListener.getAfterQueryExecutionInfo();
+
+        assertEquals(2, first.getBindingsSize());
+        assertThat(first.getQueries().get(0).getBindingsList()).hasSize(2);
+
+        assertEquals(1, second.getBindingsSize());
+        List<Bindings> bindingsList = second.getQueries().get(0).getBindingsList();
+        assertThat(bindingsList).hasSize(1);
+        assertThat(bindingsList.get(0).getIndexBindings())
+                .extracting(binding -> binding.getBindingValue().getValue())
+                .containsExactly(200);
+
+        // first execution is not affected
+        assertThat(first.getQueries().get(0).getBindingsList()).hasSize(2);
+    }
+
+    @Test
+    void bindingsSummary() throws Throwable {
+        QueryExecutionInfo execInfo = executeWithPolicy(BindingCapturePolicy.summary(), "abc", new byte[5], 10);
+
+        assertEquals(2, execInfo.getBindingsSize());
+        QueryInfo queryInfo = execInfo.getQueries().get(0);
+        assertThat(queryInfo.getBindingsList()).isEmpty();
+
+        BindingsSummary summary = queryInfo.getBindingsSummary();
+        assertNotNull(summary);
+        assertEquals(2, summary.getRowCount());
+        assertEquals(6, summary.getValueCount());
+        assertEquals(0, summary.getNullCount());
+        assertEquals(16, summary.getTotalSize());
+        assertEquals(5, summary.getMaxSize());
+    }
+
+    @Test
+    void bindingsNotCapturedWhenNotSampled() throws Throwable {
+        LastExecutionAwareListener testListener = new LastExecutionAwareListener();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(new ProxyExecutionListener() {
+            @Override
+            public void beforeQuery(QueryExecutionInfo execInfo) {
+                execInfo.setSampled(false);
+            }
+        });
+        proxyConfig.addListener(testListener);
+        Statement statement = mock(Statement.class);
+        when(statement.execute()).thenReturn(Flux.empty());
+
+        ReactiveStatementCallback callback = new ReactiveStatementCallback(statement, "QUERY", new ConnectionInfo(), proxyConfig);
+        callback.invoke(null, BIND_BY_INDEX_METHOD, new Object[]{0, 100});
+        StepVerifier.create((Publisher) callback.invoke(null, EXECUTE_METHOD, null)).verifyComplete();
+
+        QueryExecutionInfo execInfo = testListener.getAfterQueryExecutionInfo();
+        assertEquals(1, execInfo.getBindingsSize());
+        assertThat(execInfo.getQueries().get(0).getBindingsList()).isEmpty();
+    }
+
+    private QueryExecutionInfo executeWithPolicy(BindingCapturePolicy policy, Object... values) throws Throwable {
+        LastExecutionAwareListener testListener = new LastExecutionAwareListener();
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.addListener(testListener);
+        proxyConfig.setBindingCapturePolicy(policy);
+        Statement statement = mock(Statement.class);
+        when(statement.execute()).thenReturn(Flux.empty());
+
+        ReactiveStatementCallback callback = new ReactiveStatementCallback(statement, "QUERY", new ConnectionInfo(), proxyConfig);
+        for (int row = 0; row < 2; row++) {
+            for (int i = 0; i < values.length; i++) {
+                callback.invoke(null, BIND_BY_INDEX_METHOD, new Object[]{i, values[i]});
+            }
+            callback.invoke(null, ADD_METHOD, null);
+        }
+        Object result = callback.invoke(null, EXECUTE_METHOD, null);
+        StepVerifier.create((Publisher) result).verifyComplete();
+
+        return testListener.getAfterQueryExecutionInfo();
+    }
+
 }
@@ -0,0 +1,195 @@
+package net.ttddyy.dsproxy.r2dbc.proxy;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionHolder;
+import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+import net.ttddyy.dsproxy.r2dbc.support.LastExecutionAwareListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class StaticProxyFactoryTest {
+
+    private StaticProxyFactory proxyFactory;
+
+    private ProxyConfig proxyConfig;
+
+    @BeforeEach
+    void setUp() {
+        this.proxyConfig = new ProxyConfig();
+        this.proxyFactory = new StaticProxyFactory();
+        this.proxyConfig.setProxyFactory(this.proxyFactory);
+    }
+
+    @Test
+    void isProxy() {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        Batch batch = mock(Batch.class);
+        Statement statement = mock(Statement.class);
+        Result result = mock(Result.class);
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+        connectionInfo.setOriginalConnection(connection);
+        QueryExecutionInfo queryExecutionInfo = new QueryExecutionInfo();
+        queryExecutionInfo.setConnectionInfo(connectionInfo);
+        String query = "query";
+
+        Object proxy;
+
+        proxy = this.proxyFactory.createConnectionFactory(connectionFactory);
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        assertThat(proxy).isInstanceOf(ProxyObject.class);
+        assertThat(proxy).isNotInstanceOf(ConnectionHolder.class);
+        assertSame(connectionFactory, ((ProxyObject) proxy).getTarget());
+
+        proxy = this.proxyFactory.createConnection(connection, connectionInfo);
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        assertThat(proxy).isInstanceOf(ProxyObject.class);
+        assertThat(proxy).isInstanceOf(ConnectionHolder.class);
+        assertSame(connection, ((ProxyObject) proxy).getTarget());
+        assertSame(connection, ((ConnectionHolder) proxy).getOriginalConnection());
+
+        proxy = this.proxyFactory.createBatch(batch, connectionInfo);
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        assertThat(proxy).isInstanceOf(ProxyObject.class);
+        assertThat(proxy).isInstanceOf(ConnectionHolder.class);
+        assertSame(batch, ((ProxyObject) proxy).getTarget());
+        assertSame(connection, ((ConnectionHolder) proxy).getOriginalConnection());
+
+        proxy = this.proxyFactory.createStatement(statement, query, connectionInfo);
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        assertThat(proxy).isInstanceOf(ProxyObject.class);
+        assertThat(proxy).isInstanceOf(ConnectionHolder.class);
+        assertSame(statement, ((ProxyObject) proxy).getTarget());
+        assertSame(connection, ((ConnectionHolder) proxy).getOriginalConnection());
+
+        proxy = this.proxyFactory.createResult(result, queryExecutionInfo);
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        assertThat(proxy).isInstanceOf(ProxyObject.class);
+        assertThat(proxy).isInstanceOf(ConnectionHolder.class);
+        assertSame(result, ((ProxyObject) proxy).getTarget());
+        assertSame(connection, ((ConnectionHolder) proxy).getOriginalConnection());
+    }
+
+    @Test
+    void testToString() {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        Batch batch = mock(Batch.class);
+        Statement statement = mock(Statement.class);
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+        String query = "query";
+
+        Object result;
+
+        result = this.proxyFactory.createConnectionFactory(connectionFactory);
+        assertEquals(getExpectedToString(connectionFactory), result.toString());
+
+        result = this.proxyFactory.createConnection(connection, connectionInfo);
+        assertEquals(getExpectedToString(connection), result.toString());
+
+        result = this.proxyFactory.createBatch(batch, connectionInfo);
+        assertEquals(getExpectedToString(batch), result.toString());
+
+        result = this.proxyFactory.createStatement(statement, query, connectionInfo);
+        assertEquals(getExpectedToString(statement), result.toString());
+    }
+
+    @Test
+    void methodAndQueryCallbacks() {
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+        this.proxyConfig.addListener(listener);
+
+        Statement statement = mock(Statement.class);
+        when(statement.execute()).thenReturn(Flux.empty());
+
+        String query = "QUERY";
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+
+        Statement<?> proxy = this.proxyFactory.createStatement(statement, query, connectionInfo);
+
+        proxy.bind(1, (Object) 100);
+        verify(statement).bind(1, (Object) 100);
+
+        MethodExecutionInfo methodExecutionInfo = listener.getAfterMethodExecutionInfo();
+        Method bindMethod = ReflectionUtils.findMethod(Statement.class, "bind", int.class, Object.class);
+        assertEquals(bindMethod, methodExecutionInfo.getMethod());
+        assertEquals(ProxyEventType.AFTER_METHOD, methodExecutionInfo.getProxyEventType());
+        assertSame(statement, methodExecutionInfo.getTarget());
+
+        StepVerifier.create(proxy.execute())
+                .verifyComplete();
+
+        QueryExecutionInfo queryExecutionInfo = listener.getAfterQueryExecutionInfo();
+        assertEquals(ProxyEventType.AFTER_QUERY, queryExecutionInfo.getProxyEventType());
+        assertThat(queryExecutionInfo.getQueries()).extracting(QueryInfo::getQuery).containsExactly(query);
+
+        QueryInfo queryInfo = queryExecutionInfo.getQueries().get(0);
+        assertThat(queryInfo.getBindingsList()).hasSize(1);
+        assertThat(queryInfo.getBindingsList().get(0).getIndexBindings())
+                .extracting(binding -> binding.getBindingValue())
+                .extracting(BindingValue::getValue)
+                .containsExactly(100);
+    }
+
+    @Test
+    void exceptionFromTarget() {
+        LastExecutionAwareListener listener = new LastExecutionAwareListener();
+        this.proxyConfig.addListener(listener);
+
+        Batch batch = mock(Batch.class);
+        RuntimeException exception = new RuntimeException();
+        when(batch.add("QUERY")).thenThrow(exception);
+
+        Batch<?> proxy = this.proxyFactory.createBatch(batch, new ConnectionInfo());
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> proxy.add("QUERY"));
+        assertSame(exception, thrown);
+        assertSame(exception, listener.getAfterMethodExecutionInfo().getThrown());
+    }
+
+    @Test
+    void checkedExceptionFromTarget() {
+        Batch batch = mock(Batch.class);
+        Exception exception = new Exception();
+        when(batch.add("QUERY")).thenAnswer(invocation -> {
+            throw exception;
+        });
+
+        Batch<?> proxy = this.proxyFactory.createBatch(batch, new ConnectionInfo());
+
+        UndeclaredThrowableException thrown = assertThrows(UndeclaredThrowableException.class, () -> proxy.add("QUERY"));
+        assertSame(exception, thrown.getUndeclaredThrowable());
+    }
+
+    private String getExpectedToString(Object target) {
+        return target.getClass().getSimpleName() + "-proxy [" + target.toString() + "]";
+    }
+}
@@ -0,0 +1,270 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class AsyncProxyExecutionListenerTest {
+
+    @Test
+    void dispatchOnConsumerThread() throws Exception {
+        List<QueryExecutionInfo> received = new CopyOnWriteArrayList<>();
+        List<String> threadNames = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+            @Override
+            public void beforeQuery(QueryExecutionInfo execInfo) {
+                record(execInfo);
+            }
+
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                record(execInfo);
+            }
+
+            @Override
+            public void eachQueryResult(QueryExecutionInfo execInfo) {
+                record(execInfo);
+            }
+
+            private void record(QueryExecutionInfo execInfo) {
+                received.add(execInfo);
+                threadNames.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        };
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.getQueries().add(new QueryInfo("SELECT 1"));
+
+        try (AsyncProxyExecutionListener listener = AsyncProxyExecutionListener.of(delegate)) {
+            executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+            listener.onQueryExecution(executionInfo);
+
+            executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+            executionInfo.setCurrentResultCount(1);
+            listener.eachQueryResult(executionInfo);
+
+            executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+            executionInfo.setSuccess(true);
+            listener.onQueryExecution(executionInfo);
+
+            // modifying original does not affect published events
+            executionInfo.setCurrentResultCount(100);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        assertThat(threadNames).containsOnly("dsproxy-r2dbc-async-listener");
+        assertThat(received).extracting(QueryExecutionInfo::getProxyEventType)
+                .containsExactly(ProxyEventType.BEFORE_QUERY, ProxyEventType.EACH_QUERY_RESULT, ProxyEventType.AFTER_QUERY);
+        assertThat(received).extracting(QueryExecutionInfo::getCurrentResultCount).containsExactly(0, 1, 1);
+        assertThat(received).extracting(QueryExecutionInfo::isSuccess).containsExactly(false, false, true);
+        for (QueryExecutionInfo info : received) {
+            assertNotSame(executionInfo, info);
+            assertSame(executionInfo.getQueries().get(0), info.getQueries().get(0));
+        }
+    }
+
+    @Test
+    void methodExecution() throws Exception {
+        LastExecutionAwareListener delegate = new LastExecutionAwareListener();
+
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+        executionInfo.setThreadName("my-thread");
+
+        AsyncProxyExecutionListener listener = AsyncProxyExecutionListener.of(delegate);
+        listener.onMethodExecution(executionInfo);
+        listener.close();  // drains buffered events
+
+        MethodExecutionInfo received = delegate.getAfterMethodExecutionInfo();
+        assertNotSame(executionInfo, received);
+        assertEquals("my-thread", received.getThreadName());
+    }
+
+    @Test
+    void dropWhenFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        AsyncProxyExecutionListener listener =
+                new AsyncProxyExecutionListener(delegate, 4, AsyncProxyExecutionListener.OverflowPolicy.DROP);
+
+        // consumer takes the first one and blocks
+        listener.onQueryExecution(executionInfo);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            listener.onQueryExecution(executionInfo);
+        }
+
+        assertEquals(4, listener.getBufferedCount());
+        assertEquals(6, listener.getDroppedCount());
+        assertEquals(6, listener.getDroppedCount(ProxyEventType.AFTER_QUERY));
+        assertEquals(0, listener.getDroppedCount(ProxyEventType.BEFORE_QUERY));
+
+        release.countDown();
+        listener.close();
+        assertEquals(0, listener.getBufferedCount());
+
+        // after closed
+        listener.onQueryExecution(executionInfo);
+        assertEquals(7, listener.getDroppedCount());
+    }
+
+    @Test
+    void sampleWhenMoreThanHalfFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        AsyncProxyExecutionListener listener =
+                new AsyncProxyExecutionListener(delegate, 8, AsyncProxyExecutionListener.OverflowPolicy.SAMPLE);
+        listener.setSampleInterval(2);
+
+        listener.onQueryExecution(executionInfo);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // accepted until more than half full(5 events), then one of two is accepted
+        for (int i = 0; i < 9; i++) {
+            listener.onQueryExecution(executionInfo);
+        }
+
+        assertEquals(7, listener.getBufferedCount());
+        assertEquals(2, listener.getDroppedCount());
+
+        release.countDown();
+        listener.close();
+    }
+
+    @Test
+    void publishWhileClosing() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                received.incrementAndGet();
+            }
+        };
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        AsyncProxyExecutionListener listener =
+                new AsyncProxyExecutionListener(delegate, 1024, AsyncProxyExecutionListener.OverflowPolicy.DROP);
+
+        int threads = 4;
+        int count = 10_000;
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    for (int j = 0; j < count; j++) {
+                        listener.onQueryExecution(executionInfo);
+                    }
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            listener.close();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // every event is either dispatched or counted as dropped. none is left in the buffer.
+        assertEquals(0, listener.getBufferedCount());
+        assertEquals(threads * count, received.get() + listener.getDroppedCount());
+    }
+
+    @Test
+    void listenedEventTypes() {
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+            }
+        };
+
+        try (AsyncProxyExecutionListener listener = AsyncProxyExecutionListener.of(delegate)) {
+            assertThat(listener.getListenedEventTypes()).containsExactly(ProxyEventType.AFTER_QUERY);
+
+            // not listened events are not buffered
+            QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+            executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+            listener.onQueryExecution(executionInfo);
+            assertEquals(0, listener.getBufferedCount());
+            assertEquals(0, listener.getDroppedCount());
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        ProxyExecutionListener delegate = new ProxyExecutionListener() {
+        };
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncProxyExecutionListener(delegate, 0, AsyncProxyExecutionListener.OverflowPolicy.DROP));
+
+        try (AsyncProxyExecutionListener listener = AsyncProxyExecutionListener.of(delegate)) {
+            assertThrows(IllegalArgumentException.class, () -> listener.setSampleInterval(0));
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecution;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class BatchingProxyExecutionListenerTest {
+
+    @Test
+    void flushOnBatchSize() throws Exception {
+        BlockingQueue<List<QueryExecution>> flushed = new LinkedBlockingQueue<>();
+
+        try (BatchingProxyExecutionListener listener =
+                     BatchingProxyExecutionListener.forQueries(3, Duration.ofHours(1), flushed::add)) {
+
+            QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+            for (int i = 1; i <= 4; i++) {
+                executionInfo.setCurrentResultCount(i);
+                listener.afterQuery(executionInfo);
+            }
+
+            List<QueryExecution> batch = flushed.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertThat(batch).extracting(QueryExecution::getCurrentResultCount).containsExactly(1, 2, 3);
+            assertThat(batch).allSatisfy(info -> assertNotSame(executionInfo, info));
+
+            // remaining one is not flushed yet
+            assertNull(flushed.poll(50, TimeUnit.MILLISECONDS));
+
+            listener.flush();
+            batch = flushed.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertThat(batch).extracting(QueryExecution::getCurrentResultCount).containsExactly(4);
+        }
+
+        // nothing left on close
+        assertNull(flushed.poll());
+    }
+
+    @Test
+    void flushOnClose() throws Exception {
+        BlockingQueue<List<QueryExecution>> flushed = new LinkedBlockingQueue<>();
+
+        try (BatchingProxyExecutionListener listener =
+                     BatchingProxyExecutionListener.forQueries(3, Duration.ofHours(1), flushed::add)) {
+            listener.afterQuery(new QueryExecutionInfo());
+        }
+
+        List<QueryExecution> batch = flushed.poll();
+        assertNotNull(batch);
+        assertThat(batch).hasSize(1);
+    }
+
+    @Test
+    void flushOnInterval() throws Exception {
+        BlockingQueue<List<MethodExecution>> flushed = new LinkedBlockingQueue<>();
+
+        try (BatchingProxyExecutionListener listener =
+                     BatchingProxyExecutionListener.forMethods(100, Duration.ofMillis(10), flushed::add)) {
+
+            MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+            executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+            listener.afterMethod(executionInfo);
+            listener.afterMethod(executionInfo);
+
+            List<MethodExecution> batch = flushed.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertThat(batch).hasSize(2);
+        }
+    }
+
+    @Test
+    void dropWhenPendingReachedMax() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        BatchingProxyExecutionListener listener = new BatchingProxyExecutionListener(2, Duration.ofHours(1), 4,
+                executionInfos -> {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, null);
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        listener.afterQuery(executionInfo);
+        listener.afterQuery(executionInfo);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 5; i++) {
+            listener.afterQuery(executionInfo);
+        }
+        assertEquals(4, listener.getPendingCount());
+        assertEquals(3, listener.getDroppedCount());
+
+        release.countDown();
+        listener.close();
+        assertEquals(0, listener.getPendingCount());
+
+        listener.afterQuery(executionInfo);
+        assertEquals(4, listener.getDroppedCount());
+    }
+
+    @Test
+    void collectWhileClosing() throws Exception {
+        AtomicLong emitted = new AtomicLong();
+        BatchingProxyExecutionListener listener = BatchingProxyExecutionListener.forQueries(10, Duration.ofMillis(1),
+                executionInfos -> emitted.addAndGet(executionInfos.size()));
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+
+        int threads = 4;
+        int count = 10_000;
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    for (int j = 0; j < count; j++) {
+                        listener.afterQuery(executionInfo);
+                    }
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            listener.close();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // every execution is either passed to the sink or counted as dropped
+        assertEquals(0, listener.getPendingCount());
+        assertEquals(threads * count, emitted.get() + listener.getDroppedCount());
+    }
+
+    @Test
+    void largeBatchSize() {
+        try (BatchingProxyExecutionListener listener = BatchingProxyExecutionListener.forQueries(Integer.MAX_VALUE / 2,
+                Duration.ofHours(1), executionInfos -> {
+                })) {
+            assertEquals(Integer.MAX_VALUE, listener.getMaxPendingSize());
+        }
+    }
+
+    @Test
+    void listenedEventTypes() {
+        try (BatchingProxyExecutionListener listener = new BatchingProxyExecutionListener(1, Duration.ofHours(1), 1,
+                executionInfos -> {
+                }, executionInfos -> {
+        })) {
+            assertThat(listener.getListenedEventTypes())
+                    .containsExactlyInAnyOrder(ProxyEventType.AFTER_QUERY, ProxyEventType.AFTER_METHOD);
+        }
+
+        try (BatchingProxyExecutionListener listener =
+                     BatchingProxyExecutionListener.forQueries(1, Duration.ofHours(1), executionInfos -> {
+                     })) {
+            assertThat(listener.getListenedEventTypes()).containsExactly(ProxyEventType.AFTER_QUERY);
+
+            // not collected
+            listener.afterMethod(new MethodExecutionInfo());
+            assertEquals(0, listener.getPendingCount());
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchingProxyExecutionListener(0, Duration.ofSeconds(1), 1, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchingProxyExecutionListener(2, Duration.ofSeconds(1), 1, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchingProxyExecutionListener(1, Duration.ZERO, 1, null, null));
+    }
+
+}
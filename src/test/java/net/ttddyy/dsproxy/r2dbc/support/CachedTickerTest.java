@@ -0,0 +1,30 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class CachedTickerTest {
+
+    @Test
+    void read() throws Exception {
+        try (CachedTicker ticker = new CachedTicker(Duration.ofMillis(1))) {
+            long first = ticker.read();
+
+            Thread.sleep(50);
+            assertThat(ticker.read()).isGreaterThan(first);
+        }
+    }
+
+    @Test
+    void invalidResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedTicker(Duration.ZERO));
+    }
+
+}
@@ -0,0 +1,196 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecution;
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class FluxProxyExecutionListenerTest {
+
+    @Test
+    void queryExecutions() {
+        FluxProxyExecutionListener listener = FluxProxyExecutionListener.create();
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+
+        StepVerifier.create(listener.getQueryExecutions().take(2))
+                .then(() -> {
+                    executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+                    listener.onQueryExecution(executionInfo);
+                    // not listened
+                    executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+                    listener.eachQueryResult(executionInfo);
+                    executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+                    listener.onQueryExecution(executionInfo);
+                })
+                .assertNext(info -> {
+                    assertNotSame(executionInfo, info);
+                    assertEquals(ProxyEventType.BEFORE_QUERY, info.getProxyEventType());
+                })
+                .assertNext(info -> assertEquals(ProxyEventType.AFTER_QUERY, info.getProxyEventType()))
+                .verifyComplete();
+    }
+
+    @Test
+    void multicast() {
+        FluxProxyExecutionListener listener = FluxProxyExecutionListener.create();
+
+        List<MethodExecution> first = new CopyOnWriteArrayList<>();
+        List<MethodExecution> second = new CopyOnWriteArrayList<>();
+        Disposable firstSubscription = listener.getMethodExecutions().subscribe(first::add);
+        Disposable secondSubscription = listener.getMethodExecutions().subscribe(second::add);
+
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+        listener.onMethodExecution(executionInfo);
+
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+
+        // keeps publishing after a subscriber cancelled
+        firstSubscription.dispose();
+        listener.onMethodExecution(executionInfo);
+
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(2);
+
+        secondSubscription.dispose();
+
+        // not published but counted as dropped without subscribers
+        assertEquals(0, listener.getDroppedCount());
+        listener.onMethodExecution(executionInfo);
+        List<MethodExecution> third = new CopyOnWriteArrayList<>();
+        listener.getMethodExecutions().subscribe(third::add);
+        assertThat(third).isEmpty();
+        assertEquals(1, listener.getDroppedCount());
+    }
+
+    @Test
+    void dropWhenSubscriberIsSlow() {
+        FluxProxyExecutionListener listener =
+                new FluxProxyExecutionListener(4, EnumSet.of(ProxyEventType.AFTER_QUERY));
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        StepVerifier.create(listener.getQueryExecutions(), 0)
+                .then(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        listener.onQueryExecution(executionInfo);
+                    }
+                })
+                .thenRequest(10)
+                .expectNextCount(4)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(6, listener.getDroppedCount());
+    }
+
+    @Test
+    void eachQueryResult() {
+        FluxProxyExecutionListener listener =
+                new FluxProxyExecutionListener(4, EnumSet.of(ProxyEventType.EACH_QUERY_RESULT));
+        assertThat(listener.getListenedEventTypes()).containsExactly(ProxyEventType.EACH_QUERY_RESULT);
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+        executionInfo.setCurrentResultCount(1);
+
+        StepVerifier.create(listener.getQueryExecutions().take(1))
+                .then(() -> listener.eachQueryResult(executionInfo))
+                .assertNext(info -> assertEquals(1, info.getCurrentResultCount()))
+                .verifyComplete();
+    }
+
+    @Test
+    void snapshotOnlyWhenPublished() {
+        FluxProxyExecutionListener listener =
+                new FluxProxyExecutionListener(4, EnumSet.of(ProxyEventType.AFTER_QUERY));
+
+        QueryExecutionInfo executionInfo = spy(new QueryExecutionInfo());
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        // no subscriber
+        listener.onQueryExecution(executionInfo);
+        verify(executionInfo, never()).snapshot();
+        assertEquals(1, listener.getDroppedCount());
+
+        // no demand
+        Disposable subscription = listener.getQueryExecutions().subscribe(info -> {
+        }, error -> {
+        }, () -> {
+        }, s -> {
+        });
+        for (int i = 0; i < 5; i++) {
+            listener.onQueryExecution(executionInfo);
+        }
+        subscription.dispose();
+
+        // buffered up to the buffer size
+        verify(executionInfo, times(4)).snapshot();
+        assertEquals(2, listener.getDroppedCount());
+    }
+
+    @Test
+    void concurrentPublish() throws Exception {
+        FluxProxyExecutionListener listener =
+                new FluxProxyExecutionListener(4, EnumSet.of(ProxyEventType.AFTER_QUERY));
+
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+
+        AtomicInteger received = new AtomicInteger();
+        Disposable subscription = listener.getQueryExecutions()
+                .subscribe(info -> received.incrementAndGet());
+
+        int threads = 4;
+        int count = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < count; j++) {
+                        listener.onQueryExecution(executionInfo);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            subscription.dispose();
+        }
+
+        // every execution is either published or counted as dropped
+        assertEquals(threads * count, received.get() + listener.getDroppedCount());
+    }
+
+}
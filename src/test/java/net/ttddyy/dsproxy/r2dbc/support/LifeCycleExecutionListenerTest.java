@@ -1,5 +1,6 @@
 package net.ttddyy.dsproxy.r2dbc.support;
 
+import io.r2dbc.spi.Statement;
 import net.ttddyy.dsproxy.r2dbc.core.ExecutionType;
 import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
@@ -166,4 +167,34 @@ public class LifeCycleExecutionListenerTest {
     // TODO: add test for onEachQueryResult
 
 
+    @Test
+    void methodOnImplementationClass() throws Exception {
+        List<Method> invokedMethods = new ArrayList<>();
+        LifeCycleListener lifeCycleListener = createLifeCycleListener(invokedMethods);
+        LifeCycleExecutionListener listener = new LifeCycleExecutionListener(lifeCycleListener);
+
+        // method declared on a driver class that implements SPI
+        Statement<?> statement = mock(Statement.class);
+        Method bindMethod = statement.getClass().getMethod("bind", int.class, Object.class);
+        assertThat(bindMethod.getDeclaringClass()).isNotEqualTo(Statement.class);
+
+        MethodExecutionInfo methodExecutionInfo = new MethodExecutionInfo();
+        methodExecutionInfo.setMethod(bindMethod);
+
+        listener.beforeMethod(methodExecutionInfo);
+        listener.afterMethod(methodExecutionInfo);
+
+        assertThat(invokedMethods).extracting(Method::getName)
+                .containsExactly("beforeMethod", "beforeBindOnStatement", "afterBindOnStatement", "afterMethod");
+
+        // non SPI method
+        invokedMethods.clear();
+        methodExecutionInfo.setMethod(Object.class.getMethod("toString"));
+
+        listener.beforeMethod(methodExecutionInfo);
+        listener.afterMethod(methodExecutionInfo);
+
+        assertThat(invokedMethods).extracting(Method::getName).containsExactly("beforeMethod", "afterMethod");
+    }
+
 }
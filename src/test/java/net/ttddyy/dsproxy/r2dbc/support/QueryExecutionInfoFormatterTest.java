@@ -2,7 +2,10 @@ package net.ttddyy.dsproxy.r2dbc.support;
 
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue.NullBindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.BindingValue.SimpleBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TruncatedBindingValue;
+import net.ttddyy.dsproxy.r2dbc.core.BindingValue.TypeBindingValue;
 import net.ttddyy.dsproxy.r2dbc.core.Bindings;
+import net.ttddyy.dsproxy.r2dbc.core.BindingsSummary;
 import net.ttddyy.dsproxy.r2dbc.core.ConnectionInfo;
 import net.ttddyy.dsproxy.r2dbc.core.ExecutionType;
 import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
@@ -326,6 +329,35 @@ public class QueryExecutionInfoFormatterTest {
 
     }
 
+    @Test
+    void showBindingsWithPartiallyCapturedValues() {
+        QueryExecutionInfoFormatter formatter = new QueryExecutionInfoFormatter();
+        formatter.showBindings();
+
+        Bindings bindings = new Bindings();
+        bindings.addIndexBinding(0, new TruncatedBindingValue("abc", String.class, 10));
+        bindings.addIndexBinding(1, new TruncatedBindingValue(new byte[]{1, 2}, byte[].class, 5));
+        bindings.addIndexBinding(2, new TypeBindingValue(Integer.class));
+
+        QueryInfo query = new QueryInfo();
+        query.getBindingsList().add(bindings);
+
+        QueryExecutionInfo execInfo = new QueryExecutionInfo();
+        execInfo.setQueries(Collections.singletonList(query));
+        String result = formatter.format(execInfo);
+        assertEquals("Bindings:[(abc...(10),[1, 2]...(5),(Integer))]", result);
+
+        BindingsSummary summary = new BindingsSummary();
+        summary.setRowCount(2);
+        summary.recordValue("abc");
+        summary.recordNull();
+        query = new QueryInfo();
+        query.setBindingsSummary(summary);
+        execInfo.setQueries(Collections.singletonList(query));
+        result = formatter.format(execInfo);
+        assertEquals("Bindings:[{rows=2, values=2, nulls=1, totalSize=3, maxSize=3}]", result);
+    }
+
     @Test
     void showBindingsWithIdentifierBinding() {
         QueryExecutionInfoFormatter formatter = new QueryExecutionInfoFormatter();
@@ -0,0 +1,117 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.LogLinearHistogram;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class QueryMetricsListenerTest {
+
+    @Test
+    void recordPerFingerprint() {
+        QueryMetricsListener listener = new QueryMetricsListener();
+
+        listener.onQueryExecution(afterQuery(100, "SELECT * FROM emp WHERE id IN (1, 2)"));
+        listener.onQueryExecution(afterQuery(200, "SELECT * FROM emp WHERE id IN (3)"));
+        listener.onQueryExecution(afterQuery(300, "SELECT * FROM emp WHERE id IN (3)"));
+        listener.onQueryExecution(afterQuery(50, "UPDATE emp SET name = 'foo'"));
+
+        Map<String, LogLinearHistogram.Snapshot> snapshots = listener.getSnapshots();
+        assertThat(snapshots).containsOnlyKeys("select * from emp where id in(?)", "update emp set name = ?");
+
+        LogLinearHistogram.Snapshot select = snapshots.get("select * from emp where id in(?)");
+        assertEquals(3, select.getCount());
+        assertEquals(600, select.getSum());
+        assertEquals(300, select.getMax());
+
+        assertEquals(1, snapshots.get("update emp set name = ?").getCount());
+    }
+
+    @Test
+    void batchAndError() {
+        QueryMetricsListener listener = new QueryMetricsListener();
+
+        QueryExecutionInfo executionInfo = afterQuery(100, "INSERT INTO emp VALUES (1)", "INSERT INTO emp VALUES (2)");
+        executionInfo.setThrowable(new RuntimeException());
+        listener.onQueryExecution(executionInfo);
+
+        // same normalized queries
+        listener.onQueryExecution(afterQuery(100, "INSERT INTO emp VALUES (3)", "INSERT INTO emp VALUES (4)"));
+
+        assertThat(listener.getMetrics()).hasSize(1);
+        QueryMetricsListener.QueryMetrics metrics = listener.getMetrics().get("insert into emp values(?); insert into emp values(?)");
+        assertEquals(2, metrics.getHistogram().getCount());
+        assertEquals(1, metrics.getErrorCount());
+    }
+
+    @Test
+    void rowsUpdated() {
+        QueryMetricsListener listener = new QueryMetricsListener();
+
+        QueryExecutionInfo batch = afterQuery(100, "DELETE FROM emp WHERE id = 1", "DELETE FROM emp WHERE id = 2");
+        batch.addRowsUpdatedCount(1);
+        batch.addRowsUpdatedCount(0);
+        listener.onQueryExecution(batch);
+
+        QueryExecutionInfo update = afterQuery(100, "UPDATE emp SET name = 'foo'");
+        update.addRowsUpdatedCount(5000);
+        listener.onQueryExecution(update);
+
+        // no updated rows reported
+        listener.onQueryExecution(afterQuery(100, "UPDATE emp SET name = 'bar'"));
+
+        Map<String, LogLinearHistogram.Snapshot> snapshots = listener.getRowsUpdatedSnapshots();
+        assertEquals(1, snapshots.get("delete from emp where id = ?; delete from emp where id = ?").getSum());
+
+        LogLinearHistogram.Snapshot updateSnapshot = snapshots.get("update emp set name = ?");
+        assertEquals(1, updateSnapshot.getCount());
+        assertEquals(5000, updateSnapshot.getMax());
+        assertEquals(2, listener.getSnapshots().get("update emp set name = ?").getCount());
+
+        // histogram for updated rows is not created until updated rows are reported
+        listener.onQueryExecution(afterQuery(100, "SELECT * FROM emp"));
+        QueryMetricsListener.QueryMetrics selectMetrics = listener.getMetrics().get("select * from emp");
+        assertNull(selectMetrics.getRowsUpdatedHistogram());
+        assertEquals(0, selectMetrics.getRowsUpdatedSnapshot().getCount());
+        assertThat(listener.getRowsUpdatedSnapshots()).doesNotContainKey("select * from emp");
+    }
+
+    @Test
+    void maxQueries() {
+        QueryMetricsListener listener = new QueryMetricsListener(2);
+
+        listener.onQueryExecution(afterQuery(10, "SELECT 1 FROM a"));
+        listener.onQueryExecution(afterQuery(10, "SELECT 1 FROM b"));
+        listener.onQueryExecution(afterQuery(10, "SELECT 1 FROM c"));
+        listener.onQueryExecution(afterQuery(10, "SELECT 2 FROM a"));
+
+        // new fingerprint beyond max is not recorded. known fingerprint with new query string is recorded.
+        Map<String, LogLinearHistogram.Snapshot> snapshots = listener.getSnapshots();
+        assertThat(snapshots).containsOnlyKeys("select ? from a", "select ? from b");
+        assertEquals(2, snapshots.get("select ? from a").getCount());
+
+        listener.reset();
+        assertThat(listener.getSnapshots()).isEmpty();
+    }
+
+    private static QueryExecutionInfo afterQuery(long durationNanos, String... queries) {
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        for (String query : queries) {
+            executionInfo.getQueries().add(new QueryInfo(query));
+        }
+        executionInfo.setExecuteDurationNanos(durationNanos);
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        return executionInfo;
+    }
+
+}
@@ -0,0 +1,232 @@
+package net.ttddyy.dsproxy.r2dbc.support;
+
+import net.ttddyy.dsproxy.r2dbc.core.MethodExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyEventType;
+import net.ttddyy.dsproxy.r2dbc.core.ProxyExecutionListener;
+import net.ttddyy.dsproxy.r2dbc.core.QueryExecutionInfo;
+import net.ttddyy.dsproxy.r2dbc.core.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tadaya Tsuyukubo
+ */
+public class SamplingProxyExecutionListenerTest {
+
+    @Test
+    void fixedRate() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.fixedRate(delegate, 2);
+
+        for (int i = 0; i < 4; i++) {
+            execute(listener, "SELECT " + i, 1);
+        }
+
+        // 1st and 3rd executions with all events
+        assertThat(delegate.events).containsExactly(
+                "BEFORE_QUERY:SELECT 0", "EACH_QUERY_RESULT:SELECT 0", "AFTER_QUERY:SELECT 0",
+                "BEFORE_QUERY:SELECT 2", "EACH_QUERY_RESULT:SELECT 2", "AFTER_QUERY:SELECT 2");
+    }
+
+    @Test
+    void probabilistic() {
+        RecordingListener delegate = new RecordingListener();
+
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.probabilistic(delegate, 0);
+        execute(listener, "SELECT 1", 0);
+        assertThat(delegate.events).isEmpty();
+
+        listener = SamplingProxyExecutionListener.probabilistic(delegate, 1);
+        execute(listener, "SELECT 1", 0);
+        assertThat(delegate.events).containsExactly("BEFORE_QUERY:SELECT 1", "AFTER_QUERY:SELECT 1");
+
+        assertThrows(IllegalArgumentException.class, () -> SamplingProxyExecutionListener.probabilistic(1.1));
+    }
+
+    @Test
+    void ratePerQuery() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.ratePerQuery(delegate, 2);
+
+        for (int i = 0; i < 5; i++) {
+            execute(listener, "SELECT * FROM emp WHERE id = " + i, 0);
+            execute(listener, "SELECT * FROM dept", 0);
+        }
+
+        // queries differing only in literals share the rate
+        assertThat(delegate.events).filteredOn(event -> event.startsWith("AFTER_QUERY:SELECT * FROM emp")).hasSize(2);
+        assertThat(delegate.events).filteredOn(event -> event.equals("AFTER_QUERY:SELECT * FROM dept")).hasSize(2);
+    }
+
+    @Test
+    void ratePerKey() {
+        Predicate<QueryExecutionInfo> sampler = SamplingProxyExecutionListener.ratePerKey(
+                executionInfo -> executionInfo.getQueries().size(), 1);
+
+        QueryExecutionInfo single = new QueryExecutionInfo();
+        single.getQueries().add(new QueryInfo("A"));
+        QueryExecutionInfo batch = new QueryExecutionInfo();
+        batch.getQueries().add(new QueryInfo("A"));
+        batch.getQueries().add(new QueryInfo("B"));
+
+        assertTrue(sampler.test(single));
+        assertFalse(sampler.test(single));
+        assertTrue(sampler.test(batch));
+        assertFalse(sampler.test(batch));
+    }
+
+    @Test
+    void ratePerFingerprint() {
+        Predicate<QueryExecutionInfo> sampler = SamplingProxyExecutionListener.ratePerKey(
+                SamplingProxyExecutionListener.FINGERPRINT_KEY, 1);
+
+        assertTrue(sampler.test(createExecutionInfo("SELECT * FROM emp WHERE id = 1")));
+        assertFalse(sampler.test(createExecutionInfo("SELECT * FROM emp WHERE id = 2")));
+        assertTrue(sampler.test(createExecutionInfo("SELECT * FROM dept WHERE id = 1")));
+    }
+
+    @Test
+    void slowOrError() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.slowOrError(delegate, Duration.ofMillis(10));
+
+        assertThat(listener.getListenedEventTypes()).containsExactlyInAnyOrder(
+                ProxyEventType.BEFORE_METHOD, ProxyEventType.AFTER_METHOD, ProxyEventType.AFTER_QUERY);
+
+        QueryExecutionInfo fast = createExecutionInfo("FAST");
+        fast.setExecuteDuration(Duration.ofMillis(1));
+        QueryExecutionInfo slow = createExecutionInfo("SLOW");
+        slow.setExecuteDuration(Duration.ofMillis(10));
+        QueryExecutionInfo error = createExecutionInfo("ERROR");
+        error.setThrowable(new RuntimeException());
+
+        for (QueryExecutionInfo executionInfo : new QueryExecutionInfo[]{fast, slow, error}) {
+            executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+            listener.onQueryExecution(executionInfo);
+        }
+
+        assertThat(delegate.events).containsExactly("AFTER_QUERY:SLOW", "AFTER_QUERY:ERROR");
+    }
+
+    @Test
+    void headAndTailSampling() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = new SamplingProxyExecutionListener(delegate,
+                executionInfo -> false, Duration.ofMillis(10), false);
+
+        QueryExecutionInfo executionInfo = createExecutionInfo("SLOW");
+        executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+        listener.onQueryExecution(executionInfo);
+        executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+        listener.eachQueryResult(executionInfo);
+        executionInfo.setExecuteDuration(Duration.ofMillis(20));
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        listener.onQueryExecution(executionInfo);
+
+        // errors are not sampled
+        QueryExecutionInfo error = createExecutionInfo("ERROR");
+        error.setThrowable(new RuntimeException());
+        error.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        listener.onQueryExecution(error);
+
+        assertThat(delegate.events).containsExactly("AFTER_QUERY:SLOW");
+    }
+
+    @Test
+    void markNotSampled() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.fixedRate(delegate, 2);
+
+        QueryExecutionInfo sampled = createExecutionInfo("SELECT 1");
+        sampled.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+        listener.onQueryExecution(sampled);
+
+        QueryExecutionInfo notSampled = createExecutionInfo("SELECT 2");
+        notSampled.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+        listener.onQueryExecution(notSampled);
+
+        // proxies check the flag to skip result callbacks
+        assertTrue(sampled.isSampled());
+        assertFalse(notSampled.isSampled());
+    }
+
+    @Test
+    void methodExecution() {
+        RecordingListener delegate = new RecordingListener();
+        SamplingProxyExecutionListener listener = SamplingProxyExecutionListener.fixedRate(delegate, 100);
+
+        MethodExecutionInfo executionInfo = new MethodExecutionInfo();
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_METHOD);
+        listener.onMethodExecution(executionInfo);
+        listener.onMethodExecution(executionInfo);
+
+        assertEquals(2, delegate.methodExecutions.size());
+        assertSame(executionInfo, delegate.methodExecutions.get(0));
+    }
+
+    private static void execute(ProxyExecutionListener listener, String query, int resultCount) {
+        QueryExecutionInfo executionInfo = createExecutionInfo(query);
+        executionInfo.setProxyEventType(ProxyEventType.BEFORE_QUERY);
+        listener.onQueryExecution(executionInfo);
+        for (int i = 0; i < resultCount; i++) {
+            executionInfo.setProxyEventType(ProxyEventType.EACH_QUERY_RESULT);
+            listener.eachQueryResult(executionInfo);
+        }
+        executionInfo.setProxyEventType(ProxyEventType.AFTER_QUERY);
+        listener.onQueryExecution(executionInfo);
+    }
+
+    private static QueryExecutionInfo createExecutionInfo(String query) {
+        QueryExecutionInfo executionInfo = new QueryExecutionInfo();
+        executionInfo.getQueries().add(new QueryInfo(query));
+        return executionInfo;
+    }
+
+    private static class RecordingListener implements ProxyExecutionListener {
+
+        private List<String> events = new ArrayList<>();
+
+        private List<MethodExecutionInfo> methodExecutions = new ArrayList<>();
+
+        @Override
+        public void beforeQuery(QueryExecutionInfo execInfo) {
+            record(execInfo);
+        }
+
+        @Override
+        public void afterQuery(QueryExecutionInfo execInfo) {
+            record(execInfo);
+        }
+
+        @Override
+        public void eachQueryResult(QueryExecutionInfo execInfo) {
+            record(execInfo);
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionInfo executionInfo) {
+            this.methodExecutions.add(executionInfo);
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionInfo executionInfo) {
+            this.methodExecutions.add(executionInfo);
+        }
+
+        private void record(QueryExecutionInfo execInfo) {
+            this.events.add(execInfo.getProxyEventType() + ":" + execInfo.getQueries().get(0).getQuery());
+        }
+    }
+
+}